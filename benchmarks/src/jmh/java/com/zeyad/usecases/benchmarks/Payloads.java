@@ -0,0 +1,77 @@
+package com.zeyad.usecases.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.zeyad.usecases.Config;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the synthetic payloads the benchmarks run against, in the shapes they take along the
+ * pipeline: domain objects, Gson trees as returned by Retrofit, and org.json payloads.
+ */
+public final class Payloads {
+
+    private Payloads() {
+    }
+
+    /**
+     * @return the Gson the library is set up with.
+     */
+    public static Gson gson() {
+        if (Config.getGson() == null) {
+            Config.setGson();
+        }
+        return Config.getGson();
+    }
+
+    public static List<Repository> repositories(int size) {
+        List<Repository> repositories = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            repositories.add(new Repository(i));
+        }
+        return repositories;
+    }
+
+    public static List<User> users(int size) {
+        List<User> users = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            users.add(new User(i));
+        }
+        return users;
+    }
+
+    /**
+     * @return the repositories as parsed by Retrofit's Gson converter into a raw list.
+     */
+    public static List<Object> repositoryTrees(int size) {
+        Gson gson = gson();
+        return gson.fromJson(gson.toJson(repositories(size)), new TypeToken<List<Object>>() {
+        }.getType());
+    }
+
+    public static JSONArray repositoryJson(int size) throws Exception {
+        return new JSONArray(gson().toJson(repositories(size)));
+    }
+
+    public static List<JSONObject> userJsonObjects(int size) throws Exception {
+        JSONArray jsonArray = new JSONArray(gson().toJson(users(size)));
+        List<JSONObject> jsonObjects = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            jsonObjects.add(jsonArray.getJSONObject(i));
+        }
+        return jsonObjects;
+    }
+
+    public static JSONArray ids(int size) {
+        JSONArray jsonArray = new JSONArray();
+        for (int i = 1; i <= size; i++) {
+            jsonArray.put((long) i);
+        }
+        return jsonArray;
+    }
+}
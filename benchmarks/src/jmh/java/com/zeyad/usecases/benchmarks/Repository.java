@@ -0,0 +1,40 @@
+package com.zeyad.usecases.benchmarks;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Synthetic payload shaped like a GitHub repository, nesting its owner.
+ */
+public class Repository {
+    @SerializedName("id")
+    private long id;
+    @SerializedName("name")
+    private String name;
+    @SerializedName("full_name")
+    private String fullName;
+    @SerializedName("description")
+    private String description;
+    @SerializedName("owner")
+    private User owner;
+    @SerializedName("stargazers_count")
+    private int stargazersCount;
+    @SerializedName("fork")
+    private boolean fork;
+
+    public Repository() {
+    }
+
+    Repository(long id) {
+        this.id = id;
+        owner = new User(id / 10);
+        name = "repository" + id;
+        fullName = "user" + id / 10 + "/" + name;
+        description = "Synthetic repository number " + id + " used to benchmark the data pipeline.";
+        stargazersCount = (int) (id * 7 % 5000);
+        fork = id % 3 == 0;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
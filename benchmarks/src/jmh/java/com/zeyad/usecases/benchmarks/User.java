@@ -0,0 +1,37 @@
+package com.zeyad.usecases.benchmarks;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Synthetic payload shaped like a GitHub user.
+ */
+public class User {
+    @SerializedName("id")
+    private long id;
+    @SerializedName("login")
+    private String login;
+    @SerializedName("avatar_url")
+    private String avatarUrl;
+    @SerializedName("name")
+    private String name;
+    @SerializedName("followers")
+    private int followers;
+    @SerializedName("site_admin")
+    private boolean siteAdmin;
+
+    public User() {
+    }
+
+    User(long id) {
+        this.id = id;
+        login = "user" + id;
+        avatarUrl = "https://avatars.example.com/u/" + id + "?v=4";
+        name = "User " + id;
+        followers = (int) (id % 1000);
+        siteAdmin = id % 100 == 0;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
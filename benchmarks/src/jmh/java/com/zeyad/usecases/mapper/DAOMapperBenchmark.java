@@ -0,0 +1,50 @@
+package com.zeyad.usecases.mapper;
+
+import com.zeyad.usecases.benchmarks.Payloads;
+import com.zeyad.usecases.benchmarks.Repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DAOMapperBenchmark {
+    @Param({"10", "1000", "100000"})
+    int size;
+    private DAOMapper daoMapper;
+    private List<Object> trees;
+    private List<Repository> repositories;
+
+    @Setup
+    public void setUp() {
+        Payloads.gson();
+        daoMapper = new DAOMapper();
+        trees = Payloads.repositoryTrees(size);
+        repositories = Payloads.repositories(size);
+    }
+
+    @Benchmark
+    public Object mapTo() {
+        return daoMapper.mapTo(trees.get(size >> 1), Repository.class);
+    }
+
+    @Benchmark
+    public Object mapAllToFromTrees() {
+        return daoMapper.mapAllTo(trees, Repository.class);
+    }
+
+    @Benchmark
+    public Object mapAllToOfTheDomainClass() {
+        return daoMapper.mapAllTo(repositories, Repository.class);
+    }
+}
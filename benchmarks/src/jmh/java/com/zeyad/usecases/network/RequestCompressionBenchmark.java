@@ -0,0 +1,80 @@
+package com.zeyad.usecases.network;
+
+import com.zeyad.usecases.benchmarks.Payloads;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+/**
+ * Writing a JSON array body as sent by dynamicPostList, as is and gzipped at the fastest and the
+ * default levels.
+ * <p>
+ * The bytes counter is the rate of bytes written to the wire, so divided by the throughput it gives
+ * the size of the body sent, and the trade of CPU for bandwidth of each level.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RequestCompressionBenchmark {
+    @Param({"10", "1000", "10000"})
+    int size;
+    // Deflater.BEST_SPEED and Deflater.DEFAULT_COMPRESSION
+    @Param({"1", "-1"})
+    int level;
+    private RequestBody body;
+
+    @Setup
+    public void setUp() throws Exception {
+        body = RequestBody.create(MediaType.parse("application/json"), Payloads.repositoryJson(size).toString());
+    }
+
+    @Benchmark
+    public Buffer identity(WireBytes wireBytes) throws Exception {
+        return write(body, wireBytes);
+    }
+
+    @Benchmark
+    public Buffer gzip(WireBytes wireBytes) throws Exception {
+        return write(ApiConnection.gzip(body, level), wireBytes);
+    }
+
+    /**
+     * Compressing ahead of sending, to send the length of the body rather than chunks.
+     */
+    @Benchmark
+    public Buffer gzipWithContentLength(WireBytes wireBytes) throws Exception {
+        return write(ApiConnection.forceContentLength(ApiConnection.gzip(body, level)), wireBytes);
+    }
+
+    private static Buffer write(RequestBody body, WireBytes wireBytes) throws Exception {
+        Buffer sink = new Buffer();
+        body.writeTo(sink);
+        wireBytes.bytes += sink.size();
+        return sink;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class WireBytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+}
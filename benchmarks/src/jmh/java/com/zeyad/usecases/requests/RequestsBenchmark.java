@@ -0,0 +1,95 @@
+package com.zeyad.usecases.requests;
+
+import android.os.Parcel;
+
+import com.zeyad.usecases.benchmarks.Payloads;
+import com.zeyad.usecases.benchmarks.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parceling, as done to queue requests, and payload building, as done to send them.
+ * <p>
+ * Only serializable payloads are parceled, the JSON and object payloads not being Parcelable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RequestsBenchmark {
+    @Param({"10", "1000", "100000"})
+    int size;
+    private GetRequest getRequest;
+    private PostRequest keyValuesRequest, objectRequest, arrayRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        Payloads.gson();
+        HashMap<String, Object> keyValuePairs = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            keyValuePairs.put("key" + i, "value" + i);
+        }
+        getRequest = new GetRequest.Builder(User.class, true)
+                .url("users")
+                .id(null, "id", long.class)
+                .cache()
+                .build();
+        keyValuesRequest = new PostRequest.Builder(User.class, true)
+                .url("users")
+                .idColumnName("id", long.class)
+                .payLoad(keyValuePairs)
+                .build();
+        objectRequest = new PostRequest.Builder(User.class, true)
+                .url("users")
+                .payLoad(Payloads.repositories(1).get(0))
+                .build();
+        arrayRequest = new PostRequest.Builder(User.class, true)
+                .url("users")
+                .payLoad(Payloads.repositoryJson(size))
+                .build();
+    }
+
+    @Benchmark
+    public Object parcelGetRequest() {
+        Parcel parcel = Parcel.obtain();
+        getRequest.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        GetRequest request = GetRequest.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+        return request;
+    }
+
+    @Benchmark
+    public Object parcelPostRequest() {
+        Parcel parcel = Parcel.obtain();
+        keyValuesRequest.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        PostRequest request = PostRequest.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+        return request;
+    }
+
+    @Benchmark
+    public Object keyValuesObjectBundle() {
+        return keyValuesRequest.getObjectBundle();
+    }
+
+    @Benchmark
+    public Object objectObjectBundle() {
+        return objectRequest.getObjectBundle();
+    }
+
+    @Benchmark
+    public Object jsonArrayBundle() {
+        return arrayRequest.getArrayBundle().toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.zeyad.usecases.stores;
+
+import com.zeyad.usecases.benchmarks.Payloads;
+import com.zeyad.usecases.benchmarks.User;
+import com.zeyad.usecases.cache.ObjectCache;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemoryStoreBenchmark {
+    private static final int PAGE_SIZE = 100;
+    @Param({"10", "1000", "100000"})
+    int size;
+    private MemoryStore memoryStore;
+    private List<JSONObject> jsonObjects;
+    private JSONArray jsonPage;
+    private List<User> users;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        memoryStore = new MemoryStore(Payloads.gson(), new ObjectCache<>(size, Long.MAX_VALUE,
+                TimeUnit.HOURS.toNanos(1)));
+        jsonObjects = Payloads.userJsonObjects(size);
+        jsonPage = new JSONArray(jsonObjects.subList(0, Math.min(size, PAGE_SIZE)));
+        users = Payloads.users(size);
+        for (int i = 0; i < size; i++) {
+            memoryStore.cacheModel("id", users.get(i), User.class);
+        }
+    }
+
+    private int nextIndex() {
+        next = next + 1 < size ? next + 1 : 0;
+        return next;
+    }
+
+    @Benchmark
+    public void cacheObject() {
+        memoryStore.cacheObject("id", jsonObjects.get(nextIndex()), User.class);
+    }
+
+    /**
+     * Caches a page of a list response, as the disk and cloud stores do.
+     */
+    @Benchmark
+    public void cacheList() {
+        memoryStore.cacheList("id", jsonPage, User.class);
+    }
+
+    @Benchmark
+    public void cacheModel() {
+        memoryStore.cacheModel("id", users.get(nextIndex()), User.class);
+    }
+
+    @Benchmark
+    public Object getItem() {
+        return memoryStore.getItem(users.get(nextIndex()).getId(), User.class).blockingGet();
+    }
+
+    @Benchmark
+    public Object getAllItems() {
+        return memoryStore.getAllItems(User.class).blockingGet();
+    }
+}
@@ -0,0 +1,53 @@
+package com.zeyad.usecases.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.processors.PublishProcessor;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReplayingShareBenchmark {
+    @Param({"10", "1000", "100000"})
+    int size;
+    private Flowable<Integer> source;
+
+    @Setup
+    public void setUp() {
+        source = Flowable.range(0, size);
+    }
+
+    /**
+     * One subscriber consuming a shared stream of size items.
+     */
+    @Benchmark
+    public void share(Blackhole blackhole) {
+        source.compose(ReplayingShare.instance()).subscribe(blackhole::consume);
+    }
+
+    /**
+     * Late subscribers joining a live shared stream, each getting the last item replayed.
+     */
+    @Benchmark
+    public void replayToLateSubscribers(Blackhole blackhole) {
+        PublishProcessor<Integer> processor = PublishProcessor.create();
+        Flowable<Integer> shared = processor.compose(ReplayingShare.instance());
+        shared.subscribe(blackhole::consume);
+        for (int i = 0; i < size; i++) {
+            processor.onNext(i);
+            shared.subscribe(blackhole::consume).dispose();
+        }
+        processor.onComplete();
+    }
+}
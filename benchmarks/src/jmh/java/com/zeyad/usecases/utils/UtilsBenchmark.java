@@ -0,0 +1,36 @@
+package com.zeyad.usecases.utils;
+
+import com.zeyad.usecases.benchmarks.Payloads;
+
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UtilsBenchmark {
+    @Param({"10", "1000", "100000"})
+    int size;
+    private Utils utils;
+    private JSONArray ids;
+
+    @Setup
+    public void setUp() {
+        utils = Utils.getInstance();
+        ids = Payloads.ids(size);
+    }
+
+    @Benchmark
+    public Object convertToListOfId() {
+        return utils.convertToListOfId(ids);
+    }
+}
@@ -0,0 +1,10 @@
+package android.content;
+
+/**
+ * Stand-in for the platform context, only ever referred to and never used by the benchmarks.
+ */
+public abstract class Context {
+    public static final String CONNECTIVITY_SERVICE = "connectivity";
+
+    public abstract Object getSystemService(String name);
+}
@@ -0,0 +1,198 @@
+package android.os;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Stand-in for the platform parcel, so requests can be written and read back off a device.
+ * <p>
+ * It marshals through {@link DataOutputStream}, and Serializables through
+ * {@link ObjectOutputStream}, rather than the platform's native buffer, so its numbers only compare
+ * runs of the benchmarks with each other and say little about parceling costs on a device.
+ */
+public final class Parcel {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private DataInputStream in;
+
+    private Parcel() {
+    }
+
+    public static Parcel obtain() {
+        return new Parcel();
+    }
+
+    public void recycle() {
+        bytes.reset();
+        in = null;
+    }
+
+    public int dataSize() {
+        return bytes.size();
+    }
+
+    /**
+     * Only rewinding to the start is supported, which is all reading back a parcel needs.
+     */
+    public void setDataPosition(int pos) {
+        if (pos != 0) {
+            throw new UnsupportedOperationException("Only rewinding is supported!");
+        }
+        in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    public byte[] marshall() {
+        return bytes.toByteArray();
+    }
+
+    public void writeByte(byte val) {
+        try {
+            out.writeByte(val);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public byte readByte() {
+        try {
+            return in.readByte();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void writeInt(int val) {
+        try {
+            out.writeInt(val);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int readInt() {
+        try {
+            return in.readInt();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void writeLong(long val) {
+        try {
+            out.writeLong(val);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long readLong() {
+        try {
+            return in.readLong();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void writeString(String val) {
+        try {
+            out.writeBoolean(val != null);
+            if (val != null) {
+                out.writeUTF(val);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String readString() {
+        try {
+            return in.readBoolean() ? in.readUTF() : null;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void writeByteArray(byte[] b) {
+        try {
+            out.writeInt(b != null ? b.length : -1);
+            if (b != null) {
+                out.write(b);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public byte[] createByteArray() {
+        try {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] b = new byte[length];
+            in.readFully(b);
+            return b;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void writeSerializable(Serializable s) {
+        if (s == null) {
+            writeString(null);
+            return;
+        }
+        writeString(s.getClass().getName());
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(serialized)) {
+            objectOut.writeObject(s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        writeByteArray(serialized.toByteArray());
+    }
+
+    public Serializable readSerializable() {
+        if (readString() == null) {
+            return null;
+        }
+        byte[] serialized = createByteArray();
+        try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (Serializable) objectIn.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void writeParcelable(Parcelable p, int parcelableFlags) {
+        if (p == null) {
+            writeString(null);
+            return;
+        }
+        writeString(p.getClass().getName());
+        p.writeToParcel(this, parcelableFlags);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Parcelable> T readParcelable(ClassLoader loader) {
+        String name = readString();
+        if (name == null) {
+            return null;
+        }
+        try {
+            Class<?> parcelableClass = Class.forName(name, true,
+                    loader != null ? loader : Parcel.class.getClassLoader());
+            Parcelable.Creator<T> creator =
+                    (Parcelable.Creator<T>) parcelableClass.getField("CREATOR").get(null);
+            return creator.createFromParcel(this);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(name, e);
+        }
+    }
+}
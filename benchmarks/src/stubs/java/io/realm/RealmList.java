@@ -0,0 +1,6 @@
+package io.realm;
+
+import java.util.ArrayList;
+
+public class RealmList<E extends RealmModel> extends ArrayList<E> {
+}
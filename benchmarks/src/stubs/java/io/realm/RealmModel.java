@@ -0,0 +1,4 @@
+package io.realm;
+
+public interface RealmModel {
+}
@@ -7,9 +7,12 @@ import com.google.gson.ExclusionStrategy;
 import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.zeyad.usecases.cache.CachePolicy;
 import com.zeyad.usecases.network.ApiConnection;
 import com.zeyad.usecases.stores.CloudStore;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Scheduler;
@@ -22,8 +25,10 @@ public final class Config {
     private static Gson mGson;
     private static String mBaseURL;
     private static boolean withCache, withRealm;
-    private static int cacheAmount;
+    private static int cacheAmount, cacheSize;
+    private static long cacheMaxBytes;
     private static TimeUnit cacheTimeUnit;
+    private static Map<Class, CachePolicy> cachePolicies = Collections.emptyMap();
     private static Scheduler backgroundThread;
     private static ApiConnection apiConnection;
     private static CloudStore cloudStore;
@@ -103,6 +108,38 @@ public final class Config {
         return cacheTimeUnit;
     }
 
+    public static void setCacheLimits(int cacheSize, long cacheMaxBytes) {
+        Config.cacheSize = cacheSize;
+        Config.cacheMaxBytes = cacheMaxBytes;
+    }
+
+    /**
+     * @return cacheSize, the maximum number of objects held by the memory cache.
+     */
+    public static int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @return cacheMaxBytes, the maximum estimated heap size of the memory cache.
+     */
+    public static long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    /**
+     * @return cachePolicies, the memory cache policies by data class, overriding the global
+     * expiry and limits.
+     */
+    @NonNull
+    public static Map<Class, CachePolicy> getCachePolicies() {
+        return cachePolicies;
+    }
+
+    public static void setCachePolicies(@NonNull Map<Class, CachePolicy> cachePolicies) {
+        Config.cachePolicies = cachePolicies;
+    }
+
     public static void setHasRealm(boolean hasRealm) {
         Config.withRealm = hasRealm;
     }
@@ -1,25 +1,37 @@
 package com.zeyad.usecases.api;
 
 import android.support.annotation.NonNull;
-import android.util.Log;
 
+import com.google.gson.Gson;
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.db.RealmManager;
 import com.zeyad.usecases.db.RealmQueryProvider;
+import com.zeyad.usecases.metrics.DataServiceMetrics;
+import com.zeyad.usecases.network.TransferProgress;
 import com.zeyad.usecases.requests.FileIORequest;
 import com.zeyad.usecases.requests.GetRequest;
+import com.zeyad.usecases.requests.PageRequest;
 import com.zeyad.usecases.requests.PostRequest;
+import com.zeyad.usecases.stores.CloudStore;
 import com.zeyad.usecases.stores.DataStoreFactory;
 import com.zeyad.usecases.utils.ReplayingShare;
+import com.zeyad.usecases.utils.SingleFlight;
+import com.zeyad.usecases.utils.Trace;
 import com.zeyad.usecases.utils.Utils;
 
 import java.io.File;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.reactivex.Flowable;
 import io.reactivex.FlowableTransformer;
 import io.reactivex.Scheduler;
 import io.reactivex.Single;
+import io.reactivex.SingleTransformer;
 import io.reactivex.functions.Function;
+import io.reactivex.processors.UnicastProcessor;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * @author by ZIaDo on 5/9/17.
@@ -30,12 +42,16 @@ class DataService implements IDataService {
     private final Scheduler mPostExecutionThread;
     private final Scheduler mBackgroundThread;
     private final boolean mPostThreadExist;
+    private final SingleFlight mSingleFlight;
+    private final Gson mGson;
 
     DataService(DataStoreFactory dataStoreFactory, Scheduler postExecutionThread, Scheduler backgroundThread) {
         mBackgroundThread = backgroundThread;
         mDataStoreFactory = dataStoreFactory;
         mPostExecutionThread = postExecutionThread;
         mPostThreadExist = mPostExecutionThread != null;
+        mSingleFlight = new SingleFlight();
+        mGson = Config.getGson();
     }
 
     @Override
@@ -44,16 +60,14 @@ class DataService implements IDataService {
         try {
             Class dataClass = getListRequest.getDataClass();
             String url = getListRequest.getUrl();
-            String simpleName = dataClass.getSimpleName();
             boolean shouldCache = getListRequest.isShouldCache();
-            Flowable<List<M>> dynamicGetList = mDataStoreFactory.dynamically(url, dataClass)
-                    .dynamicGetList(url, dataClass, getListRequest.isPersist(), shouldCache);
-            if (Utils.getInstance().withCache(shouldCache)) {
-                result = mDataStoreFactory.memory().<M>getAllItems(dataClass)
-                        .doOnSuccess(m -> Log.d("getList", "cache Hit " + simpleName))
-                        .doOnError(throwable -> Log.d("getList", "cache Miss " + simpleName))
-                        .toFlowable()
-                        .onErrorResumeNext(t -> dynamicGetList);
+            Flowable<List<M>> dynamicGetList = coalesce(getListRequest, List.class, mDataStoreFactory
+                    .dynamically(url, dataClass)
+                    .dynamicGetList(url, dataClass, getListRequest.isPersist(), shouldCache));
+            if (withCache(shouldCache, dataClass)) {
+                Flowable<List<M>> cached = getAllCached(getListRequest, dynamicGetList, "getList");
+                result = needsRefresh(dataClass, null) ? staleWhileRevalidate(cached, dynamicGetList, url) :
+                        cached.onErrorResumeNext(t -> dynamicGetList);
             } else {
                 result = dynamicGetList;
             }
@@ -63,29 +77,76 @@ class DataService implements IDataService {
         return result.compose(applySchedulers());
     }
 
+    @Override
+    public <M> Flowable<Page<M>> getPages(@NonNull PageRequest<M> pageRequest) {
+        CloudStore cloudStore = mDataStoreFactory.cloud(pageRequest.getTemplate().getDataClass());
+        int prefetch = pageRequest.getPrefetch();
+        Flowable<Page<M>> pages;
+        if (pageRequest.isKeyedByOffset()) {
+            pages = Flowable.rangeLong(0, Long.MAX_VALUE)
+                    .concatMapEager(index -> getPage(cloudStore, pageRequest, index,
+                            pageRequest.getKey(index)), prefetch, 1);
+        } else {
+            // the key of a page is only known once the previous one arrived, so pages are pipelined
+            // rather than fetched in parallel, each one requested as soon as its key is read.
+            pages = Flowable.defer(() -> {
+                UnicastProcessor<Object> keys = UnicastProcessor.create();
+                AtomicLong index = new AtomicLong();
+                keys.onNext(pageRequest.getFirstKey());
+                return keys.concatMapEager(key -> this.<M>getPage(cloudStore, pageRequest,
+                        index.getAndIncrement(), key)
+                        .doOnNext(page -> {
+                            if (page.isLast()) {
+                                keys.onComplete();
+                            } else {
+                                keys.onNext(page.getNextKey());
+                            }
+                        }), prefetch, 1);
+            });
+        }
+        pages = pages.takeUntil(Page::isLast);
+        return mPostThreadExist ? pages.subscribeOn(mBackgroundThread)
+                .observeOn(mPostExecutionThread, false, prefetch).unsubscribeOn(mBackgroundThread) :
+                pages.subscribeOn(mBackgroundThread).unsubscribeOn(mBackgroundThread);
+    }
+
+    private <M> Flowable<Page<M>> getPage(CloudStore cloudStore, PageRequest<M> pageRequest, long index,
+                                          Object key) {
+        GetRequest template = pageRequest.getTemplate();
+        return cloudStore.<M>dynamicGetPage(pageRequest.getUrl(key), template.getDataClass(),
+                template.isPersist(), template.isShouldCache())
+                .map(items -> new Page<>(items, index, key, pageRequest.getNextKey(key, items)))
+                .subscribeOn(Schedulers.io());
+    }
+
     @Override
     public <M> Flowable<List<M>> getListOffLineFirst(@NonNull GetRequest getRequest) {
         Flowable<List<M>> result;
         try {
             Utils utils = Utils.getInstance();
             Class dataClass = getRequest.getDataClass();
-            String simpleName = dataClass.getSimpleName();
             boolean persist = getRequest.isPersist();
             boolean shouldCache = getRequest.isShouldCache();
-            Flowable<List<M>> memory = mDataStoreFactory.memory().<M>getAllItems(dataClass)
-                    .doOnSuccess(m -> Log.d("getListOffLineFirst", "cache Hit " + simpleName))
-                    .doOnError(throwable -> Log.d("getListOffLineFirst", "cache Miss " + simpleName))
-                    .toFlowable();
+            Flowable<List<M>> cloud = coalesce(getRequest, List.class,
+                    mDataStoreFactory.cloud(dataClass)
+                            .dynamicGetList(getRequest.getUrl(), dataClass, persist, shouldCache));
+            Flowable<List<M>> memory = getAllCached(getRequest, cloud, "getListOffLineFirst");
             Flowable<List<M>> disk = mDataStoreFactory.disk(dataClass)
                     .<M>dynamicGetList("", dataClass, persist, shouldCache)
-                    .doOnNext(m -> Log.d("getListOffLineFirst", "Disk Hit " + simpleName))
-                    .doOnError(throwable -> Log.e("getListOffLineFirst", "Disk Miss " + simpleName,
+                    .doOnNext(m -> Trace.d("getListOffLineFirst", "Disk Hit {}", dataClass))
+                    .doOnError(throwable -> Trace.e("getListOffLineFirst", "Disk Miss {}", dataClass,
                             throwable));
-            Flowable<List<M>> cloud = mDataStoreFactory.cloud(dataClass)
-                    .dynamicGetList(getRequest.getUrl(), dataClass, persist, shouldCache);
             boolean withDisk = utils.withDisk(persist);
-            boolean withCache = utils.withCache(shouldCache);
-            if (withDisk && withCache) {
+            boolean withCache = withCache(shouldCache, dataClass);
+            boolean revalidate = getRequest.isStaleWhileRevalidate()
+                    || withCache && needsRefresh(dataClass, null);
+            if (revalidate && (withDisk || withCache)) {
+                Flowable<List<M>> nonEmptyDisk = disk.take(1).<List<M>>flatMap(m -> m.isEmpty() ?
+                        Flowable.error(new IllegalAccessException("Disk Miss!")) : Flowable.just(m));
+                result = staleWhileRevalidate(withCache ? withDisk ?
+                                memory.onErrorResumeNext(t -> nonEmptyDisk) : memory : nonEmptyDisk,
+                        cloud, getRequest.getUrl());
+            } else if (withDisk && withCache) {
                 result = memory.onErrorResumeNext(new Function<Throwable, Flowable<? extends List<M>>>() {
                     @Override
                     public Flowable<? extends List<M>> apply(@io.reactivex.annotations.NonNull Throwable throwable) throws Exception {
@@ -115,17 +176,18 @@ class DataService implements IDataService {
             Class dataClass = getRequest.getDataClass();
             boolean shouldCache = getRequest.isShouldCache();
             String url = getRequest.getUrl();
-            String simpleName = dataClass.getSimpleName();
-            Flowable<M> dynamicGetObject = mDataStoreFactory.dynamically(url, dataClass)
+            Flowable<M> dynamicGetObject = coalesce(getRequest, dataClass, mDataStoreFactory
+                    .dynamically(url, dataClass)
                     .dynamicGetObject(url, getRequest.getIdColumnName(), itemId, getRequest.getIdType(),
-                            dataClass, getRequest.isPersist(), shouldCache);
-            if (Utils.getInstance().withCache(shouldCache)) {
-                result = mDataStoreFactory.memory()
-                        .<M>getItem(String.valueOf(itemId), dataClass)
-                        .doOnSuccess(m -> Log.d("getObject", "cache Hit " + simpleName))
-                        .doOnError(throwable -> Log.d("getObject", "cache Miss " + simpleName))
-                        .toFlowable()
-                        .onErrorResumeNext(t -> dynamicGetObject);
+                            dataClass, getRequest.isPersist(), shouldCache));
+            if (withCache(shouldCache, dataClass)) {
+                Flowable<M> cached = mDataStoreFactory.memory()
+                        .<M>getItem(itemId, dataClass)
+                        .doOnSuccess(m -> Trace.d("getObject", "cache Hit {}", dataClass))
+                        .doOnError(throwable -> Trace.d("getObject", "cache Miss {}", dataClass))
+                        .toFlowable();
+                result = needsRefresh(dataClass, itemId) ? staleWhileRevalidate(cached, dynamicGetObject, url) :
+                        cached.onErrorResumeNext(t -> dynamicGetObject);
             } else {
                 result = dynamicGetObject;
             }
@@ -144,26 +206,31 @@ class DataService implements IDataService {
             Class dataClass = getRequest.getDataClass();
             Class idType = getRequest.getIdType();
             String idColumnName = getRequest.getIdColumnName();
-            String simpleName = dataClass.getSimpleName();
             boolean persist = getRequest.isPersist();
             boolean shouldCache = getRequest.isShouldCache();
             Flowable<M> memory = mDataStoreFactory.memory()
-                    .<M>getItem(String.valueOf(itemId), dataClass)
-                    .doOnSuccess(m -> Log.d("getObjectOffLineFirst", "cache Hit " + simpleName))
-                    .doOnError(throwable -> Log.d("getObjectOffLineFirst", "cache Miss " + simpleName))
+                    .<M>getItem(itemId, dataClass)
+                    .doOnSuccess(m -> Trace.d("getObjectOffLineFirst", "cache Hit {}", dataClass))
+                    .doOnError(throwable -> Trace.d("getObjectOffLineFirst", "cache Miss {}", dataClass))
                     .toFlowable();
             Flowable<M> disk = mDataStoreFactory.disk(dataClass)
                     .<M>dynamicGetObject("", idColumnName, itemId, idType, dataClass, persist, shouldCache)
-                    .doOnNext(m -> Log.d("getObjectOffLineFirst", "Disk Hit " + simpleName))
-                    .doOnError(throwable -> Log.e("getObjectOffLineFirst", "Disk Miss " + simpleName,
+                    .doOnNext(m -> Trace.d("getObjectOffLineFirst", "Disk Hit {}", dataClass))
+                    .doOnError(throwable -> Trace.e("getObjectOffLineFirst", "Disk Miss {}", dataClass,
                             throwable));
-            Flowable<M> cloud = mDataStoreFactory.cloud(dataClass)
+            Flowable<M> cloud = coalesce(getRequest, dataClass, mDataStoreFactory.cloud(dataClass)
                     .<M>dynamicGetObject(getRequest.getUrl(), idColumnName, itemId, idType, dataClass,
-                            persist, shouldCache)
-                    .doOnNext(m -> Log.d("getObjectOffLineFirst", "Cloud Hit " + simpleName));
+                            persist, shouldCache))
+                    .doOnNext(m -> Trace.d("getObjectOffLineFirst", "Cloud Hit {}", dataClass));
             boolean withDisk = utils.withDisk(persist);
-            boolean withCache = utils.withCache(shouldCache);
-            if (withDisk && withCache) {
+            boolean withCache = withCache(shouldCache, dataClass);
+            boolean revalidate = getRequest.isStaleWhileRevalidate()
+                    || withCache && needsRefresh(dataClass, itemId);
+            if (revalidate && (withDisk || withCache)) {
+                result = staleWhileRevalidate(withCache ? withDisk ?
+                                memory.onErrorResumeNext(t -> disk.take(1)) : memory : disk.take(1),
+                        cloud, getRequest.getUrl());
+            } else if (withDisk && withCache) {
                 result = memory.onErrorResumeNext(t -> disk);
             } else if (withDisk) {
                 result = disk.onErrorResumeNext(t -> cloud);
@@ -304,18 +371,13 @@ class DataService implements IDataService {
         } catch (IllegalAccessException e) {
             result = Single.error(e);
         }
-        return result.compose(upstream -> mPostThreadExist ? upstream.subscribeOn(mBackgroundThread)
-                .observeOn(mPostExecutionThread).unsubscribeOn(mBackgroundThread) :
-                upstream.subscribeOn(mBackgroundThread).unsubscribeOn(mBackgroundThread));
+        return result.compose(applySingleSchedulers());
     }
 
     @Override
     public <M> Flowable<M> uploadFile(@NonNull FileIORequest fileIORequest) {
         return mDataStoreFactory.cloud(fileIORequest.getDataClass())
-                .<M>dynamicUploadFile(fileIORequest.getUrl(), fileIORequest.getFile(),
-                        fileIORequest.getKey(), fileIORequest.getParameters(),
-                        fileIORequest.onWifi(), fileIORequest.isWhileCharging(),
-                        fileIORequest.isQueuable(), fileIORequest.getDataClass())
+                .<M>dynamicUploadFile(fileIORequest)
                 .compose(applySchedulers());
     }
 
@@ -327,6 +389,111 @@ class DataService implements IDataService {
                         fileIORequest.isQueuable()).compose(applySchedulers());
     }
 
+    @Override
+    public Flowable<TransferProgress> downloadFileProgress(@NonNull FileIORequest fileIORequest) {
+        return mDataStoreFactory.cloud(fileIORequest.getDataClass())
+                .dynamicDownloadFileProgress(fileIORequest)
+                .compose(applySchedulers());
+    }
+
+    @Override
+    public Single<Boolean> flushPendingWrites() {
+        CloudStore cloudStore = Config.getCloudStore();
+        return (cloudStore != null ? cloudStore.flushPendingWrites() : Single.just(true))
+                .compose(applySingleSchedulers());
+    }
+
+    @NonNull
+    @Override
+    public DataServiceMetrics getMetrics() {
+        return DataServiceMetrics.getInstance();
+    }
+
+    /**
+     * Emits the first local value right away, then revalidates against the cloud and emits the
+     * fresh value only if its payload changed. A failed revalidation keeps the stale value, while
+     * a local miss falls back to the cloud result alone. Concurrent revalidations of the same url
+     * share one call, as the cloud Flowable is coalesced.
+     */
+    private <M> Flowable<M> staleWhileRevalidate(Flowable<M> local, Flowable<M> cloud, String url) {
+        return local.take(1)
+                .concatWith(cloud.onErrorResumeNext(throwable -> {
+                    Trace.e("staleWhileRevalidate", "Revalidation failed {}", url, throwable);
+                    return Flowable.empty();
+                }))
+                .distinctUntilChanged(this::isSamePayload)
+                .onErrorResumeNext(t -> cloud);
+    }
+
+    /**
+     * @return whether the request should go through the memory cache, honoring the data class'
+     * cache policy.
+     */
+    private boolean withCache(boolean shouldCache, Class dataClass) {
+        return Utils.getInstance().withCache(shouldCache) && mDataStoreFactory.memory().isCacheable(dataClass);
+    }
+
+    /**
+     * @return whether the cached value is due for a refresh per the data class' cache policy, in
+     * which case it is served and then revalidated.
+     */
+    private boolean needsRefresh(Class dataClass, Object itemId) {
+        return mDataStoreFactory.memory().needsRefresh(dataClass, itemId);
+    }
+
+    /**
+     * Makes concurrent identical GETs share one network call, leaving disk reads as they are. Only
+     * requests that persist and cache the response alike share a call.
+     */
+    private <M> Flowable<M> coalesce(GetRequest getRequest, Class resultType, Flowable<M> upstream) {
+        String url = getRequest.getUrl();
+        return url.isEmpty() ? upstream : mSingleFlight.share(url, getRequest.getDataClass(), resultType,
+                getRequest.isPersist(), getRequest.isShouldCache(), upstream);
+    }
+
+    private boolean isSamePayload(Object stale, Object fresh) {
+        return stale == fresh || stale.equals(fresh) || mGson.toJson(stale).equals(mGson.toJson(fresh));
+    }
+
+    /**
+     * Gets the cached list of the request's data class. If only some of the entries expired, the
+     * valid ones are kept and just the missing ids are loaded from disk in one query, then the
+     * merged list is served stale and revalidated against the cloud. Errors if nothing is cached or
+     * the missing ids could not all be found, so the caller falls back to a full load.
+     */
+    private <M> Flowable<List<M>> getAllCached(@NonNull GetRequest getRequest, Flowable<List<M>> cloud,
+                                               String tag) {
+        Class dataClass = getRequest.getDataClass();
+        return mDataStoreFactory.memory().<M>getAllItemsPartially(dataClass)
+                .toFlowable()
+                .<List<M>>flatMap(cachedList -> {
+                    if (cachedList.isComplete()) {
+                        Trace.d(tag, "cache Hit {}", dataClass);
+                        return Flowable.just(cachedList.getItems());
+                    }
+                    Trace.d(tag, "cache partial Hit {}, missing: {}", dataClass,
+                            cachedList.getMissingIds().size());
+                    if (!Utils.getInstance().withDisk(getRequest.isPersist())) {
+                        return Flowable.error(new IllegalAccessException("Cache Miss!"));
+                    }
+                    List<Object> missingIds = cachedList.getMissingIds();
+                    return mDataStoreFactory.disk(dataClass)
+                            .<M>queryDisk(realm -> RealmManager.whereIdIn(realm, dataClass,
+                                    getRequest.getIdColumnName(), missingIds))
+                            .take(1)
+                            .<List<M>>flatMap(loaded -> {
+                                if (loaded.size() != missingIds.size()) {
+                                    return Flowable.error(new IllegalAccessException("Cache Miss!"));
+                                }
+                                // rows reloaded from disk are as stale as the ones that expired, so they
+                                // are served but not cached again, and the list is revalidated
+                                return staleWhileRevalidate(Flowable.just(cachedList.mergeWith(loaded)),
+                                        cloud, getRequest.getUrl());
+                            });
+                })
+                .doOnError(throwable -> Trace.d(tag, "cache Miss {}", dataClass));
+    }
+
     /**
      * Apply the default android schedulers to a observable
      *
@@ -339,4 +506,10 @@ class DataService implements IDataService {
                 .observeOn(mPostExecutionThread).unsubscribeOn(mBackgroundThread) :
                 observable -> observable.subscribeOn(mBackgroundThread).unsubscribeOn(mBackgroundThread);
     }
+
+    private <M> SingleTransformer<M, M> applySingleSchedulers() {
+        return upstream -> mPostThreadExist ? upstream.subscribeOn(mBackgroundThread)
+                .observeOn(mPostExecutionThread).unsubscribeOn(mBackgroundThread) :
+                upstream.subscribeOn(mBackgroundThread).unsubscribeOn(mBackgroundThread);
+    }
 }
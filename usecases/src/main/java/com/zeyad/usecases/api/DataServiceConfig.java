@@ -3,14 +3,24 @@ package com.zeyad.usecases.api;
 import android.content.Context;
 import android.os.HandlerThread;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
 
+import com.zeyad.usecases.cache.CachePolicy;
 import com.zeyad.usecases.mapper.DAOMapper;
+import com.zeyad.usecases.network.RequestCompression;
 import com.zeyad.usecases.utils.DataBaseManagerUtil;
+import com.zeyad.usecases.utils.Trace;
+import com.zeyad.usecases.utils.Tracer;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Scheduler;
 import okhttp3.Cache;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 
 /**
@@ -24,9 +34,18 @@ public class DataServiceConfig {
     private final String baseUrl;
     private final boolean withCache, withRealm;
     private final int cacheSize, cacheAmount;
+    private final long cacheMaxBytes;
     private final TimeUnit timeUnit;
     private final Scheduler postExecutionThread;
     private final DataBaseManagerUtil dataBaseManagerUtil;
+    private final Map<Class, DAOMapper.Mapper> mappers;
+    private final Map<Class, CachePolicy> cachePolicies;
+    private final int traceLevel;
+    private final Tracer tracer;
+    private final RequestCompression requestCompression;
+    private final int maxIdleConnections;
+    private final long keepAliveDuration;
+    private final TimeUnit keepAliveTimeUnit;
 
     private DataServiceConfig(@NonNull Builder dataUseCaseConfigBuilder) {
         context = dataUseCaseConfigBuilder.context;
@@ -37,9 +56,18 @@ public class DataServiceConfig {
         withRealm = dataUseCaseConfigBuilder.withRealm;
         cacheSize = dataUseCaseConfigBuilder.cacheSize;
         cacheAmount = dataUseCaseConfigBuilder.cacheAmount;
+        cacheMaxBytes = dataUseCaseConfigBuilder.cacheMaxBytes;
         timeUnit = dataUseCaseConfigBuilder.timeUnit;
         postExecutionThread = dataUseCaseConfigBuilder.postExecutionThread;
         dataBaseManagerUtil = dataUseCaseConfigBuilder.dataBaseManagerUtil;
+        mappers = dataUseCaseConfigBuilder.mappers;
+        cachePolicies = Collections.unmodifiableMap(new HashMap<>(dataUseCaseConfigBuilder.cachePolicies));
+        traceLevel = dataUseCaseConfigBuilder.traceLevel;
+        tracer = dataUseCaseConfigBuilder.tracer;
+        requestCompression = dataUseCaseConfigBuilder.requestCompression;
+        maxIdleConnections = dataUseCaseConfigBuilder.maxIdleConnections;
+        keepAliveDuration = dataUseCaseConfigBuilder.keepAliveDuration;
+        keepAliveTimeUnit = dataUseCaseConfigBuilder.keepAliveTimeUnit;
     }
 
     public Context getContext() {
@@ -48,7 +76,7 @@ public class DataServiceConfig {
 
     @NonNull
     DAOMapper getEntityMapper() {
-        return new DAOMapper();
+        return new DAOMapper(mappers);
     }
 
     Scheduler getPostExecutionThread() {
@@ -80,6 +108,10 @@ public class DataServiceConfig {
         return cacheSize == 0 || cacheSize > 8192 ? 8192 : cacheSize;
     }
 
+    long getCacheMaxBytes() {
+        return cacheMaxBytes <= 0 ? Runtime.getRuntime().maxMemory() / 8 : cacheMaxBytes;
+    }
+
     int getCacheAmount() {
         return cacheAmount;
     }
@@ -88,6 +120,34 @@ public class DataServiceConfig {
         return timeUnit;
     }
 
+    @NonNull
+    Map<Class, CachePolicy> getCachePolicies() {
+        return cachePolicies;
+    }
+
+    int getTraceLevel() {
+        return traceLevel;
+    }
+
+    @NonNull
+    Tracer getTracer() {
+        return tracer != null ? tracer : Tracer.LOGCAT;
+    }
+
+    @Nullable
+    RequestCompression getRequestCompression() {
+        return requestCompression;
+    }
+
+    /**
+     * @return the pool of the connections to keep alive, null to keep the one of the okHttp builder.
+     */
+    @Nullable
+    ConnectionPool getConnectionPool() {
+        return keepAliveTimeUnit != null ?
+                new ConnectionPool(maxIdleConnections, keepAliveDuration, keepAliveTimeUnit) : null;
+    }
+
     DataBaseManagerUtil getDataBaseManagerUtil() {
         return dataBaseManagerUtil;
     }
@@ -104,9 +164,18 @@ public class DataServiceConfig {
         private String baseUrl;
         private boolean withCache, withRealm;
         private int cacheSize, cacheAmount;
+        private long cacheMaxBytes;
         private TimeUnit timeUnit;
         private Scheduler postExecutionThread;
         private DataBaseManagerUtil dataBaseManagerUtil;
+        private final Map<Class, DAOMapper.Mapper> mappers = new HashMap<>();
+        private final Map<Class, CachePolicy> cachePolicies = new HashMap<>();
+        private int traceLevel = Log.WARN;
+        private Tracer tracer;
+        private RequestCompression requestCompression;
+        private int maxIdleConnections;
+        private long keepAliveDuration;
+        private TimeUnit keepAliveTimeUnit;
 
         public Builder(Context context) {
             this.context = context;
@@ -157,6 +226,21 @@ public class DataServiceConfig {
             return this;
         }
 
+        @NonNull
+        public Builder cacheMaxBytes(long cacheMaxBytes) {
+            this.cacheMaxBytes = cacheMaxBytes;
+            return this;
+        }
+
+        /**
+         * Overrides the cache expiry and limits for the objects of the given class.
+         */
+        @NonNull
+        public Builder cachePolicy(@NonNull Class dataClass, @NonNull CachePolicy cachePolicy) {
+            cachePolicies.put(dataClass, cachePolicy);
+            return this;
+        }
+
         @NonNull
         public Builder withSQLite(DataBaseManagerUtil dataBaseManagerUtil) {
             this.dataBaseManagerUtil = dataBaseManagerUtil;
@@ -164,6 +248,57 @@ public class DataServiceConfig {
             return this;
         }
 
+        /**
+         * Maps the object and list responses of the domain class with the given mapper, instead of
+         * Gson's reflection. The mapper gets each object as Gson parsed it, and each element of a
+         * list as a {@link com.google.gson.JsonElement}.
+         */
+        @NonNull
+        public <M> Builder mapper(@NonNull Class<M> domainClass, @NonNull DAOMapper.Mapper<? extends M> mapper) {
+            mappers.put(domainClass, mapper);
+            return this;
+        }
+
+        /**
+         * Traces the library at and above the given {@link Log} priority, or not at all with
+         * {@link Trace#OFF}. Only warnings and errors are traced by default.
+         */
+        @NonNull
+        public Builder traceLevel(int traceLevel) {
+            this.traceLevel = traceLevel;
+            return this;
+        }
+
+        /**
+         * Sends the traces of the library to the given tracer instead of logcat.
+         */
+        @NonNull
+        public Builder tracer(@Nullable Tracer tracer) {
+            this.tracer = tracer;
+            return this;
+        }
+
+        /**
+         * Gzips the request bodies the compression applies to, none being compressed by default.
+         */
+        @NonNull
+        public Builder requestCompression(@Nullable RequestCompression requestCompression) {
+            this.requestCompression = requestCompression;
+            return this;
+        }
+
+        /**
+         * Keeps up to the given idle connections alive for the given duration, for the requests
+         * with and without cache to reuse. OkHttp keeps 5 for 5 minutes by default.
+         */
+        @NonNull
+        public Builder connectionPool(int maxIdleConnections, long keepAliveDuration, TimeUnit timeUnit) {
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveDuration = keepAliveDuration;
+            this.keepAliveTimeUnit = timeUnit;
+            return this;
+        }
+
         @NonNull
         public DataServiceConfig build() {
             return new DataServiceConfig(this);
@@ -12,9 +12,10 @@ import com.zeyad.usecases.db.RealmManager;
 import com.zeyad.usecases.network.ApiConnection;
 import com.zeyad.usecases.stores.DataStoreFactory;
 import com.zeyad.usecases.utils.DataBaseManagerUtil;
+import com.zeyad.usecases.utils.Trace;
 
 import io.reactivex.android.schedulers.AndroidSchedulers;
-import st.lowlevel.storo.StoroBuilder;
+import okhttp3.OkHttpClient;
 
 public final class DataServiceFactory {
     @Nullable
@@ -54,19 +55,20 @@ public final class DataServiceFactory {
         Config.setCacheExpiry(config.getCacheAmount(), config.getTimeUnit());
         Config.setWithSQLite(isSQLite);
         Config.setHasRealm(config.isWithRealm());
-        if (config.isWithCache()) {
-            StoroBuilder.configure(config.getCacheSize())
-                    .setDefaultCacheDirectory(config.getContext())
-                    .setGsonInstance(Config.getGson())
-                    .initialize();
-        }
+        Config.setCacheLimits(config.getCacheSize(), config.getCacheMaxBytes());
+        Config.setCachePolicies(config.getCachePolicies());
+        Trace.setLevel(config.getTraceLevel());
+        Trace.setTracer(config.getTracer());
         HandlerThread handlerThread = config.getHandlerThread();
         if (config.isWithRealm()) {
             handlerThread.start();
             Config.setBackgroundThread(AndroidSchedulers.from(handlerThread.getLooper()));
         }
-        ApiConnection apiConnection = new ApiConnection(ApiConnection.init(config.getOkHttpBuilder()),
-                ApiConnection.initWithCache(config.getOkHttpBuilder(), config.getOkHttpCache()));
+        OkHttpClient.Builder okHttpBuilder = config.getRequestCompression() != null ?
+                ApiConnection.compressRequests(config.getOkHttpBuilder(), config.getRequestCompression()) :
+                config.getOkHttpBuilder();
+        ApiConnection apiConnection = ApiConnection.create(okHttpBuilder, config.getOkHttpCache(),
+                config.getConnectionPool());
         dataBaseManagerUtil = config.isWithRealm() || isSQLite ? isSQLite ? dataBaseManagerUtil :
                 dataClass -> new RealmManager() : null;
         sDataUseCase = new DataService(new DataStoreFactory(dataBaseManagerUtil, apiConnection,
@@ -1,8 +1,11 @@
 package com.zeyad.usecases.api;
 
 import com.zeyad.usecases.db.RealmQueryProvider;
+import com.zeyad.usecases.metrics.DataServiceMetrics;
+import com.zeyad.usecases.network.TransferProgress;
 import com.zeyad.usecases.requests.FileIORequest;
 import com.zeyad.usecases.requests.GetRequest;
+import com.zeyad.usecases.requests.PageRequest;
 import com.zeyad.usecases.requests.PostRequest;
 
 import java.io.File;
@@ -21,6 +24,15 @@ public interface IDataService {
      */
     <M> Flowable<List<M>> getList(GetRequest getListRequest);
 
+    /**
+     * Gets the pages of a paginated list from pageRequest, fetching the next ones ahead of the
+     * subscriber as configured by its prefetch, and persisting each page in one batch.
+     *
+     * @param pageRequest contains the template request and how pages are keyed.
+     * @return Flowable with the pages, in order, as fast as they are requested.
+     */
+    <M> Flowable<Page<M>> getPages(PageRequest<M> pageRequest);
+
     /**
      * Gets object from getRequest.
      *
@@ -132,4 +144,28 @@ public interface IDataService {
      * @return Flowable with the ResponseBody
      */
     Flowable<File> downloadFile(FileIORequest fileIORequest);
+
+    /**
+     * Downloads file from the give url, resuming the bytes left over by an earlier attempt.
+     *
+     * @param fileIORequest contains the attributes of the request, with the progress step and
+     *                      checksum to verify.
+     * @return Flowable with the progress of the download, the last one being done.
+     */
+    Flowable<TransferProgress> downloadFileProgress(FileIORequest fileIORequest);
+
+    /**
+     * Writes the responses and payloads still batched in memory to the database right away.
+     *
+     * @return Single emitting whether every pending batch was written.
+     */
+    Single<Boolean> flushPendingWrites();
+
+    /**
+     * Gets the hit, miss, eviction and latency metrics of the memory, disk and cloud stores, per data
+     * class.
+     *
+     * @return the metrics registry, to take snapshots of once or periodically.
+     */
+    DataServiceMetrics getMetrics();
 }
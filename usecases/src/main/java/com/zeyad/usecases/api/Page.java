@@ -0,0 +1,54 @@
+package com.zeyad.usecases.api;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * One page of a paginated list, as emitted by {@link IDataService#getPages}.
+ */
+public final class Page<M> {
+    private final List<M> items;
+    private final long index;
+    private final Object key, nextKey;
+
+    Page(@NonNull List<M> items, long index, @NonNull Object key, @Nullable Object nextKey) {
+        this.items = items;
+        this.index = index;
+        this.key = key;
+        this.nextKey = nextKey;
+    }
+
+    @NonNull
+    public List<M> getItems() {
+        return items;
+    }
+
+    /**
+     * @return position of the page, 0 for the first.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the offset, page number or cursor the page was fetched with.
+     */
+    @NonNull
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * @return the key of the following page, null for the last page.
+     */
+    @Nullable
+    public Object getNextKey() {
+        return nextKey;
+    }
+
+    public boolean isLast() {
+        return nextKey == null;
+    }
+}
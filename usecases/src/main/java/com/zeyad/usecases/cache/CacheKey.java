@@ -0,0 +1,125 @@
+package com.zeyad.usecases.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.math.BigDecimal;
+
+/**
+ * Identity of a cached object: its class plus either a primitive numeric id or a String id.
+ * <p>
+ * Compares classes by identity, so classes sharing a simple name in different packages do not
+ * collide, and computes its hash once so lookups do not build or hash Strings.
+ */
+public final class CacheKey {
+    /**
+     * Magnitude from which doubles can no longer tell whole numbers apart.
+     */
+    private static final double MAX_EXACT_DOUBLE = 9007199254740992d;
+    private final Class dataClass;
+    private final long numericId;
+    @Nullable
+    private final String stringId;
+    private final int hash;
+
+    private CacheKey(@NonNull Class dataClass, long numericId, @Nullable String stringId) {
+        this.dataClass = dataClass;
+        this.numericId = numericId;
+        this.stringId = stringId;
+        int idHash = stringId != null ? stringId.hashCode() : (int) (numericId ^ (numericId >>> 32));
+        hash = 31 * dataClass.hashCode() + idHash;
+    }
+
+    @NonNull
+    public static CacheKey of(@NonNull Class dataClass, long id) {
+        return new CacheKey(dataClass, id, null);
+    }
+
+    @NonNull
+    public static CacheKey of(@NonNull Class dataClass, @NonNull String id) {
+        return new CacheKey(dataClass, 0, id);
+    }
+
+    /**
+     * Creates a numeric key for whole numbers, whatever their boxed type, and for Strings holding
+     * one, so an id read from a url matches the same id parsed from json. Fractional numbers and
+     * other ids get a String key of their text.
+     *
+     * @throws IllegalArgumentException if the id is null.
+     */
+    @NonNull
+    public static CacheKey of(@NonNull Class dataClass, @Nullable Object id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Can not key " + dataClass.getSimpleName() + " by a null id");
+        } else if (id instanceof Double || id instanceof Float || id instanceof BigDecimal) {
+            double value = ((Number) id).doubleValue();
+            if (value == Math.rint(value) && Math.abs(value) < MAX_EXACT_DOUBLE) {
+                return of(dataClass, ((Number) id).longValue());
+            }
+            return of(dataClass, id instanceof BigDecimal ? ((BigDecimal) id).toPlainString() : id.toString());
+        } else if (id instanceof Number) {
+            return of(dataClass, ((Number) id).longValue());
+        }
+        String stringId = String.valueOf(id);
+        Long numericId = parseCanonicalLong(stringId);
+        return numericId != null ? of(dataClass, numericId) : of(dataClass, stringId);
+    }
+
+    /**
+     * @return the whole number the String holds as {@link Long#toString(long)} would write it, or
+     * null, so "037" or "+37" stay distinct ids.
+     */
+    @Nullable
+    private static Long parseCanonicalLong(@NonNull String id) {
+        int length = id.length();
+        if (length == 0 || length > 20) {
+            return null;
+        }
+        for (int i = id.charAt(0) == '-' ? 1 : 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        try {
+            long value = Long.parseLong(id);
+            return Long.toString(value).equals(id) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @NonNull
+    public Class getDataClass() {
+        return dataClass;
+    }
+
+    /**
+     * @return the id as a {@link Long} for numeric keys, or a {@link String}.
+     */
+    @NonNull
+    public Object getId() {
+        return stringId != null ? stringId : numericId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CacheKey)) return false;
+        CacheKey cacheKey = (CacheKey) o;
+        return hash == cacheKey.hash && dataClass == cacheKey.dataClass
+                && numericId == cacheKey.numericId
+                && (stringId == null ? cacheKey.stringId == null : stringId.equals(cacheKey.stringId));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return dataClass.getSimpleName() + (stringId != null ? stringId : String.valueOf(numericId));
+    }
+}
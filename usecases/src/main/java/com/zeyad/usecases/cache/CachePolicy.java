@@ -0,0 +1,103 @@
+package com.zeyad.usecases.cache;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the memory cache treats the objects of one data class.
+ * <p>
+ * Unset values fall back to the global cache settings. Bounding the entries or bytes of a class
+ * gives it a cache of its own, so it neither crowds out nor gets crowded out by other classes.
+ */
+public final class CachePolicy {
+    private final boolean cacheable;
+    private final long timeToLiveNanos, refreshAfterWriteNanos, maxBytes;
+    private final int maxEntries;
+
+    private CachePolicy(@NonNull Builder builder) {
+        cacheable = builder.cacheable;
+        timeToLiveNanos = builder.timeToLiveNanos;
+        refreshAfterWriteNanos = builder.refreshAfterWriteNanos;
+        maxEntries = builder.maxEntries;
+        maxBytes = builder.maxBytes;
+    }
+
+    /**
+     * @return whether objects of the class are cached at all.
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * @return how long an object lives after it is cached, 0 for the global expiry.
+     */
+    public long getTimeToLiveNanos() {
+        return timeToLiveNanos;
+    }
+
+    /**
+     * @return how long after being cached an object is still served but also refreshed, 0 for
+     * never.
+     */
+    public long getRefreshAfterWriteNanos() {
+        return refreshAfterWriteNanos;
+    }
+
+    /**
+     * @return maximum number of cached objects of the class, 0 for the global bound.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return maximum estimated heap size of the cached objects of the class, 0 for the global
+     * bound.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public static class Builder {
+        private boolean cacheable = true;
+        private long timeToLiveNanos, refreshAfterWriteNanos, maxBytes;
+        private int maxEntries;
+
+        @NonNull
+        public Builder timeToLive(long amount, @NonNull TimeUnit timeUnit) {
+            timeToLiveNanos = timeUnit.toNanos(amount);
+            return this;
+        }
+
+        @NonNull
+        public Builder refreshAfterWrite(long amount, @NonNull TimeUnit timeUnit) {
+            refreshAfterWriteNanos = timeUnit.toNanos(amount);
+            return this;
+        }
+
+        @NonNull
+        public Builder maxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        @NonNull
+        public Builder maxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        @NonNull
+        public Builder noCache() {
+            cacheable = false;
+            return this;
+        }
+
+        @NonNull
+        public CachePolicy build() {
+            return new CachePolicy(this);
+        }
+    }
+}
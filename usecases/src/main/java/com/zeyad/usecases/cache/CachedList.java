@@ -0,0 +1,48 @@
+package com.zeyad.usecases.cache;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The valid subset of a cached list, along with the ids of the entries that expired or were
+ * evicted.
+ */
+public final class CachedList<M> {
+    private final List<M> items;
+    private final List<Object> missingIds;
+
+    public CachedList(@NonNull List<M> items, @NonNull List<Object> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    @NonNull
+    public List<M> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the missing ids, as {@link Long}s for numeric ids and {@link String}s otherwise.
+     */
+    @NonNull
+    public List<Object> getMissingIds() {
+        return missingIds;
+    }
+
+    public boolean isComplete() {
+        return missingIds.isEmpty();
+    }
+
+    /**
+     * @return the cached items followed by the given ones, which were loaded for the missing ids.
+     */
+    @NonNull
+    public List<M> mergeWith(@NonNull List<M> loaded) {
+        List<M> merged = new ArrayList<>(items.size() + loaded.size());
+        merged.addAll(items);
+        merged.addAll(loaded);
+        return merged;
+    }
+}
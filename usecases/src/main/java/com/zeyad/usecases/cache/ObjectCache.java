@@ -0,0 +1,372 @@
+package com.zeyad.usecases.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-heap object cache bounded by entry count and estimated weight in bytes.
+ * <p>
+ * New entries land in a small LRU admission window. Once they fall out of it they have to beat the
+ * eviction victim of the main space on {@link FrequencySketch} popularity (W-TinyLFU), so a one-off
+ * scan can not flush the entries that are read over and over. The main space is a segmented LRU of
+ * a probation and a protected queue.
+ */
+public final class ObjectCache<K, V> {
+    private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+    private final Map<K, Node<K, V>> data;
+    private final AccessQueue<K, V> window, probation, protectedQueue;
+    private final FrequencySketch sketch;
+    private final Ticker ticker;
+    private final int maximumSize, maximumWindowSize, maximumProtectedSize;
+    private final long maximumWeight, expireAfterWriteNanos;
+    private long weightedSize, evictionCount;
+    @Nullable
+    private volatile EvictionListener<K> evictionListener;
+    @Nullable
+    private volatile ExpiryListener<K> expiryListener;
+
+    /**
+     * @param maximumSize           maximum number of entries.
+     * @param maximumWeight         maximum sum of entry weights, in bytes.
+     * @param expireAfterWriteNanos default time to live of an entry, non positive for no expiry.
+     */
+    public ObjectCache(int maximumSize, long maximumWeight, long expireAfterWriteNanos) {
+        this(maximumSize, maximumWeight, expireAfterWriteNanos, System::nanoTime);
+    }
+
+    public ObjectCache(int maximumSize, long maximumWeight, long expireAfterWriteNanos, Ticker ticker) {
+        if (maximumSize <= 0 || maximumWeight <= 0) {
+            throw new IllegalArgumentException("Cache bounds should be greater than 0");
+        }
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.ticker = ticker;
+        maximumWindowSize = Math.max(1, maximumSize / 100);
+        maximumProtectedSize = (int) (0.8 * (maximumSize - maximumWindowSize));
+        data = new HashMap<>();
+        window = new AccessQueue<>();
+        probation = new AccessQueue<>();
+        protectedQueue = new AccessQueue<>();
+        sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * @return the live value mapped to the key, or null if absent or expired.
+     */
+    @Nullable
+    public synchronized V get(@NonNull K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (hasExpired(node, ticker.read())) {
+            remove(node);
+            ExpiryListener<K> listener = expiryListener;
+            if (listener != null) {
+                listener.onExpiry(key);
+            }
+            return null;
+        }
+        sketch.increment(key);
+        onAccess(node);
+        return node.value;
+    }
+
+    public boolean put(@NonNull K key, @NonNull V value, int weight) {
+        return put(key, value, weight, expireAfterWriteNanos);
+    }
+
+    /**
+     * Maps the value to the key, replacing any previous mapping.
+     *
+     * @param weight         estimated size of the value in bytes.
+     * @param timeToLiveNano time to live of this entry, non positive for no expiry.
+     * @return whether the entry was admitted, false if evicting to honor the bounds dropped it
+     * right away.
+     */
+    public synchronized boolean put(@NonNull K key, @NonNull V value, int weight, long timeToLiveNano) {
+        long now = ticker.read();
+        long expiresAt = timeToLiveNano > 0 ? now + timeToLiveNano : Long.MAX_VALUE;
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            weightedSize += weight - node.weight;
+            node.value = value;
+            node.weight = weight;
+            node.writtenAt = now;
+            node.expiresAt = expiresAt;
+            onAccess(node);
+        } else {
+            node = new Node<>(key, value, weight, now, expiresAt);
+            data.put(key, node);
+            weightedSize += weight;
+            window.addLast(node);
+        }
+        evictEntries();
+        return data.get(key) == node;
+    }
+
+    /**
+     * @return time since the live value mapped to the key was written, or -1 if absent or expired.
+     * Does not count as an access.
+     */
+    public synchronized long ageNanos(@NonNull K key) {
+        Node<K, V> node = data.get(key);
+        long now = ticker.read();
+        return node == null || hasExpired(node, now) ? -1 : now - node.writtenAt;
+    }
+
+    /**
+     * @return time since the oldest of the live values mapped to the keys was written, or -1 if none
+     * is. Takes the lock once for all the keys, and does not count as an access.
+     */
+    public synchronized long maxAgeNanos(@NonNull Collection<K> keys) {
+        long now = ticker.read(), maxAge = -1;
+        for (K key : keys) {
+            Node<K, V> node = data.get(key);
+            if (node != null && !hasExpired(node, now)) {
+                maxAge = Math.max(maxAge, now - node.writtenAt);
+            }
+        }
+        return maxAge;
+    }
+
+    /**
+     * @return the current reading of the cache's {@link Ticker}, which write times are taken from.
+     */
+    public long nowNanos() {
+        return ticker.read();
+    }
+
+    @Nullable
+    public synchronized V remove(@NonNull K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        remove(node);
+        return node.value;
+    }
+
+    public synchronized void clear() {
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+        weightedSize = 0;
+    }
+
+    public synchronized int size() {
+        return data.size();
+    }
+
+    public synchronized long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * @return number of entries dropped to stay within the size and weight bounds.
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Called under the cache lock for every entry evicted to honor the bounds, so it should not do
+     * more than bookkeeping.
+     */
+    public void setEvictionListener(@Nullable EvictionListener<K> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Called under the cache lock for every expired entry dropped when it is read.
+     */
+    public void setExpiryListener(@Nullable ExpiryListener<K> expiryListener) {
+        this.expiryListener = expiryListener;
+    }
+
+    private boolean hasExpired(Node<K, V> node, long now) {
+        return node.expiresAt - now <= 0;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedQueue.addLast(node);
+                if (protectedQueue.size > maximumProtectedSize) {
+                    Node<K, V> demoted = protectedQueue.pollFirst();
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            default:
+                protectedQueue.moveToBack(node);
+                break;
+        }
+    }
+
+    /**
+     * Moves the overflow of the window to the tail of probation as admission candidates, then
+     * evicts until the bounds hold, letting each candidate duel the probation head on frequency.
+     */
+    private void evictEntries() {
+        Node<K, V> candidate = null;
+        while (window.size > maximumWindowSize) {
+            Node<K, V> node = window.pollFirst();
+            node.queue = PROBATION;
+            probation.addLast(node);
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+        while (data.size() > maximumSize || weightedSize > maximumWeight) {
+            Node<K, V> victim = probation.head;
+            if (victim == null) {
+                victim = protectedQueue.head != null ? protectedQueue.head : window.head;
+            }
+            if (candidate == null || candidate == victim) {
+                candidate = candidate == null ? null : candidate.next;
+                evict(victim);
+                continue;
+            }
+            Node<K, V> next = candidate.next;
+            if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evict(victim);
+            } else {
+                evict(candidate);
+            }
+            candidate = next;
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        remove(node);
+        evictionCount++;
+        EvictionListener<K> listener = evictionListener;
+        if (listener != null) {
+            listener.onEviction(node.key);
+        }
+    }
+
+    private void remove(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            default:
+                protectedQueue.remove(node);
+                break;
+        }
+        data.remove(node.key);
+        weightedSize -= node.weight;
+    }
+
+    /**
+     * Notified of the entries evicted by a {@link ObjectCache}.
+     */
+    public interface EvictionListener<K> {
+        void onEviction(@NonNull K key);
+    }
+
+    /**
+     * Notified of the expired entries dropped by a {@link ObjectCache}.
+     */
+    public interface ExpiryListener<K> {
+        void onExpiry(@NonNull K key);
+    }
+
+    /**
+     * Source of the current time in nanoseconds, replaceable in tests.
+     */
+    public interface Ticker {
+        long read();
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        V value;
+        int weight, queue;
+        long writtenAt, expiresAt;
+        Node<K, V> prev, next;
+
+        Node(K key, V value, int weight, long writtenAt, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writtenAt = writtenAt;
+            this.expiresAt = expiresAt;
+            queue = WINDOW;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list ordered from least to most recently used.
+     */
+    private static final class AccessQueue<K, V> {
+        Node<K, V> head, tail;
+        int size;
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> first = head;
+            if (first != null) {
+                remove(first);
+            }
+            return first;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.zeyad.usecases.db;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -10,6 +11,7 @@ import java.util.List;
 import io.reactivex.Flowable;
 import io.reactivex.Single;
 import io.realm.RealmModel;
+import io.realm.Sort;
 
 /**
  * Interface for the Database modules.
@@ -37,6 +39,40 @@ public interface DataBaseManager {
     @NonNull
     <M> Flowable<List<M>> getAll(Class clazz);
 
+    /**
+     * Gets an {@link Flowable} which will emit the fine-grained changes of the results of the
+     * query, starting with all the current results as insertions.
+     *
+     * @param queryFactory The query used to look for inside the DB.
+     */
+    @NonNull
+    <M extends RealmModel> Flowable<QueryChange<M>> getQueryChanges(RealmQueryProvider<M> queryFactory);
+
+    /**
+     * Gets an {@link Flowable} which will emit one page of the items, copying only that page.
+     *
+     * @param clazz     Class type of the items to get.
+     * @param offset    index of the first item of the page.
+     * @param limit     maximum number of items in the page.
+     * @param sortField field to sort the items by, null to keep the DB order.
+     * @param sortOrder order to sort the items in.
+     */
+    @NonNull
+    <M> Flowable<List<M>> getPage(Class clazz, int offset, int limit, @Nullable String sortField,
+                                  @NonNull Sort sortOrder);
+
+    /**
+     * Gets an {@link Flowable} which will emit consecutive pages of the items, one per request.
+     *
+     * @param clazz     Class type of the items to get.
+     * @param pageSize  maximum number of items in a page.
+     * @param sortField field to sort the items by, null to keep the DB order.
+     * @param sortOrder order to sort the items in.
+     */
+    @NonNull
+    <M> Flowable<List<M>> getPages(Class clazz, int pageSize, @Nullable String sortField,
+                                   @NonNull Sort sortOrder);
+
     /**
      * Get list of items according to the query passed.
      *
@@ -91,14 +127,14 @@ public interface DataBaseManager {
     Single<Boolean> evictAll(Class clazz);
 
     /**
-     * Evict a collection elements of the DB.
+     * Evict a collection elements of the DB, in one transaction.
      *
      * @param idFieldName The id used to look for inside the DB.
-     * @param list        List of ids to be deleted.
+     * @param list        List of ids to be deleted, either numbers or Strings.
      * @param dataClass   Class type of the items to be deleted.
      */
     @NonNull
-    Single<Boolean> evictCollection(String idFieldName, List<Long> list, Class dataClass);
+    Single<Boolean> evictCollection(String idFieldName, List<?> list, Class dataClass);
 
     /**
      * Evict element by id of the DB.
@@ -0,0 +1,91 @@
+package com.zeyad.usecases.db;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids for new objects, per class and id column.
+ * <p>
+ * Each sequence is seeded once from the current max id of the table, then allocated atomically in
+ * memory, so inserting N objects costs one max() scan instead of N, and concurrent inserts can not
+ * be given the same id. Writes assigning their own ids advance the sequences past them, and
+ * deleting all the objects of a class drops its sequences, to be seeded again.
+ */
+final class IdSequence {
+    private final ConcurrentMap<String, AtomicLong> mSequences;
+
+    IdSequence() {
+        mSequences = new ConcurrentHashMap<>();
+    }
+
+    private static String key(Class clazz, String column) {
+        return clazz.getName() + '#' + column;
+    }
+
+    /**
+     * @param seed provides the current max id, only called the first time the sequence is used.
+     * @return an id greater than any id handed out or advanced to so far.
+     */
+    long next(@NonNull Class clazz, @NonNull String column, @NonNull Seed seed) {
+        String key = key(clazz, column);
+        AtomicLong sequence = mSequences.get(key);
+        if (sequence == null) {
+            AtomicLong seeded = new AtomicLong(seed.currentMax());
+            sequence = mSequences.putIfAbsent(key, seeded);
+            if (sequence == null) {
+                sequence = seeded;
+            }
+        }
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Moves a seeded sequence past an id that was assigned elsewhere, so it is not handed out again.
+     */
+    void advanceTo(@NonNull Class clazz, @NonNull String column, long id) {
+        AtomicLong sequence = mSequences.get(key(clazz, column));
+        if (sequence != null) {
+            long current;
+            do {
+                current = sequence.get();
+            } while (current < id && !sequence.compareAndSet(current, id));
+        }
+    }
+
+    /**
+     * Moves every seeded sequence of the class past the current max of its column, for writes whose
+     * ids are not known one by one.
+     */
+    void advanceAll(@NonNull Class clazz, @NonNull ColumnMax columnMax) {
+        String prefix = key(clazz, "");
+        for (String key : mSequences.keySet()) {
+            if (key.startsWith(prefix)) {
+                String column = key.substring(prefix.length());
+                advanceTo(clazz, column, columnMax.currentMax(column));
+            }
+        }
+    }
+
+    /**
+     * Drops the sequences of the class, so they are seeded again from the table on next use.
+     */
+    void reset(@NonNull Class clazz) {
+        String prefix = key(clazz, "");
+        for (String key : mSequences.keySet()) {
+            if (key.startsWith(prefix)) {
+                mSequences.remove(key);
+            }
+        }
+    }
+
+    interface Seed {
+        long currentMax();
+    }
+
+    interface ColumnMax {
+        long currentMax(@NonNull String column);
+    }
+}
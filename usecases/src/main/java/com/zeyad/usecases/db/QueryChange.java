@@ -0,0 +1,82 @@
+package com.zeyad.usecases.db;
+
+import android.support.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fine-grained change of the results of an observed query.
+ * <p>
+ * Deletion indices refer to the results before the change, insertion and modification indices to
+ * the results after it. Only the inserted and modified rows are copied out of the DB; the first
+ * change of an observation inserts all the rows matching at subscription time.
+ */
+public final class QueryChange<M> {
+    private static final int[] NONE = new int[0];
+    private final int[] deletions, insertions, modifications;
+    private final List<M> inserted, modified;
+
+    QueryChange(@NonNull int[] deletions, @NonNull int[] insertions, @NonNull List<M> inserted,
+                @NonNull int[] modifications, @NonNull List<M> modified) {
+        this.deletions = deletions;
+        this.insertions = insertions;
+        this.inserted = inserted;
+        this.modifications = modifications;
+        this.modified = modified;
+    }
+
+    @NonNull
+    static <M> QueryChange<M> initial(@NonNull List<M> rows) {
+        int size = rows.size();
+        int[] insertions = new int[size];
+        for (int i = 0; i < size; i++) {
+            insertions[i] = i;
+        }
+        return new QueryChange<>(NONE, insertions, rows, NONE, Collections.emptyList());
+    }
+
+    /**
+     * @return indices, in the previous results, of the removed rows.
+     */
+    @NonNull
+    public int[] getDeletions() {
+        return deletions;
+    }
+
+    /**
+     * @return indices, in the new results, of the added rows.
+     */
+    @NonNull
+    public int[] getInsertions() {
+        return insertions;
+    }
+
+    /**
+     * @return the added rows, in the order of {@link #getInsertions()}.
+     */
+    @NonNull
+    public List<M> getInserted() {
+        return inserted;
+    }
+
+    /**
+     * @return indices, in the new results, of the rows whose fields changed.
+     */
+    @NonNull
+    public int[] getModifications() {
+        return modifications;
+    }
+
+    /**
+     * @return the changed rows, in the order of {@link #getModifications()}.
+     */
+    @NonNull
+    public List<M> getModified() {
+        return modified;
+    }
+
+    public boolean isEmpty() {
+        return deletions.length == 0 && insertions.length == 0 && modifications.length == 0;
+    }
+}
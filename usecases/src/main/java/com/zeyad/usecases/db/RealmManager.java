@@ -2,34 +2,53 @@ package com.zeyad.usecases.db;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.util.Log;
+
+import com.zeyad.usecases.metrics.DataServiceMetrics;
+import com.zeyad.usecases.utils.Trace;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import io.reactivex.BackpressureStrategy;
 import io.reactivex.Flowable;
-import io.reactivex.Observable;
 import io.reactivex.Single;
 import io.reactivex.disposables.Disposables;
+import io.realm.OrderedCollectionChangeSet;
+import io.realm.OrderedRealmCollectionChangeListener;
 import io.realm.Realm;
-import io.realm.RealmChangeListener;
-import io.realm.RealmConfiguration;
+import io.realm.RealmFieldType;
 import io.realm.RealmModel;
 import io.realm.RealmObject;
+import io.realm.RealmQuery;
 import io.realm.RealmResults;
+import io.realm.Sort;
+
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.DISK;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Timer.REALM_TRANSACTION;
 
 /**
  * {@link DataBaseManager} implementation.
  */
 public class RealmManager implements DataBaseManager {
 
-    private static final String NO_ID = "Could not find id!";
+    private static final String NO_ID = "Could not find id!", INVALID_PAGE = "Invalid page bounds!";
+    private static final IdSequence ID_SEQUENCE = new IdSequence();
+    private static final RealmPool REALM_POOL = new RealmPool(Realm::getDefaultInstance);
+    private final RealmPool mRealmPool;
 
     public RealmManager() {
+        this(REALM_POOL);
+    }
+
+    RealmManager(RealmPool realmPool) {
+        mRealmPool = realmPool;
     }
 
     /**
@@ -45,27 +64,23 @@ public class RealmManager implements DataBaseManager {
     @Override
     public <M> Flowable<M> getById(@NonNull final String idColumnName, final Object itemId,
                                    final Class itemIdType, Class dataClass) {
-        return Flowable.defer(() -> getRealm(Realm.getDefaultInstance()).flatMap(realm1 -> {
-            RealmModel result;
+        return observeQuery(realm -> {
+            RealmQuery query = realm.where(dataClass);
             if (itemIdType.equals(long.class) || itemIdType.equals(Long.class)) {
-                result = realm1.where(dataClass).equalTo(idColumnName, (long) itemId).findFirst();
+                return query.equalTo(idColumnName, (long) itemId);
             } else if (itemIdType.equals(int.class) || itemIdType.equals(Integer.class)) {
-                result = realm1.where(dataClass).equalTo(idColumnName, (int) itemId).findFirst();
+                return query.equalTo(idColumnName, (int) itemId);
             } else if (itemIdType.equals(short.class) || itemIdType.equals(Short.class)) {
-                result = realm1.where(dataClass).equalTo(idColumnName, (short) itemId).findFirst();
+                return query.equalTo(idColumnName, (short) itemId);
             } else if (itemIdType.equals(byte.class) || itemIdType.equals(Byte.class)) {
-                result = realm1.where(dataClass).equalTo(idColumnName, (byte) itemId).findFirst();
+                return query.equalTo(idColumnName, (byte) itemId);
             } else if (itemIdType.equals(String.class)) {
-                result = realm1.where(dataClass).equalTo(idColumnName, String.valueOf(itemId)).findFirst();
-            } else {
-                return Flowable.error(new IllegalArgumentException("Unsupported ID type!"));
-            }
-            if (result == null) {
-                return Flowable.error(new IllegalAccessException(String
-                        .format("%s with ID: %s was not found!", dataClass.getSimpleName(), itemId)));
+                return query.equalTo(idColumnName, String.valueOf(itemId));
             }
-            return Flowable.just((M) realm1.copyFromRealm(result));
-        }));
+            throw new IllegalArgumentException("Unsupported ID type!");
+        }).flatMap(results -> results.isEmpty() ? Flowable.error(new IllegalAccessException(String
+                .format("%s with ID: %s was not found!", dataClass.getSimpleName(), itemId))) :
+                Flowable.just((M) results.get(0)));
     }
 
     /**
@@ -76,15 +91,9 @@ public class RealmManager implements DataBaseManager {
     @NonNull
     @Override
     public <M> Flowable<List<M>> getAll(Class clazz) {
-        return Flowable.defer(() -> {
-            Realm realm = Realm.getDefaultInstance();
-            return getRealm(realm)
-                    .map(realm1 -> realm1.where(clazz).findAll())
-                    .filter(RealmResults::isLoaded)
-                    .<List<M>>map(realm::copyFromRealm)
-                    .flatMap(ms -> ms.isEmpty() ? Flowable.error(new IllegalAccessException(String
-                            .format("%s were not found!", clazz.getSimpleName()))) : Flowable.just(ms));
-        });
+        return observeQuery(realm -> realm.where(clazz))
+                .flatMap(ms -> ms.isEmpty() ? Flowable.error(new IllegalAccessException(String
+                        .format("%s were not found!", clazz.getSimpleName()))) : Flowable.just((List<M>) ms));
     }
 
     /**
@@ -97,11 +106,94 @@ public class RealmManager implements DataBaseManager {
     @NonNull
     @Override
     public <M extends RealmModel> Flowable<List<M>> getQuery(@NonNull RealmQueryProvider<M> queryFactory) {
-        return Flowable.defer(() -> {
-            Realm realm = Realm.getDefaultInstance();
-            return getRealm(realm).map(realm1 -> queryFactory.create(realm).findAll())
-                    .filter(RealmResults::isLoaded)
-                    .map(realm::copyFromRealm);
+        return observeQuery(queryFactory);
+    }
+
+    /**
+     * Gets a {@link Flowable} which will emit the insertions, deletions and modifications of the
+     * results of the query, starting with all the current results as insertions. Only the results
+     * of this query are listened to, so writes to other classes do not trigger any work, and only
+     * inserted and modified rows are copied out of the DB.
+     *
+     * @param queryFactory The query used to look for inside the DB.
+     */
+    @NonNull
+    @Override
+    public <M extends RealmModel> Flowable<QueryChange<M>> getQueryChanges(@NonNull RealmQueryProvider<M> queryFactory) {
+        return Flowable.create(emitter -> {
+            Realm realm = mRealmPool.acquire();
+            RealmResults<M> results;
+            try {
+                results = queryFactory.create(realm).findAll();
+            } catch (RuntimeException e) {
+                mRealmPool.release(realm);
+                throw e;
+            }
+            OrderedRealmCollectionChangeListener<RealmResults<M>> listener = (changed, changeSet) -> {
+                if (changeSet != null) {
+                    int[] insertions = changeSet.getInsertions(), modifications = changeSet.getChanges();
+                    emitter.onNext(new QueryChange<>(changeSet.getDeletions(), insertions,
+                            copyRows(realm, changed, insertions), modifications,
+                            copyRows(realm, changed, modifications)));
+                }
+            };
+            emitter.setDisposable(Disposables.fromRunnable(() -> {
+                results.removeChangeListener(listener);
+                mRealmPool.release(realm);
+            }));
+            results.addChangeListener(listener);
+            emitter.onNext(QueryChange.initial(realm.copyFromRealm(results)));
+        }, BackpressureStrategy.BUFFER);
+    }
+
+    /**
+     * Gets a {@link Flowable} which will emit one page of the items, and emit it again whenever
+     * the items change. Only the rows of the page are copied out of the DB.
+     *
+     * @param clazz     Class type of the items to get.
+     * @param offset    index of the first item of the page.
+     * @param limit     maximum number of items in the page.
+     * @param sortField field to sort the items by, null to keep the DB order.
+     * @param sortOrder order to sort the items in.
+     */
+    @NonNull
+    @Override
+    public <M> Flowable<List<M>> getPage(Class clazz, int offset, int limit, @Nullable String sortField,
+                                         @NonNull Sort sortOrder) {
+        if (offset < 0 || limit <= 0) {
+            return Flowable.error(new IllegalArgumentException(INVALID_PAGE));
+        }
+        return this.<RealmModel>observeQuery(realm -> realm.where(clazz), sortField, sortOrder, offset, limit)
+                .map(page -> (List<M>) page);
+    }
+
+    /**
+     * Gets a {@link Flowable} which will emit consecutive pages of the items, one page per
+     * requested item, and complete after the last one. Only the rows of the emitted pages are
+     * copied out of the DB, so the items can be paged through in constant memory.
+     *
+     * @param clazz     Class type of the items to get.
+     * @param pageSize  maximum number of items in a page.
+     * @param sortField field to sort the items by, null to keep the DB order.
+     * @param sortOrder order to sort the items in.
+     */
+    @NonNull
+    @Override
+    public <M> Flowable<List<M>> getPages(Class clazz, int pageSize, @Nullable String sortField,
+                                          @NonNull Sort sortOrder) {
+        if (pageSize <= 0) {
+            return Flowable.error(new IllegalArgumentException(INVALID_PAGE));
+        }
+        return Flowable.generate(() -> 0, (offset, emitter) -> {
+            List<M> page = mRealmPool.use(realm -> (List<M>) copySlice(realm,
+                    findAll(realm.where(clazz), sortField, sortOrder), offset, pageSize));
+            if (!page.isEmpty()) {
+                emitter.onNext(page);
+            }
+            if (page.size() < pageSize) {
+                emitter.onComplete();
+            }
+            return offset + page.size();
         });
     }
 
@@ -119,10 +211,12 @@ public class RealmManager implements DataBaseManager {
             if (realmModel == null) {
                 throw new IllegalArgumentException("RealmObject is null");
             } else {
-                return getRealm(Realm.getDefaultInstance()).map(realm1 ->
-                        RealmObject.isValid(executeWriteOperationInRealm(realm1,
-                                () -> realm1.copyToRealmOrUpdate(realmModel))))
-                        .blockingFirst();
+                return mRealmPool.use(realm -> RealmObject.isValid(executeWriteOperationInRealm(realm, dataClass,
+                        () -> {
+                            M managed = realm.copyToRealmOrUpdate(realmModel);
+                            advanceIdSequences(realm, dataClass);
+                            return managed;
+                        })));
             }
         });
     }
@@ -143,10 +237,8 @@ public class RealmManager implements DataBaseManager {
                 throw new IllegalArgumentException("JSONObject is invalid");
             } else {
                 updateJsonObjectWithIdValue(jsonObject, idColumnName, itemIdType, dataClass);
-                return getRealm(Realm.getDefaultInstance()).map(realm1 ->
-                        RealmObject.isValid(executeWriteOperationInRealm(realm1,
-                                () -> realm1.createOrUpdateObjectFromJson(dataClass, jsonObject))))
-                        .blockingFirst();
+                return mRealmPool.use(realm -> RealmObject.isValid(executeWriteOperationInRealm(realm, dataClass,
+                        () -> realm.createOrUpdateObjectFromJson(dataClass, jsonObject))));
             }
         });
     }
@@ -164,21 +256,23 @@ public class RealmManager implements DataBaseManager {
                                   @NonNull Class dataClass) {
         return Single.fromCallable(() -> {
             updateJsonArrayWithIdValue(jsonArray, idColumnName, itemIdType, dataClass);
-            return getRealm(Realm.getDefaultInstance()).map(realm1 -> {
-                executeWriteOperationInRealm(realm1, () ->
-                        realm1.createOrUpdateAllFromJson(dataClass, jsonArray));
+            return mRealmPool.use(realm -> {
+                executeWriteOperationInRealm(realm, dataClass,
+                        () -> realm.createOrUpdateAllFromJson(dataClass, jsonArray));
                 return true;
-            }).blockingFirst();
+            });
         });
     }
 
     @NonNull
     @Override
     public <T extends RealmModel> Single<Boolean> putAll(List<T> realmObjects, Class dataClass) {
-        return Single.fromCallable(() -> getRealm(Realm.getDefaultInstance())
-                .map(realm1 -> executeWriteOperationInRealm(realm1,
-                        () -> realm1.copyToRealmOrUpdate(realmObjects)).size() == realmObjects.size())
-                .blockingFirst());
+        return Single.fromCallable(() -> mRealmPool.use(realm -> executeWriteOperationInRealm(realm, dataClass,
+                () -> {
+                    List<T> managed = realm.copyToRealmOrUpdate(realmObjects);
+                    advanceIdSequences(realm, dataClass);
+                    return managed;
+                }).size() == realmObjects.size()));
     }
 
     /**
@@ -189,11 +283,11 @@ public class RealmManager implements DataBaseManager {
     @NonNull
     @Override
     public Single<Boolean> evictAll(@NonNull Class clazz) {
-        return Single.fromCallable(() -> getRealm(Realm.getDefaultInstance())
-                .map(realm1 -> {
-                    executeWriteOperationInRealm(realm1, () -> realm1.delete(clazz));
-                    return true;
-                }).blockingFirst());
+        return Single.fromCallable(() -> mRealmPool.use(realm -> {
+            executeWriteOperationInRealm(realm, clazz, () -> realm.delete(clazz));
+            ID_SEQUENCE.reset(clazz);
+            return true;
+        }));
     }
 
     /**
@@ -205,23 +299,19 @@ public class RealmManager implements DataBaseManager {
      */
     @Override
     public boolean evictById(@NonNull Class clazz, @NonNull String idFieldName, final long idFieldValue) {
-        Realm realm = Realm.getDefaultInstance();
-        return getRealm(Realm.getDefaultInstance()).map(realm1 ->
-                realm1.where(clazz).equalTo(idFieldName, idFieldValue).findFirst())
-                .map(realmModel -> {
-                    if (realmModel == null) {
-                        return false;
-                    } else {
-                        executeWriteOperationInRealm(realm, new Execute() {
-                            @Override
-                            public void run() {
-                                RealmObject.deleteFromRealm(realmModel);
-                            }
-                        });
-                        return !RealmObject.isValid(realmModel);
-                    }
-                })
-                .blockingFirst();
+        return mRealmPool.use(realm -> {
+            RealmModel realmModel = realm.where(clazz).equalTo(idFieldName, idFieldValue).findFirst();
+            if (realmModel == null) {
+                return false;
+            }
+            executeWriteOperationInRealm(realm, clazz, new Execute() {
+                @Override
+                public void run() {
+                    RealmObject.deleteFromRealm(realmModel);
+                }
+            });
+            return !RealmObject.isValid(realmModel);
+        });
     }
 
     /**
@@ -233,31 +323,102 @@ public class RealmManager implements DataBaseManager {
      */
     @NonNull
     @Override
-    public Single<Boolean> evictCollection(@NonNull String idFieldName, @NonNull List<Long> list,
+    public Single<Boolean> evictCollection(@NonNull String idFieldName, @NonNull List<?> list,
                                            @NonNull Class dataClass) {
-        return Single.fromCallable(() -> list.isEmpty() ? false : Observable.fromIterable(list)
-                .map(aLong -> evictById(dataClass, idFieldName, aLong))
-                .reduce((aBoolean, aBoolean2) -> aBoolean && aBoolean2)
-                .blockingGet());
+        return Single.fromCallable(() -> {
+            if (list.isEmpty()) {
+                return false;
+            }
+            return mRealmPool.use(realm -> executeWriteOperationInRealm(realm, dataClass, () -> {
+                Object[] ids = idsOf(realm, dataClass, idFieldName, list);
+                RealmResults results = whereIdIn(realm.where(dataClass), idFieldName, ids).findAll();
+                boolean allFound = results.size() == new HashSet<>(Arrays.asList(ids)).size();
+                results.deleteAllFromRealm();
+                return allFound;
+            }));
+        });
     }
 
-    private void executeWriteOperationInRealm(@NonNull Realm realm, @NonNull Execute execute) {
-        if (realm.isInTransaction()) {
-            realm.cancelTransaction();
+    /**
+     * Restricts a query of the class to the given ids in one {@code in} clause. Ids are matched as
+     * longs or Strings as per the type of the id field in the schema, whatever their own types.
+     *
+     * @param realm       the realm to query.
+     * @param dataClass   class of the objects to query.
+     * @param idFieldName name of the id field.
+     * @param ids         ids to match, none matching no object.
+     */
+    @NonNull
+    public static <E extends RealmModel> RealmQuery<E> whereIdIn(@NonNull Realm realm, @NonNull Class<E> dataClass,
+                                                                @NonNull String idFieldName,
+                                                                @NonNull List<?> ids) {
+        return whereIdIn(realm.where(dataClass), idFieldName, idsOf(realm, dataClass, idFieldName, ids));
+    }
+
+    private static <E extends RealmModel> RealmQuery<E> whereIdIn(RealmQuery<E> realmQuery, String idFieldName,
+                                                                 Object[] ids) {
+        if (ids instanceof Long[]) {
+            Long[] longIds = (Long[]) ids;
+            // Realm refuses an empty in clause, so no ids get a condition no object meets instead
+            return longIds.length == 0 ? realmQuery.equalTo(idFieldName, 0L).notEqualTo(idFieldName, 0L) :
+                    realmQuery.in(idFieldName, longIds);
         }
-        realm.beginTransaction();
-        execute.run();
-        realm.commitTransaction();
+        String[] stringIds = (String[]) ids;
+        return stringIds.length == 0 ? realmQuery.equalTo(idFieldName, "").notEqualTo(idFieldName, "") :
+                realmQuery.in(idFieldName, stringIds);
+    }
+
+    /**
+     * @return the ids as a Long[] if the id field holds integers, as a String[] otherwise.
+     */
+    private static Object[] idsOf(Realm realm, Class dataClass, String idFieldName, List<?> ids) {
+        int size = ids.size();
+        if (realm.getSchema().get(dataClass.getSimpleName()).getFieldType(idFieldName)
+                == RealmFieldType.INTEGER) {
+            Long[] longIds = new Long[size];
+            for (int i = 0; i < size; i++) {
+                Object id = ids.get(i);
+                longIds[i] = id instanceof Number ? ((Number) id).longValue() : Long.valueOf(String.valueOf(id));
+            }
+            return longIds;
+        }
+        String[] stringIds = new String[size];
+        for (int i = 0; i < size; i++) {
+            stringIds[i] = String.valueOf(ids.get(i));
+        }
+        return stringIds;
+    }
+
+    private void executeWriteOperationInRealm(@NonNull Realm realm, @NonNull Class dataClass,
+                                              @NonNull Execute execute) {
+        executeWriteOperationInRealm(realm, dataClass, () -> {
+            execute.run();
+            return true;
+        });
     }
 
-    private <T> T executeWriteOperationInRealm(@NonNull Realm realm, @NonNull ExecuteAndReturn<T> executor) {
+    /**
+     * Runs the operation in a transaction, cancelling it if the operation fails so the pooled
+     * instance is not handed out or closed mid transaction. The time spent in the transaction is
+     * recorded per class in the {@link DataServiceMetrics}.
+     */
+    private <T> T executeWriteOperationInRealm(@NonNull Realm realm, @NonNull Class dataClass,
+                                               @NonNull ExecuteAndReturn<T> executor) {
         T toReturnValue;
         if (realm.isInTransaction()) {
             realm.cancelTransaction();
         }
+        long start = System.nanoTime();
         realm.beginTransaction();
-        toReturnValue = executor.run();
+        try {
+            toReturnValue = executor.run();
+        } catch (RuntimeException e) {
+            realm.cancelTransaction();
+            throw e;
+        }
         realm.commitTransaction();
+        DataServiceMetrics.getInstance().recordNanos(DISK, dataClass, REALM_TRANSACTION,
+                System.nanoTime() - start);
         return toReturnValue;
     }
 
@@ -284,35 +445,122 @@ public class RealmManager implements DataBaseManager {
         }
         if (itemIdType.equals(String.class))
             return jsonObject;
-        else if (jsonObject.optInt(idColumnName) == 0) {
+        else if (jsonObject.optLong(idColumnName) == 0) {
             jsonObject.put(idColumnName, getNextId(dataClass, idColumnName));
+        } else {
+            ID_SEQUENCE.advanceTo(dataClass, idColumnName, jsonObject.optLong(idColumnName));
         }
         return jsonObject;
     }
 
-    private int getNextId(Class clazz, String column) {
-        Realm realm = Realm.getDefaultInstance();
-        try {
+    private long getNextId(Class clazz, String column) {
+        return ID_SEQUENCE.next(clazz, column, () -> mRealmPool.use(realm -> {
             Number currentMax = realm.where(clazz).max(column);
-            return currentMax != null ? currentMax.intValue() + 1 : 1;
-        } finally {
-            realm.close();
-        }
+            return currentMax != null ? currentMax.longValue() : 0L;
+        }));
+    }
+
+    /**
+     * Models carry the ids they were given, so once written the seeded sequences of their class are
+     * moved past the max id, read within the transaction.
+     */
+    private void advanceIdSequences(@NonNull Realm realm, @NonNull Class clazz) {
+        ID_SEQUENCE.advanceAll(clazz, column -> {
+            Number currentMax = realm.where(clazz).max(column);
+            return currentMax != null ? currentMax.longValue() : 0L;
+        });
     }
 
-    private Flowable<Realm> getRealm(Realm realm) {
+    private <E extends RealmModel> Flowable<List<E>> observeQuery(@NonNull RealmQueryProvider<E> queryProvider) {
+        return observeQuery(queryProvider, null, Sort.ASCENDING, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Emits a copy of the given slice of the query results now and every time a change of the
+     * results touches the slice, through one listener on the results. Holds the thread's pooled
+     * instance until cancelled.
+     */
+    private <E extends RealmModel> Flowable<List<E>> observeQuery(@NonNull RealmQueryProvider<E> queryProvider,
+                                                                  @Nullable String sortField,
+                                                                  @NonNull Sort sortOrder, int offset,
+                                                                  int limit) {
         return Flowable.create(emitter -> {
-            RealmConfiguration realmConfiguration = realm.getConfiguration();
-            Realm observableRealm = Realm.getInstance(realmConfiguration);
-            final RealmChangeListener<Realm> listener = emitter::onNext;
+            Realm realm = mRealmPool.acquire();
+            RealmResults<E> results;
+            try {
+                results = findAll(queryProvider.create(realm), sortField, sortOrder);
+            } catch (RuntimeException e) {
+                mRealmPool.release(realm);
+                throw e;
+            }
+            OrderedRealmCollectionChangeListener<RealmResults<E>> listener = (changed, changeSet) -> {
+                if (changed.isLoaded() && (changeSet == null || touchesSlice(changeSet, offset, limit))) {
+                    emitter.onNext(copySlice(realm, changed, offset, limit));
+                }
+            };
             emitter.setDisposable(Disposables.fromRunnable(() -> {
-                observableRealm.removeChangeListener(listener);
-                observableRealm.close();
-                Log.d(RealmManager.class.getSimpleName(), "Realm instance closed!");
+                results.removeChangeListener(listener);
+                mRealmPool.release(realm);
+                Trace.d("RealmManager", "Realm instance released!");
             }));
-            observableRealm.addChangeListener(listener);
-            emitter.onNext(observableRealm);
-        }, BackpressureStrategy.BUFFER);
+            results.addChangeListener(listener);
+            if (results.isLoaded()) {
+                emitter.onNext(copySlice(realm, results, offset, limit));
+            }
+        }, BackpressureStrategy.LATEST);
+    }
+
+    /**
+     * @return whether the change moved rows into or out of [offset, offset + limit), or modified
+     * one in it.
+     */
+    private boolean touchesSlice(@NonNull OrderedCollectionChangeSet changeSet, int offset, int limit) {
+        long end = (long) offset + limit;
+        for (int index : changeSet.getDeletions()) {
+            if (index < end) {
+                return true;
+            }
+        }
+        for (int index : changeSet.getInsertions()) {
+            if (index < end) {
+                return true;
+            }
+        }
+        for (int index : changeSet.getChanges()) {
+            if (index >= offset && index < end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <E extends RealmModel> List<E> copyRows(@NonNull Realm realm, @NonNull RealmResults<E> results,
+                                                    @NonNull int[] indices) {
+        if (indices.length == 0) {
+            return Collections.emptyList();
+        }
+        List<E> rows = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            rows.add(results.get(index));
+        }
+        return realm.copyFromRealm(rows);
+    }
+
+    private <E extends RealmModel> RealmResults<E> findAll(@NonNull RealmQuery<E> query,
+                                                           @Nullable String sortField,
+                                                           @NonNull Sort sortOrder) {
+        return sortField == null ? query.findAll() : query.findAllSorted(sortField, sortOrder);
+    }
+
+    /**
+     * Detaches only the rows in [offset, offset + limit) of the results.
+     */
+    private <E extends RealmModel> List<E> copySlice(@NonNull Realm realm, @NonNull RealmResults<E> results,
+                                                     int offset, int limit) {
+        int size = results.size();
+        int from = Math.min(offset, size);
+        int to = (int) Math.min((long) from + limit, size);
+        return realm.copyFromRealm(from == 0 && to == size ? results : results.subList(from, to));
     }
 
     private interface Execute {
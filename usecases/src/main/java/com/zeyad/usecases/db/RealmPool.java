@@ -0,0 +1,90 @@
+package com.zeyad.usecases.db;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.realm.Realm;
+
+/**
+ * Reference counted, per thread {@link Realm} instances.
+ * <p>
+ * The first {@link #acquire()} on a thread opens its instance, nested and concurrent users on the
+ * same thread share it, and the last {@link #release(Realm)} closes it. Realms are thread
+ * confined, so an instance has to be released on the thread that acquired it.
+ */
+final class RealmPool {
+    private final Opener mOpener;
+    private final ThreadLocal<Lease> mLeases;
+    private final AtomicInteger mOpenCount;
+
+    RealmPool(@NonNull Opener opener) {
+        mOpener = opener;
+        mLeases = new ThreadLocal<>();
+        mOpenCount = new AtomicInteger();
+    }
+
+    /**
+     * @return the calling thread's instance, to be handed back with {@link #release(Realm)}.
+     */
+    @NonNull
+    Realm acquire() {
+        Lease lease = mLeases.get();
+        if (lease == null) {
+            lease = new Lease(mOpener.open());
+            mLeases.set(lease);
+            mOpenCount.incrementAndGet();
+        }
+        lease.references++;
+        return lease.realm;
+    }
+
+    void release(@NonNull Realm realm) {
+        Lease lease = mLeases.get();
+        if (lease == null || lease.realm != realm) {
+            throw new IllegalStateException("Realm was not acquired on this thread!");
+        }
+        if (--lease.references == 0) {
+            mLeases.remove();
+            mOpenCount.decrementAndGet();
+            realm.close();
+        }
+    }
+
+    /**
+     * Runs the action with the calling thread's instance, releasing it even if the action fails.
+     */
+    <T> T use(@NonNull Action<T> action) {
+        Realm realm = acquire();
+        try {
+            return action.run(realm);
+        } finally {
+            release(realm);
+        }
+    }
+
+    /**
+     * @return number of instances currently open, across all threads.
+     */
+    int getOpenCount() {
+        return mOpenCount.get();
+    }
+
+    interface Opener {
+        @NonNull
+        Realm open();
+    }
+
+    interface Action<T> {
+        T run(@NonNull Realm realm);
+    }
+
+    private static final class Lease {
+        final Realm realm;
+        int references;
+
+        Lease(Realm realm) {
+            this.realm = realm;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.zeyad.usecases.db;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.zeyad.usecases.utils.Trace;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.realm.RealmModel;
+
+/**
+ * Write-behind stage in front of a {@link DataBaseManager}.
+ * <p>
+ * Puts of the same data class arriving within a short window are coalesced and committed in one
+ * transaction, instead of opening a realm and committing once per put. A batch is written when its
+ * window elapses or it reaches the size threshold, whichever comes first, or on {@link #flush()}.
+ * Json and mapped objects of a class share one batch, so they commit in the order they were put.
+ * A batch that fails to commit is retried item by item, so one bad item does not lose the rest.
+ * Json puts without an id column are passed through, to fail the way a direct put does.
+ */
+public class WriteBehindBuffer {
+    private static final String TAG = WriteBehindBuffer.class.getSimpleName();
+    private final DataBaseManager mDataBaseManager;
+    private final Scheduler mScheduler;
+    private final long mWindowMillis;
+    private final int mMaxBatchSize;
+    private final Map<Class, Batch> mPending;
+    /**
+     * Held while a batch is taken and written, so batches of a class commit in the order they filled.
+     */
+    private final Object mWriteLock;
+    /**
+     * Set when an item could not be written in the background, reported and cleared by the next
+     * {@link #flush()}.
+     */
+    private final AtomicBoolean mFailed;
+
+    /**
+     * @param scheduler    where batches are written.
+     * @param windowMillis how long a batch collects puts before it is written.
+     * @param maxBatchSize number of items that triggers writing a batch before its window elapses.
+     */
+    public WriteBehindBuffer(DataBaseManager dataBaseManager, Scheduler scheduler, long windowMillis,
+                             int maxBatchSize) {
+        mDataBaseManager = dataBaseManager;
+        mScheduler = scheduler;
+        mWindowMillis = windowMillis;
+        mMaxBatchSize = maxBatchSize;
+        mPending = new HashMap<>();
+        mWriteLock = new Object();
+        mFailed = new AtomicBoolean();
+    }
+
+    public void put(@NonNull JSONObject jsonObject, String idColumnName, Class itemIdType,
+                    @NonNull Class dataClass) {
+        if (isBatchable(idColumnName, itemIdType)) {
+            enqueue(dataClass, new Entry(jsonObject, idColumnName, itemIdType));
+        } else {
+            mDataBaseManager.put(jsonObject, idColumnName, itemIdType, dataClass)
+                    .subscribeOn(mScheduler)
+                    .subscribe(persisted -> Trace.d(TAG, "{} persisted!", dataClass),
+                            throwable -> Trace.e(TAG, "Could not persist", throwable));
+        }
+    }
+
+    public void putAll(@NonNull JSONArray jsonArray, String idColumnName, Class itemIdType,
+                       @NonNull Class dataClass) {
+        int length = jsonArray.length();
+        if (length > 0 && isBatchable(idColumnName, itemIdType)) {
+            for (int i = 0; i < length; i++) {
+                enqueue(dataClass, new Entry(jsonArray.opt(i), idColumnName, itemIdType));
+            }
+        } else {
+            mDataBaseManager.putAll(jsonArray, idColumnName, itemIdType, dataClass)
+                    .subscribeOn(mScheduler)
+                    .subscribe(persisted -> Trace.d(TAG, "{} persisted!", dataClass),
+                            throwable -> Trace.e(TAG, "Could not persist", throwable));
+        }
+    }
+
+    /**
+     * Batches an already mapped object, to be written as it is without going through JSON.
+     */
+    public void put(@NonNull Object realmObject, @NonNull Class dataClass) {
+        enqueue(dataClass, new Entry(realmObject, null, null));
+    }
+
+    public void putAll(@NonNull List realmObjects, @NonNull Class dataClass) {
+        int size = realmObjects.size();
+        for (int i = 0; i < size; i++) {
+            enqueue(dataClass, new Entry(realmObjects.get(i), null, null));
+        }
+    }
+
+    /**
+     * Writes all pending batches now.
+     *
+     * @return a {@link Single} emitting whether every batch was written successfully, including the
+     * ones written in the background since the last flush.
+     */
+    @NonNull
+    public Single<Boolean> flush() {
+        return Single.fromCallable(() -> {
+            List<Class> dataClasses;
+            synchronized (mPending) {
+                dataClasses = new ArrayList<>(mPending.keySet());
+            }
+            int size = dataClasses.size();
+            for (int i = 0; i < size; i++) {
+                drain(dataClasses.get(i));
+            }
+            return !mFailed.getAndSet(false);
+        });
+    }
+
+    private boolean isBatchable(String idColumnName, Class itemIdType) {
+        return idColumnName != null && !idColumnName.isEmpty() && itemIdType != null;
+    }
+
+    private void enqueue(Class dataClass, Entry entry) {
+        boolean opened, full;
+        synchronized (mPending) {
+            Batch batch = mPending.get(dataClass);
+            opened = batch == null;
+            if (opened) {
+                batch = new Batch();
+                mPending.put(dataClass, batch);
+            }
+            batch.entries.add(entry);
+            full = !batch.drainScheduled && batch.entries.size() >= mMaxBatchSize;
+            if (full) {
+                batch.drainScheduled = true;
+            }
+        }
+        if (full) {
+            mScheduler.scheduleDirect(() -> drain(dataClass));
+        } else if (opened) {
+            mScheduler.scheduleDirect(() -> drain(dataClass), mWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain(Class dataClass) {
+        synchronized (mWriteLock) {
+            Batch batch;
+            synchronized (mPending) {
+                batch = mPending.remove(dataClass);
+            }
+            if (batch != null) {
+                write(dataClass, batch.entries);
+            }
+        }
+    }
+
+    /**
+     * Writes the entries in runs of the same kind, each run in one transaction, in the order they
+     * were put.
+     */
+    private void write(Class dataClass, List<Entry> entries) {
+        int size = entries.size();
+        int start = 0;
+        while (start < size) {
+            Entry first = entries.get(start);
+            int end = start + 1;
+            while (end < size && first.isSameKind(entries.get(end))) {
+                end++;
+            }
+            List<Entry> run = entries.subList(start, end);
+            start = end;
+            if (!writeRun(dataClass, first, run)) {
+                Trace.w(TAG, "Could not persist {} {} at once, retrying one by one", run.size(), dataClass);
+                for (int i = 0; i < run.size(); i++) {
+                    writeOne(dataClass, run.get(i));
+                }
+            }
+        }
+    }
+
+    private boolean writeRun(Class dataClass, Entry first, List<Entry> run) {
+        int size = run.size();
+        List<Object> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(run.get(i).item);
+        }
+        try {
+            boolean written = first.idColumnName == null ?
+                    mDataBaseManager.putAll((List) items, dataClass).blockingGet() :
+                    mDataBaseManager.putAll(new JSONArray(items), first.idColumnName, first.itemIdType,
+                            dataClass).blockingGet();
+            Trace.d(TAG, "{} {} persisted!", size, dataClass);
+            return written;
+        } catch (RuntimeException e) {
+            Trace.e(TAG, "Could not persist", e);
+            return false;
+        }
+    }
+
+    private void writeOne(Class dataClass, Entry entry) {
+        boolean written;
+        try {
+            written = entry.idColumnName == null ?
+                    mDataBaseManager.put((RealmModel) entry.item, dataClass).blockingGet() :
+                    mDataBaseManager.put((JSONObject) entry.item, entry.idColumnName, entry.itemIdType,
+                            dataClass).blockingGet();
+        } catch (RuntimeException e) {
+            Trace.e(TAG, "Could not persist", e);
+            written = false;
+        }
+        if (!written) {
+            mFailed.set(true);
+        }
+    }
+
+    private static final class Batch {
+        final List<Entry> entries = new ArrayList<>();
+        boolean drainScheduled;
+    }
+
+    private static final class Entry {
+        final Object item;
+        @Nullable
+        final String idColumnName;
+        @Nullable
+        final Class itemIdType;
+
+        Entry(Object item, @Nullable String idColumnName, @Nullable Class itemIdType) {
+            this.item = item;
+            this.idColumnName = idColumnName;
+            this.itemIdType = itemIdType;
+        }
+
+        boolean isSameKind(Entry entry) {
+            return (idColumnName == null ? entry.idColumnName == null : idColumnName.equals(entry.idColumnName))
+                    && itemIdType == entry.itemIdType;
+        }
+    }
+}
@@ -4,21 +4,72 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
 import com.zeyad.usecases.Config;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class DAOMapper {
     private final Gson gson;
+    private final Map<Class, TypeAdapter> adapters;
+    private final Map<Class, Mapper> mappers;
 
     public DAOMapper() {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * @param mappers hand written or generated mappers, by the domain class they map to.
+     */
+    public DAOMapper(@NonNull Map<Class, Mapper> mappers) {
         gson = Config.getGson();
+        adapters = new ConcurrentHashMap<>();
+        this.mappers = new ConcurrentHashMap<>(mappers);
     }
 
-    @NonNull
+    /**
+     * Maps every object to the domain class with the given mapper, instead of going through Gson.
+     */
+    public <M> void register(@NonNull Class<M> domainClass, @NonNull Mapper<? extends M> mapper) {
+        mappers.put(domainClass, mapper);
+    }
+
+    /**
+     * @return whether objects of the domain class are mapped by a registered {@link Mapper}.
+     */
+    public boolean hasMapper(@NonNull Class domainClass) {
+        return mappers.containsKey(domainClass);
+    }
+
+    /**
+     * Transform an {Entity} into a {Model}.
+     * <p>
+     * A registered {@link Mapper} is used first. Otherwise objects already of the domain class are
+     * returned as they are, not copied, so the caller and the result share the same instance; any
+     * other object is read by Gson, {@link JsonElement}s and maps directly as a tree without going
+     * through a JSON string.
+     *
+     * @param object Object to be transformed.
+     * @return {Model} if valid {Entity}, null if the object is null.
+     */
+    @Nullable
     public <M> M mapTo(@Nullable Object object, @NonNull Class domainClass) {
-        return (M) gson.fromJson(gson.toJson(object), domainClass);
+        if (object == null) {
+            return null;
+        }
+        Mapper mapper = mappers.get(domainClass);
+        if (mapper != null) {
+            return (M) mapper.map(object);
+        } else if (domainClass.isInstance(object)) {
+            return (M) object;
+        }
+        JsonElement tree = object instanceof JsonElement ? (JsonElement) object : gson.toJsonTree(object);
+        return (M) getAdapter(domainClass).fromJsonTree(tree);
     }
 
     /**
@@ -36,4 +87,22 @@ public final class DAOMapper {
         }
         return (M) objects;
     }
+
+    @NonNull
+    private TypeAdapter getAdapter(@NonNull Class domainClass) {
+        TypeAdapter adapter = adapters.get(domainClass);
+        if (adapter == null) {
+            adapter = gson.getAdapter(domainClass);
+            adapters.put(domainClass, adapter);
+        }
+        return adapter;
+    }
+
+    /**
+     * Maps any entity to a domain class, in place of Gson's reflective mapping.
+     */
+    public interface Mapper<M> {
+        @NonNull
+        M map(@NonNull Object source);
+    }
 }
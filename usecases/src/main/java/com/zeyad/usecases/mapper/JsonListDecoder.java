@@ -0,0 +1,79 @@
+package com.zeyad.usecases.mapper;
+
+import android.support.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.zeyad.usecases.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Flowable;
+import okhttp3.ResponseBody;
+
+/**
+ * Decodes a JSON array response straight into instances of a data class, element by element.
+ * <p>
+ * Elements are read with the data class' {@link TypeAdapter} from a {@link JsonReader} over the
+ * response's stream, so neither the whole body nor an intermediate tree of maps is kept in memory.
+ * Pages are only read as they are requested downstream, and the body is closed once the array
+ * ends, the decoding fails or the subscription is cancelled.
+ */
+public final class JsonListDecoder {
+    private final Gson gson;
+
+    public JsonListDecoder() {
+        gson = Config.getGson();
+    }
+
+    /**
+     * @param body     a response whose body is a JSON array.
+     * @param dataClass class to decode every element into.
+     * @param pageSize maximum number of elements per emitted list.
+     * @return a {@link Flowable} emitting the decoded elements in lists of up to pageSize, as they
+     * are parsed.
+     */
+    @NonNull
+    public <M> Flowable<List<M>> decodePages(@NonNull ResponseBody body, @NonNull Class dataClass,
+                                             int pageSize) {
+        if (pageSize <= 0) {
+            return Flowable.error(new IllegalArgumentException("Page size must be positive!"));
+        }
+        TypeAdapter<M> adapter = (TypeAdapter<M>) gson.getAdapter(dataClass);
+        return Flowable.generate(() -> {
+            JsonReader reader = gson.newJsonReader(body.charStream());
+            try {
+                reader.beginArray();
+            } catch (Exception e) {
+                body.close();
+                throw e;
+            }
+            return reader;
+        }, (reader, emitter) -> {
+            List<M> page = new ArrayList<>(Math.min(pageSize, 16));
+            while (page.size() < pageSize && reader.hasNext()) {
+                page.add(adapter.read(reader));
+            }
+            if (!page.isEmpty()) {
+                emitter.onNext(page);
+            }
+            if (!reader.hasNext()) {
+                reader.endArray();
+                emitter.onComplete();
+            }
+            return reader;
+        }, reader -> body.close());
+    }
+
+    /**
+     * @param body     a response whose body is a JSON array.
+     * @param dataClass class to decode every element into.
+     * @return a {@link Flowable} emitting every decoded element as it is parsed.
+     */
+    @NonNull
+    public <M> Flowable<M> decodeItems(@NonNull ResponseBody body, @NonNull Class dataClass) {
+        return this.<M>decodePages(body, dataClass, 1).concatMapIterable(page -> page, 1);
+    }
+}
@@ -0,0 +1,157 @@
+package com.zeyad.usecases.metrics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+
+/**
+ * Counters and latency histograms of the data pipeline, per store and data class.
+ * <p>
+ * Recording only reads a concurrent map and bumps atomics, so it is cheap enough for the hot
+ * paths, while {@link #snapshot()} and {@link #snapshots(long, TimeUnit)} give a consistent enough
+ * view to render or ship elsewhere. Events not tied to a class are recorded under
+ * {@code Object.class}.
+ */
+public final class DataServiceMetrics {
+    private static final DataServiceMetrics sInstance = new DataServiceMetrics();
+    private final Map<Store, ConcurrentMap<Class, ClassMetrics>> stores;
+
+    DataServiceMetrics() {
+        stores = new EnumMap<>(Store.class);
+        for (Store store : Store.values()) {
+            stores.put(store, new ConcurrentHashMap<>());
+        }
+    }
+
+    @NonNull
+    public static DataServiceMetrics getInstance() {
+        return sInstance;
+    }
+
+    public void increment(@NonNull Store store, @Nullable Class dataClass, @NonNull Counter counter) {
+        add(store, dataClass, counter, 1);
+    }
+
+    public void add(@NonNull Store store, @Nullable Class dataClass, @NonNull Counter counter, long delta) {
+        metricsOf(store, dataClass).counters.addAndGet(counter.ordinal(), delta);
+    }
+
+    public void recordNanos(@NonNull Store store, @Nullable Class dataClass, @NonNull Timer timer,
+                            long nanos) {
+        metricsOf(store, dataClass).timers[timer.ordinal()].record(nanos);
+    }
+
+    /**
+     * Times from subscription to the first item, or to completion if there is none.
+     */
+    @NonNull
+    public <T> FlowableTransformer<T, T> timed(@NonNull Store store, @Nullable Class dataClass,
+                                               @NonNull Timer timer) {
+        return upstream -> Flowable.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return upstream.doOnEach(notification -> {
+                if (!notification.isOnError() && recorded.compareAndSet(false, true)) {
+                    recordNanos(store, dataClass, timer, System.nanoTime() - start);
+                }
+            });
+        });
+    }
+
+    /**
+     * @return the current values of every metric recorded so far.
+     */
+    @NonNull
+    public MetricsSnapshot snapshot() {
+        Map<Store, Map<Class, MetricsSnapshot.ClassSnapshot>> snapshot = new EnumMap<>(Store.class);
+        for (Map.Entry<Store, ConcurrentMap<Class, ClassMetrics>> store : stores.entrySet()) {
+            Map<Class, MetricsSnapshot.ClassSnapshot> classes = new HashMap<>();
+            for (Map.Entry<Class, ClassMetrics> entry : store.getValue().entrySet()) {
+                classes.put(entry.getKey(), entry.getValue().snapshot());
+            }
+            snapshot.put(store.getKey(), classes);
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), snapshot);
+    }
+
+    /**
+     * @return a {@link Flowable} emitting a {@link #snapshot()} every period, dropping the ones a
+     * slow subscriber is not ready for.
+     */
+    @NonNull
+    public Flowable<MetricsSnapshot> snapshots(long period, @NonNull TimeUnit timeUnit) {
+        return Flowable.interval(0, period, timeUnit)
+                .onBackpressureDrop()
+                .map(tick -> snapshot());
+    }
+
+    /**
+     * Drops everything recorded so far.
+     */
+    public void reset() {
+        for (ConcurrentMap<Class, ClassMetrics> classes : stores.values()) {
+            classes.clear();
+        }
+    }
+
+    @NonNull
+    private ClassMetrics metricsOf(Store store, @Nullable Class dataClass) {
+        Class key = dataClass != null ? dataClass : Object.class;
+        ConcurrentMap<Class, ClassMetrics> classes = stores.get(store);
+        ClassMetrics metrics = classes.get(key);
+        if (metrics == null) {
+            ClassMetrics newMetrics = new ClassMetrics();
+            metrics = classes.putIfAbsent(key, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        return metrics;
+    }
+
+    public enum Store {
+        MEMORY, DISK, CLOUD
+    }
+
+    public enum Counter {
+        HIT, MISS, EVICTION, BYTES_DECODED, QUEUED_JOB, COALESCED_CALL
+    }
+
+    public enum Timer {
+        LOAD, NETWORK, REALM_TRANSACTION
+    }
+
+    private static final class ClassMetrics {
+        final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+        final Histogram[] timers = new Histogram[Timer.values().length];
+
+        ClassMetrics() {
+            for (int i = 0; i < timers.length; i++) {
+                timers[i] = new Histogram();
+            }
+        }
+
+        MetricsSnapshot.ClassSnapshot snapshot() {
+            long[] counts = new long[counters.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = counters.get(i);
+            }
+            Histogram.Snapshot[] timerSnapshots = new Histogram.Snapshot[timers.length];
+            for (int i = 0; i < timers.length; i++) {
+                timerSnapshots[i] = timers[i].snapshot();
+            }
+            return new MetricsSnapshot.ClassSnapshot(counts, timerSnapshots);
+        }
+    }
+}
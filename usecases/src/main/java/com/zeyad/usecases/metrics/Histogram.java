@@ -0,0 +1,107 @@
+package com.zeyad.usecases.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of non negative values, bucketed by powers of two, so recording is a couple
+ * of atomic increments whatever the number of values recorded.
+ */
+public final class Histogram {
+    private static final int BUCKETS = Long.SIZE + 1;
+    private final AtomicLongArray buckets;
+    private final AtomicLong count, sum, max;
+
+    Histogram() {
+        buckets = new AtomicLongArray(BUCKETS);
+        count = new AtomicLong();
+        sum = new AtomicLong();
+        max = new AtomicLong();
+    }
+
+    /**
+     * @return index of the bucket holding the value, the values of bucket i being below 2^i.
+     */
+    private static int bucketOf(long value) {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    @NonNull
+    Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts, count.get(), sum.get(), max.get());
+    }
+
+    /**
+     * Values of a {@link Histogram} at a point in time.
+     */
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0, 0, 0);
+        private final long[] counts;
+        private final long count, sum, max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+
+        /**
+         * @param quantile between 0 and 1, 0.99 for the 99th percentile.
+         * @return upper bound of the bucket holding the quantile, capped at the maximum recorded.
+         */
+        public long getPercentile(double quantile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total)), seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long upperBound = i == 0 ? 0 : i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(upperBound, max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.zeyad.usecases.metrics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.zeyad.usecases.metrics.DataServiceMetrics.Counter;
+import com.zeyad.usecases.metrics.DataServiceMetrics.Store;
+import com.zeyad.usecases.metrics.DataServiceMetrics.Timer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable values of the {@link DataServiceMetrics} at a point in time.
+ */
+public final class MetricsSnapshot {
+    private final long timestampMillis;
+    private final Map<Store, Map<Class, ClassSnapshot>> stores;
+
+    MetricsSnapshot(long timestampMillis, Map<Store, Map<Class, ClassSnapshot>> stores) {
+        this.timestampMillis = timestampMillis;
+        this.stores = stores;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * @return the data classes the store recorded anything for.
+     */
+    @NonNull
+    public Set<Class> getDataClasses(@NonNull Store store) {
+        return Collections.unmodifiableSet(stores.get(store).keySet());
+    }
+
+    public long getCount(@NonNull Store store, @Nullable Class dataClass, @NonNull Counter counter) {
+        ClassSnapshot snapshot = stores.get(store).get(dataClass != null ? dataClass : Object.class);
+        return snapshot != null ? snapshot.counts[counter.ordinal()] : 0;
+    }
+
+    /**
+     * @return the count of the store across all the data classes.
+     */
+    public long getTotal(@NonNull Store store, @NonNull Counter counter) {
+        long total = 0;
+        for (ClassSnapshot snapshot : stores.get(store).values()) {
+            total += snapshot.counts[counter.ordinal()];
+        }
+        return total;
+    }
+
+    @NonNull
+    public Histogram.Snapshot getTimer(@NonNull Store store, @Nullable Class dataClass, @NonNull Timer timer) {
+        ClassSnapshot snapshot = stores.get(store).get(dataClass != null ? dataClass : Object.class);
+        return snapshot != null ? snapshot.timers[timer.ordinal()] : Histogram.Snapshot.EMPTY;
+    }
+
+    /**
+     * @return hits over lookups of the store for the class, 0 if it was never looked up.
+     */
+    public double getHitRatio(@NonNull Store store, @Nullable Class dataClass) {
+        long hits = getCount(store, dataClass, Counter.HIT);
+        long lookups = hits + getCount(store, dataClass, Counter.MISS);
+        return lookups > 0 ? (double) hits / lookups : 0;
+    }
+
+    static final class ClassSnapshot {
+        final long[] counts;
+        final Histogram.Snapshot[] timers;
+
+        ClassSnapshot(long[] counts, Histogram.Snapshot[] timers) {
+            this.counts = counts;
+            this.timers = timers;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import android.util.Log;
 
 import com.zeyad.usecases.BuildConfig;
 import com.zeyad.usecases.Config;
+import com.zeyad.usecases.utils.Trace;
 import com.zeyad.usecases.utils.Utils;
 
 import java.io.File;
@@ -20,6 +21,7 @@ import io.reactivex.Flowable;
 import okhttp3.Cache;
 import okhttp3.CacheControl;
 import okhttp3.CertificatePinner;
+import okhttp3.ConnectionPool;
 import okhttp3.ConnectionSpec;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
@@ -55,26 +57,45 @@ public class ApiConnection {
         mRestApiWithCache = restApiWithCache;
     }
 
-    public static RestApi initWithCache(
-            @Nullable OkHttpClient.Builder okHttpBuilder, @Nullable Cache cache) {
+    /**
+     * Creates the rest apis with and without cache from a single client, so that they share its
+     * connection pool, dispatcher and TLS sessions, and a request warms up the connections of both.
+     *
+     * @param okHttpBuilder  builder of the client, a default one if null.
+     * @param cache          http cache of the rest api with cache, none if null.
+     * @param connectionPool pool of the client, the one of the builder if null.
+     */
+    @NonNull
+    public static ApiConnection create(@Nullable OkHttpClient.Builder okHttpBuilder, @Nullable Cache cache,
+                                       @Nullable ConnectionPool connectionPool) {
         if (okHttpBuilder == null) {
             okHttpBuilder = getBuilderForOkHttp();
         }
-        return createRetro2Client(provideOkHttpClient(okHttpBuilder, cache)).create(RestApi.class);
+        if (connectionPool != null) {
+            okHttpBuilder.connectionPool(connectionPool);
+        }
+        OkHttpClient baseClient = okHttpBuilder.build();
+        return new ApiConnection(createRetro2Client(baseClient).create(RestApi.class),
+                createRetro2Client(provideOkHttpClient(baseClient, cache)).create(RestApi.class));
     }
 
-    public static RestApi init(@Nullable OkHttpClient.Builder okHttpBuilder) {
+    /**
+     * Adds the compression of the request bodies to the builder, or to a default one if null.
+     */
+    @NonNull
+    public static OkHttpClient.Builder compressRequests(@Nullable OkHttpClient.Builder okHttpBuilder,
+                                                        @NonNull RequestCompression compression) {
         if (okHttpBuilder == null) {
             okHttpBuilder = getBuilderForOkHttp();
         }
-        return createRetro2Client(provideOkHttpClient(okHttpBuilder, null)).create(RestApi.class);
+        return okHttpBuilder.addInterceptor(provideGzipRequestInterceptor(compression));
     }
 
     @NonNull
     static HttpLoggingInterceptor provideHttpLoggingInterceptor() {
-        return new HttpLoggingInterceptor(message -> Log.d("NetworkInfo", message))
+        return new HttpLoggingInterceptor(message -> Trace.d("NetworkInfo", message))
                 .setLevel(
-                        BuildConfig.DEBUG
+                        BuildConfig.DEBUG && Trace.isLoggable(Log.DEBUG)
                                 ? HttpLoggingInterceptor.Level.BODY
                                 : HttpLoggingInterceptor.Level.NONE);
     }
@@ -114,14 +135,10 @@ public class ApiConnection {
                 .writeTimeout(TIME_OUT, TimeUnit.SECONDS);
     }
 
-    private static OkHttpClient provideOkHttpClient(
-            @NonNull OkHttpClient.Builder okHttpBuilder, @Nullable Cache cache) {
+    static OkHttpClient provideOkHttpClient(@NonNull OkHttpClient baseClient, @Nullable Cache cache) {
         boolean useApiWithCache = cache != null;
         Config.getInstance().setUseApiWithCache(useApiWithCache);
-        if (useApiWithCache) {
-            okHttpBuilder.cache(cache);
-        }
-        return okHttpBuilder.build();
+        return useApiWithCache ? baseClient.newBuilder().cache(cache).build() : baseClient;
     }
 
     private static Retrofit createRetro2Client(@NonNull OkHttpClient okHttpClient) {
@@ -138,6 +155,56 @@ public class ApiConnection {
         return getRestApi().dynamicDownload(url);
     }
 
+    /**
+     * Like {@link #dynamicDownload(String)}, but asks for the bytes from an offset on, as long as the
+     * file still matches the validator, and hands back the response headers along with the body.
+     *
+     * @param range   value of the {@code Range} header, null to get the whole file.
+     * @param ifRange {@code ETag} or {@code Last-Modified} of the partial file, null if unknown.
+     */
+    @NonNull
+    public Flowable<retrofit2.Response<ResponseBody>> dynamicDownloadRange(String url, @Nullable String range,
+                                                                          @Nullable String ifRange) {
+        return getRestApi().dynamicDownloadRange(url, range, ifRange);
+    }
+
+    /**
+     * @return the headers of the response to a {@code GET} of the url, like its length and whether
+     * it is served by ranges, without its body. The identity encoding is asked for, so the length is
+     * the one ranges are counted in.
+     */
+    @NonNull
+    public Flowable<retrofit2.Response<Void>> dynamicHead(String url) {
+        return getRestApi().dynamicHead(url);
+    }
+
+    /**
+     * Opens a resumable upload session.
+     *
+     * @return the response, locating the session in its {@code Location} header.
+     */
+    @NonNull
+    public Flowable<retrofit2.Response<Void>> dynamicUploadSession(String url, Map<String, String> headers) {
+        return getRestApi().dynamicUploadSession(url, headers);
+    }
+
+    /**
+     * @return the response, holding the bytes received by an upload session in its headers.
+     */
+    @NonNull
+    public Flowable<retrofit2.Response<Void>> dynamicUploadOffset(String sessionUrl, Map<String, String> headers) {
+        return getRestApi().dynamicUploadOffset(sessionUrl, headers);
+    }
+
+    /**
+     * Appends a chunk of the file to an upload session, at the offset of the headers.
+     */
+    @NonNull
+    public Flowable<retrofit2.Response<Void>> dynamicUploadChunk(String sessionUrl, Map<String, String> headers,
+                                                                 RequestBody chunk) {
+        return getRestApi().dynamicUploadChunk(sessionUrl, headers, chunk);
+    }
+
     private RestApi getRestApi() {
         return Config.getInstance().isUseApiWithCache() ? mRestApiWithCache : mRestApiWithoutCache;
     }
@@ -168,6 +235,18 @@ public class ApiConnection {
         return getRestApi().dynamicGetList(url);
     }
 
+    /**
+     * Like {@link #dynamicGetList(String, boolean)}, but hands back the unparsed response, to be
+     * decoded while it is being read.
+     */
+    @NonNull
+    public Flowable<ResponseBody> dynamicGetListStream(String url, boolean shouldCache) {
+        if (shouldCache && !Config.getInstance().isUseApiWithCache()) {
+            logNoCache();
+        }
+        return getRestApi().dynamicGetListStream(url);
+    }
+
     @NonNull
     public <M> Flowable<M> dynamicPost(String url, RequestBody requestBody) {
         return (Flowable<M>) getRestApi().dynamicPost(url, requestBody);
@@ -202,15 +281,21 @@ public class ApiConnection {
         return mRestApiWithCache;
     }
 
-    @SuppressWarnings("unused")
-    private Interceptor provideGzipRequestInterceptor() {
+    /**
+     * Gzips the bodies of the requests the compression applies to, streaming them if it is chunked,
+     * or else compressing them ahead to send their length.
+     */
+    @NonNull
+    static Interceptor provideGzipRequestInterceptor(@NonNull RequestCompression compression) {
         return chain -> {
             Request originalRequest = chain.request();
-            return originalRequest.body() == null || originalRequest.header("Content-Encoding") != null ?
-                    chain.proceed(originalRequest) :
-                    chain.proceed(originalRequest.newBuilder().header("Content-Encoding", "gzip")
-                            .method(originalRequest.method(), forceContentLength(gzip(originalRequest.body())))
-                            .build());
+            if (!compression.shouldCompress(originalRequest)) {
+                return chain.proceed(originalRequest);
+            }
+            RequestBody body = gzip(originalRequest.body(), compression.getLevel());
+            return chain.proceed(originalRequest.newBuilder().header("Content-Encoding", "gzip")
+                    .method(originalRequest.method(), compression.isChunked() ? body : forceContentLength(body))
+                    .build());
         };
     }
 
@@ -229,7 +314,7 @@ public class ApiConnection {
     }
 
     @NonNull
-    private RequestBody forceContentLength(@NonNull final RequestBody requestBody) throws IOException {
+    static RequestBody forceContentLength(@NonNull final RequestBody requestBody) throws IOException {
         final Buffer buffer = new Buffer();
         requestBody.writeTo(buffer);
         return new RequestBody() {
@@ -251,7 +336,7 @@ public class ApiConnection {
     }
 
     @NonNull
-    private RequestBody gzip(@NonNull final RequestBody body) {
+    static RequestBody gzip(@NonNull final RequestBody body, int level) {
         return new RequestBody() {
             @Override
             public MediaType contentType() {
@@ -265,7 +350,9 @@ public class ApiConnection {
 
             @Override
             public void writeTo(@NonNull BufferedSink sink) throws IOException {
-                BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
+                GzipSink deflatingSink = new GzipSink(sink);
+                deflatingSink.deflater().setLevel(level);
+                BufferedSink gzipSink = Okio.buffer(deflatingSink);
                 body.writeTo(gzipSink);
                 gzipSink.close();
             }
@@ -280,12 +367,12 @@ public class ApiConnection {
             cache = new Cache(new File(Config.getInstance().getContext().getCacheDir(), "http-cache"),
                     10 * 1024 * 1024); // 10 MB
         } catch (Exception e) {
-            Log.e("ApiConnection", "", e);
+            Trace.e("ApiConnection", "Could not create the http cache", e);
         }
         return cache;
     }
 
     private void logNoCache() {
-        Log.e(getClass().getSimpleName(), CACHING_DISABLED);
+        Trace.w("ApiConnection", CACHING_DISABLED);
     }
 }
@@ -0,0 +1,83 @@
+package com.zeyad.usecases.network;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Streams a range of a file as a request body, read from a {@link FileChannel} in fixed-size chunks,
+ * so the file is never held in memory and its progress can be reported as it is sent.
+ */
+public final class FileRequestBody extends RequestBody {
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private final MediaType contentType;
+    private final File file;
+    private final long offset, length, progressStep;
+    @Nullable
+    private final TransferProgress.Listener listener;
+
+    /**
+     * @param offset       position of the first byte of the file to send.
+     * @param length       number of bytes to send.
+     * @param listener     told of the bytes of the file sent so far, including the ones before the
+     *                     offset, every progress step.
+     * @param progressStep bytes to send between two progress updates.
+     */
+    public FileRequestBody(@Nullable MediaType contentType, @NonNull File file, long offset, long length,
+                           @Nullable TransferProgress.Listener listener, long progressStep) {
+        this.contentType = contentType;
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.listener = listener;
+        this.progressStep = progressStep;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        FileInputStream input = new FileInputStream(file);
+        try {
+            FileChannel channel = input.getChannel();
+            byte[] chunk = new byte[(int) Math.max(1, Math.min(CHUNK_BYTES, length))];
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            long position = offset, end = offset + length, reported = position, total = file.length();
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(chunk.length, end - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException(file.getName() + " is shorter than " + end + " bytes");
+                }
+                sink.write(chunk, 0, read);
+                position += read;
+                if (listener != null && (position - reported >= progressStep || position == end)) {
+                    reported = position;
+                    listener.onProgress(new TransferProgress(file, position, total, false));
+                }
+            }
+        } finally {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.zeyad.usecases.network;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import okhttp3.MultipartBody;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+/**
+ * Which request bodies are sent gzipped, and how.
+ * <p>
+ * Bodies are compressed from a minimum size on, as below it the headers and the CPU cost outweigh
+ * the bytes saved. Files, sent as multipart or raw chunks, are left as they are, being mostly
+ * compressed already, and so are requests setting their own {@code Content-Encoding}.
+ */
+public final class RequestCompression {
+    public static final long DEFAULT_MIN_BYTES = 1024;
+    private final long minBytes;
+    private final int level;
+    private final boolean chunked;
+    private final List<String> included, excluded;
+
+    private RequestCompression(@NonNull Builder builder) {
+        minBytes = builder.minBytes;
+        level = builder.level;
+        chunked = builder.chunked;
+        included = Collections.unmodifiableList(new ArrayList<>(builder.included));
+        excluded = Collections.unmodifiableList(new ArrayList<>(builder.excluded));
+    }
+
+    public long getMinBytes() {
+        return minBytes;
+    }
+
+    /**
+     * @return the {@link Deflater} level bodies are compressed at.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return whether compressed bodies are streamed with chunked encoding, rather than compressed
+     * ahead to send their length.
+     */
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    boolean shouldCompress(@NonNull Request request) {
+        RequestBody body = request.body();
+        if (body == null || request.header("Content-Encoding") != null || body instanceof MultipartBody
+                || body instanceof FileRequestBody) {
+            return false;
+        }
+        String url = request.url().toString();
+        if (matches(excluded, url) || !included.isEmpty() && !matches(included, url)) {
+            return false;
+        }
+        try {
+            long length = body.contentLength();
+            // bodies of unknown length are streamed, and likely to be large
+            return length < 0 || length >= minBytes;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean matches(@NonNull List<String> urlPrefixes, @NonNull String url) {
+        for (String urlPrefix : urlPrefixes) {
+            if (url.startsWith(urlPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class Builder {
+        private final List<String> included = new ArrayList<>(), excluded = new ArrayList<>();
+        private long minBytes = DEFAULT_MIN_BYTES;
+        private int level = Deflater.DEFAULT_COMPRESSION;
+        private boolean chunked;
+
+        /**
+         * Only compresses bodies of at least the given bytes.
+         */
+        @NonNull
+        public Builder minBytes(long minBytes) {
+            this.minBytes = minBytes;
+            return this;
+        }
+
+        /**
+         * Compresses at the given {@link Deflater} level, {@link Deflater#BEST_SPEED} trading a few
+         * bytes for several times less CPU than the default.
+         */
+        @NonNull
+        public Builder level(int level) {
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * Streams compressed bodies as they are compressed, for servers accepting chunked requests,
+         * instead of compressing them whole first to know their length.
+         */
+        @NonNull
+        public Builder chunked() {
+            chunked = true;
+            return this;
+        }
+
+        /**
+         * Only compresses the bodies sent to urls starting with the given ones, any url by default.
+         */
+        @NonNull
+        public Builder include(@NonNull String urlPrefix) {
+            included.add(urlPrefix);
+            return this;
+        }
+
+        /**
+         * Never compresses the bodies sent to urls starting with the given one.
+         */
+        @NonNull
+        public Builder exclude(@NonNull String urlPrefix) {
+            excluded.add(urlPrefix);
+            return this;
+        }
+
+        @NonNull
+        public RequestCompression build() {
+            return new RequestCompression(this);
+        }
+    }
+}
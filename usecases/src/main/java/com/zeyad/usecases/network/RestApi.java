@@ -9,9 +9,14 @@ import io.reactivex.Flowable;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import retrofit2.Response;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.Header;
+import retrofit2.http.HeaderMap;
+import retrofit2.http.Headers;
 import retrofit2.http.Multipart;
 import retrofit2.http.PATCH;
 import retrofit2.http.POST;
@@ -42,6 +47,11 @@ public interface RestApi {
     @GET
     Flowable<List> dynamicGetList(@Url String url, boolean shouldCache);
 
+    @NonNull
+    @Streaming
+    @GET
+    Flowable<ResponseBody> dynamicGetListStream(@Url String url);
+
     @NonNull
     @POST
     Flowable<Object> dynamicPost(@Url String url, @Body RequestBody body);
@@ -59,6 +69,30 @@ public interface RestApi {
     @GET
     Flowable<ResponseBody> dynamicDownload(@Url String fileUrl);
 
+    @NonNull
+    @Streaming
+    @GET
+    Flowable<Response<ResponseBody>> dynamicDownloadRange(@Url String fileUrl, @Header("Range") String range,
+                                                          @Header("If-Range") String ifRange);
+
+    @NonNull
+    @HEAD
+    @Headers("Accept-Encoding: identity")
+    Flowable<Response<Void>> dynamicHead(@Url String url);
+
+    @NonNull
+    @POST
+    Flowable<Response<Void>> dynamicUploadSession(@Url String url, @HeaderMap Map<String, String> headers);
+
+    @NonNull
+    @HEAD
+    Flowable<Response<Void>> dynamicUploadOffset(@Url String url, @HeaderMap Map<String, String> headers);
+
+    @NonNull
+    @PATCH
+    Flowable<Response<Void>> dynamicUploadChunk(@Url String url, @HeaderMap Map<String, String> headers,
+                                                @Body RequestBody chunk);
+
     @NonNull
     @Multipart
     @POST
@@ -0,0 +1,57 @@
+package com.zeyad.usecases.network;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+
+/**
+ * Bytes transferred so far of a file being downloaded or uploaded.
+ */
+public final class TransferProgress {
+    private final File file;
+    private final long bytesTransferred, totalBytes;
+    private final boolean done;
+
+    /**
+     * @param totalBytes size of the whole file, -1 if unknown.
+     */
+    public TransferProgress(@NonNull File file, long bytesTransferred, long totalBytes, boolean done) {
+        this.file = file;
+        this.bytesTransferred = bytesTransferred;
+        this.totalBytes = totalBytes;
+        this.done = done;
+    }
+
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return bytes of the file transferred so far, including the ones resumed from.
+     */
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    /**
+     * @return size of the whole file, -1 if unknown.
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return whether the transfer completed and the file was verified.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Gets the progress of a transfer as it goes.
+     */
+    public interface Listener {
+        void onProgress(@NonNull TransferProgress progress);
+    }
+}
@@ -3,8 +3,10 @@ package com.zeyad.usecases.requests;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.zeyad.usecases.Config;
+import com.zeyad.usecases.network.TransferProgress;
 
 import java.io.File;
 import java.util.HashMap;
@@ -29,10 +31,14 @@ public class FileIORequest implements Parcelable {
                 }
             };
     private File file;
-    private String url, key;
+    private String url, key, checksumAlgorithm, checksum;
     private boolean onWifi, whileCharging, queuable;
     private Class dataClass;
     private HashMap<String, Object> parameters;
+    private long progressStep, chunkSize;
+    private int segments;
+    @Nullable
+    private TransferProgress.Listener progressListener;
 
     public FileIORequest() {}
 
@@ -45,6 +51,12 @@ public class FileIORequest implements Parcelable {
         key = uploadRequestBuilder.key;
         parameters = uploadRequestBuilder.parameters;
         dataClass = uploadRequestBuilder.dataClass;
+        progressStep = uploadRequestBuilder.progressStep;
+        checksumAlgorithm = uploadRequestBuilder.checksumAlgorithm;
+        checksum = uploadRequestBuilder.checksum;
+        segments = uploadRequestBuilder.segments;
+        chunkSize = uploadRequestBuilder.chunkSize;
+        progressListener = uploadRequestBuilder.progressListener;
     }
 
     private FileIORequest(@NonNull Parcel in) {
@@ -56,6 +68,11 @@ public class FileIORequest implements Parcelable {
         this.queuable = in.readByte() != 0;
         this.dataClass = (Class) in.readSerializable();
         this.parameters = (HashMap<String, Object>) in.readSerializable();
+        this.progressStep = in.readLong();
+        this.checksumAlgorithm = in.readString();
+        this.checksum = in.readString();
+        this.segments = in.readInt();
+        this.chunkSize = in.readLong();
     }
 
     public String getUrl() {
@@ -92,6 +109,45 @@ public class FileIORequest implements Parcelable {
         return parameters != null ? parameters : new HashMap<>();
     }
 
+    /**
+     * @return bytes to transfer between two progress updates, 0 for the default.
+     */
+    public long getProgressStep() {
+        return progressStep;
+    }
+
+    @Nullable
+    public String getChecksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+
+    @Nullable
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return number of byte ranges a download is fetched as at once, 1 for a single stream.
+     */
+    public int getSegments() {
+        return Math.max(segments, 1);
+    }
+
+    /**
+     * @return bytes of an upload sent by request, 0 to send it all in one multipart request.
+     */
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return the listener of the progress, which is not kept once the request is queued.
+     */
+    @Nullable
+    public TransferProgress.Listener getProgressListener() {
+        return progressListener;
+    }
+
     @Override
     public int describeContents() {
         return 0;
@@ -107,15 +163,23 @@ public class FileIORequest implements Parcelable {
         dest.writeByte(this.queuable ? (byte) 1 : (byte) 0);
         dest.writeSerializable(this.dataClass);
         dest.writeSerializable(this.parameters);
+        dest.writeLong(this.progressStep);
+        dest.writeString(this.checksumAlgorithm);
+        dest.writeString(this.checksum);
+        dest.writeInt(this.segments);
+        dest.writeLong(this.chunkSize);
     }
 
     public static class Builder {
 
         private File file;
-        private String url, key;
+        private String url, key, checksumAlgorithm, checksum;
         private boolean onWifi, whileCharging, queuable;
         private Class dataClass;
         private HashMap<String, Object> parameters;
+        private long progressStep, chunkSize;
+        private int segments;
+        private TransferProgress.Listener progressListener;
 
         public Builder(String url, File file) {
             this.url = url;
@@ -170,6 +234,57 @@ public class FileIORequest implements Parcelable {
             return this;
         }
 
+        /**
+         * Sets how many bytes to transfer between two progress updates.
+         */
+        @NonNull
+        public Builder progressStep(long bytes) {
+            this.progressStep = bytes;
+            return this;
+        }
+
+        /**
+         * Sets the checksum a downloaded file is verified against before being handed back.
+         *
+         * @param algorithm a {@link java.security.MessageDigest} algorithm, like {@code SHA-256}.
+         * @param hexDigest the expected digest, in hex.
+         */
+        @NonNull
+        public Builder checksum(String algorithm, String hexDigest) {
+            this.checksumAlgorithm = algorithm;
+            this.checksum = hexDigest;
+            return this;
+        }
+
+        /**
+         * Downloads the file as that many byte ranges fetched at once, over as many connections, if
+         * the server accepts ranges. Worth it for large files over links with a high latency.
+         */
+        @NonNull
+        public Builder segments(int segments) {
+            this.segments = segments;
+            return this;
+        }
+
+        /**
+         * Uploads the file in chunks of that many bytes through the tus resumable upload protocol,
+         * so a failed or re-queued upload carries on from the last chunk the server acknowledged.
+         */
+        @NonNull
+        public Builder chunkSize(long bytes) {
+            this.chunkSize = bytes;
+            return this;
+        }
+
+        /**
+         * Sets the listener told of the bytes uploaded every progress step.
+         */
+        @NonNull
+        public Builder progressListener(TransferProgress.Listener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
         @NonNull
         public FileIORequest build() {
             return new FileIORequest(this);
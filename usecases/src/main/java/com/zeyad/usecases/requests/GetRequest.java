@@ -25,7 +25,7 @@ public class GetRequest implements Parcelable {
     private static final String DEFAULT_ID_KEY = "id";
     private final String url, idColumnName;
     private final Class dataClass, idType;
-    private final boolean persist, shouldCache;
+    private final boolean persist, shouldCache, staleWhileRevalidate;
     private final Object itemId;
 
     private GetRequest(@NonNull Builder builder) {
@@ -36,6 +36,7 @@ public class GetRequest implements Parcelable {
         idColumnName = builder.mIdColumnName;
         itemId = builder.mItemId;
         shouldCache = builder.mShouldCache;
+        staleWhileRevalidate = builder.mStaleWhileRevalidate;
     }
 
     protected GetRequest(Parcel in) {
@@ -45,6 +46,7 @@ public class GetRequest implements Parcelable {
         this.idType = (Class) in.readSerializable();
         this.persist = in.readByte() != 0;
         this.shouldCache = in.readByte() != 0;
+        this.staleWhileRevalidate = in.readByte() != 0;
         this.itemId = in.readParcelable(Object.class.getClassLoader());
     }
 
@@ -65,6 +67,13 @@ public class GetRequest implements Parcelable {
         return shouldCache;
     }
 
+    /**
+     * @return whether the local value is emitted first and then refreshed from the cloud.
+     */
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
     @NonNull
     public String getIdColumnName() {
         return idColumnName != null ? idColumnName : DEFAULT_ID_KEY;
@@ -91,12 +100,13 @@ public class GetRequest implements Parcelable {
         dest.writeSerializable(this.idType);
         dest.writeByte(this.persist ? (byte) 1 : (byte) 0);
         dest.writeByte(this.shouldCache ? (byte) 1 : (byte) 0);
+        dest.writeByte(this.staleWhileRevalidate ? (byte) 1 : (byte) 0);
         dest.writeParcelable((Parcelable) this.itemId, flags);
     }
 
     public static class Builder {
         private Object mItemId;
-        private boolean mShouldCache, mPersist;
+        private boolean mShouldCache, mPersist, mStaleWhileRevalidate;
         private String mIdColumnName, mUrl;
         private Class mDataClass, idType;
 
@@ -123,6 +133,16 @@ public class GetRequest implements Parcelable {
             return this;
         }
 
+        /**
+         * Emit the cached or persisted value immediately, then revalidate it against the cloud and
+         * emit again only if it changed. Applies to the offline first requests.
+         */
+        @NonNull
+        public Builder staleWhileRevalidate() {
+            mStaleWhileRevalidate = true;
+            return this;
+        }
+
         @NonNull
         public Builder id(Object id, String idColumnName, Class type) {
             mItemId = id;
@@ -0,0 +1,171 @@
+package com.zeyad.usecases.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Walks a paginated list endpoint, page after page, from a {@link GetRequest} template.
+ * <p>
+ * Pages are addressed by a query parameter appended to the template url, either an offset or page
+ * number known up front, which lets the pages ahead be fetched in parallel, or a cursor read from the
+ * last item of the previous page, like the {@code since} of GitHub's {@code /users}.
+ */
+public final class PageRequest<M> {
+    private static final int DEFAULT_PREFETCH = 2;
+    private final GetRequest template;
+    private final String keyParameter;
+    private final Object firstKey;
+    private final long step;
+    private final int pageSize, prefetch;
+    @Nullable
+    private final Cursor<M> cursor;
+
+    private PageRequest(@NonNull Builder<M> builder) {
+        template = builder.template;
+        keyParameter = builder.keyParameter;
+        firstKey = builder.firstKey;
+        step = builder.step;
+        pageSize = builder.pageSize;
+        prefetch = builder.prefetch;
+        cursor = builder.cursor;
+    }
+
+    @NonNull
+    public GetRequest getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return number of pages fetched ahead of the ones consumed.
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * @return whether the key of every page is known up front, so pages can be fetched in parallel.
+     */
+    public boolean isKeyedByOffset() {
+        return cursor == null;
+    }
+
+    @NonNull
+    public Object getFirstKey() {
+        return firstKey;
+    }
+
+    /**
+     * @return the key of the page at the given index, for pages keyed by offset.
+     */
+    @NonNull
+    public Object getKey(long index) {
+        return ((Number) firstKey).longValue() + index * step;
+    }
+
+    /**
+     * @return the url of the page with the given key.
+     */
+    @NonNull
+    public String getUrl(@NonNull Object key) {
+        String url = template.getUrl();
+        return url + (url.indexOf('?') < 0 ? '?' : '&') + keyParameter + '=' + key;
+    }
+
+    /**
+     * @return the key of the page following the given one, or null if that was the last page, being
+     * empty or shorter than the page size.
+     */
+    @Nullable
+    public Object getNextKey(@NonNull Object key, @NonNull List<M> items) {
+        if (items.isEmpty() || items.size() < pageSize) {
+            return null;
+        }
+        return cursor != null ? cursor.after(items.get(items.size() - 1)) :
+                ((Number) key).longValue() + step;
+    }
+
+    /**
+     * Reads the cursor pointing after an item, to get the page that follows it.
+     */
+    public interface Cursor<M> {
+        @NonNull
+        Object after(@NonNull M item);
+    }
+
+    public static class Builder<M> {
+        private final GetRequest template;
+        private String keyParameter;
+        private Object firstKey;
+        private long step;
+        private int pageSize, prefetch = DEFAULT_PREFETCH;
+        private Cursor<M> cursor;
+
+        /**
+         * @param template request of the first page, less its paging parameter.
+         */
+        public Builder(@NonNull GetRequest template) {
+            this.template = template;
+        }
+
+        /**
+         * Pages by the offset of their first item, as in {@code ?offset=60}.
+         */
+        @NonNull
+        public Builder<M> offset(@NonNull String parameter, long firstOffset, int pageSize) {
+            return byOffset(parameter, firstOffset, pageSize, pageSize);
+        }
+
+        /**
+         * Pages by their number, as in {@code ?page=3}.
+         */
+        @NonNull
+        public Builder<M> pageNumber(@NonNull String parameter, long firstPage, int pageSize) {
+            return byOffset(parameter, firstPage, 1, pageSize);
+        }
+
+        /**
+         * Pages by the cursor of the last item already fetched, as in {@code ?since=46}.
+         *
+         * @param pageSize number of items of a full page, 0 to only stop at an empty page.
+         */
+        @NonNull
+        public Builder<M> cursor(@NonNull String parameter, @NonNull Object firstCursor, int pageSize,
+                                 @NonNull Cursor<M> cursor) {
+            keyParameter = parameter;
+            firstKey = firstCursor;
+            this.pageSize = pageSize;
+            this.cursor = cursor;
+            return this;
+        }
+
+        @NonNull
+        public Builder<M> prefetch(int prefetch) {
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        @NonNull
+        public PageRequest<M> build() {
+            if (keyParameter == null) {
+                throw new IllegalArgumentException("Pages should be keyed by offset, page number or cursor!");
+            } else if (prefetch < 1) {
+                throw new IllegalArgumentException("Prefetch should be greater than 0!");
+            }
+            return new PageRequest<>(this);
+        }
+
+        private Builder<M> byOffset(String parameter, long first, long step, int pageSize) {
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("Page size should be greater than 0!");
+            }
+            keyParameter = parameter;
+            firstKey = first;
+            this.step = step;
+            this.pageSize = pageSize;
+            cursor = null;
+            return this;
+        }
+    }
+}
@@ -3,9 +3,9 @@ package com.zeyad.usecases.requests;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.NonNull;
-import android.util.Log;
 
 import com.zeyad.usecases.Config;
+import com.zeyad.usecases.utils.Trace;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -84,7 +84,7 @@ public class PostRequest implements Parcelable {
             try {
                 return new JSONObject(Config.getGson().toJson(object));
             } catch (JSONException e) {
-                Log.e("PostRequest", "", e);
+                Trace.e("PostRequest", "Could not convert the payload to json", e);
             }
         } else if (this.jsonObject != null) {
             jsonObject = this.jsonObject;
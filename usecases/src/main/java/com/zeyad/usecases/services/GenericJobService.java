@@ -1,11 +1,11 @@
 package com.zeyad.usecases.services;
 
 import android.support.annotation.NonNull;
-import android.util.Log;
 
 import com.firebase.jobdispatcher.JobParameters;
 import com.firebase.jobdispatcher.JobService;
 import com.zeyad.usecases.Config;
+import com.zeyad.usecases.utils.Trace;
 import com.zeyad.usecases.utils.Utils;
 
 import io.reactivex.disposables.Disposable;
@@ -25,7 +25,7 @@ public class GenericJobService extends JobService {
     @Override
     public void onCreate() {
         super.onCreate();
-        Log.i(TAG, "Service created");
+        Trace.i(TAG, "Service created");
     }
 
     @Override
@@ -41,7 +41,7 @@ public class GenericJobService extends JobService {
         if (disposable != null && !disposable.isDisposed()) {
             disposable.dispose();
         }
-        Log.i(TAG, "on stop job: " + params.getTag());
+        Trace.i(TAG, "on stop job: {}", params.getTag());
         return true; // Answers the question: "Should this job be retried?"
     }
 
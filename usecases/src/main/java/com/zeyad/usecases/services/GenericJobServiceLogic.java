@@ -2,17 +2,19 @@ package com.zeyad.usecases.services;
 
 import android.os.Bundle;
 import android.support.annotation.NonNull;
-import android.util.Log;
 
 import com.zeyad.usecases.Config;
 import com.zeyad.usecases.services.jobs.FileIO;
 import com.zeyad.usecases.services.jobs.Post;
 import com.zeyad.usecases.stores.CloudStore;
+import com.zeyad.usecases.utils.Trace;
 import com.zeyad.usecases.utils.Utils;
 
 import io.reactivex.Completable;
 
 class GenericJobServiceLogic {
+    private static final String TAG = GenericJobServiceLogic.class.getSimpleName();
+
     GenericJobServiceLogic() {
     }
 
@@ -21,20 +23,17 @@ class GenericJobServiceLogic {
             int trailCount = extras.getInt(GenericJobService.TRIAL_COUNT);
             switch (extras.getString(GenericJobService.JOB_TYPE, "")) {
                 case GenericJobService.POST:
-                    Log.d(GenericJobServiceLogic.class.getSimpleName(),
-                            String.format(log, GenericJobService.POST));
+                    Trace.d(TAG, "{}: {}", log, GenericJobService.POST);
                     return new Post(null, extras.getParcelable(GenericJobService.PAYLOAD),
                             Config.getApiConnection(), trailCount, utils)
                             .execute();
                 case GenericJobService.DOWNLOAD_FILE:
-                    Log.d(GenericJobServiceLogic.class.getSimpleName(),
-                            String.format(log, GenericJobService.DOWNLOAD_FILE));
+                    Trace.d(TAG, "{}: {}", log, GenericJobService.DOWNLOAD_FILE);
                     return new FileIO(trailCount, extras.getParcelable(GenericJobService.PAYLOAD),
                             null, true, cloudStore, utils)
                             .execute();
                 case GenericJobService.UPLOAD_FILE:
-                    Log.d(GenericJobServiceLogic.class.getSimpleName(),
-                            String.format(log, GenericJobService.UPLOAD_FILE));
+                    Trace.d(TAG, "{}: {}", log, GenericJobService.UPLOAD_FILE);
                     return new FileIO(trailCount, extras.getParcelable(GenericJobService.PAYLOAD),
                             null, false, cloudStore, utils)
                             .execute();
@@ -2,12 +2,12 @@ package com.zeyad.usecases.services.jobs;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
-import android.util.Log;
 
 import com.firebase.jobdispatcher.FirebaseJobDispatcher;
 import com.firebase.jobdispatcher.GooglePlayDriver;
 import com.zeyad.usecases.requests.FileIORequest;
 import com.zeyad.usecases.stores.CloudStore;
+import com.zeyad.usecases.utils.Trace;
 import com.zeyad.usecases.utils.Utils;
 
 import java.io.File;
@@ -41,23 +41,19 @@ public class FileIO {
     public Completable execute() {
         File file = mFileIORequest.getFile();
         return mIsDownload ? Completable.fromObservable(mCloudStore
-                .dynamicDownloadFile(mFileIORequest.getUrl(), file, mFileIORequest.onWifi(),
-                        mFileIORequest.isWhileCharging(), mFileIORequest.isQueuable())
-                .doOnSubscribe(subscription -> Log.d(TAG, "Downloading " + file.getName()))
+                .dynamicDownloadFileProgress(mFileIORequest)
+                .doOnSubscribe(subscription -> Trace.d(TAG, "Downloading {}", file))
                 .doOnError(this::onError)
                 .toObservable()) :
-                Completable.fromObservable(mCloudStore.dynamicUploadFile(mFileIORequest.getUrl(),
-                        file, mFileIORequest.getKey(), mFileIORequest.getParameters(),
-                        mFileIORequest.onWifi(), mFileIORequest.isWhileCharging(),
-                        mFileIORequest.isQueuable(), mFileIORequest.getDataClass())
-                        .doOnSubscribe(subscription -> Log.d(TAG, "Uploading " + file.getName()))
+                Completable.fromObservable(mCloudStore.dynamicUploadFile(mFileIORequest)
+                        .doOnSubscribe(subscription -> Trace.d(TAG, "Uploading {}", file))
                         .doOnError(this::onError)
                         .toObservable());
     }
 
     private void onError(Throwable throwable) {
         queueIOFile();
-        Log.e(TAG, ON_ERROR, throwable);
+        Trace.e(TAG, ON_ERROR, throwable);
     }
 
     void queueIOFile() {
@@ -2,12 +2,12 @@ package com.zeyad.usecases.services.jobs;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
-import android.util.Log;
 
 import com.firebase.jobdispatcher.FirebaseJobDispatcher;
 import com.firebase.jobdispatcher.GooglePlayDriver;
 import com.zeyad.usecases.network.ApiConnection;
 import com.zeyad.usecases.requests.PostRequest;
+import com.zeyad.usecases.utils.Trace;
 import com.zeyad.usecases.utils.Utils;
 
 import org.json.JSONObject;
@@ -56,49 +56,49 @@ public class Post {
         switch (mPostRequest.getMethod()) {
             case PostRequest.PATCH:
                 return Completable.fromObservable(mRestApi.dynamicPatch(mPostRequest.getUrl(), requestBody)
-                        .doOnSubscribe(subscription -> Log.d(TAG, "Patching " + mPostRequest.getRequestType()
-                                .getSimpleName()))
+                        .doOnSubscribe(subscription ->
+                                Trace.d(TAG, "Patching {}", mPostRequest.getRequestType()))
                         .doOnError(this::onError)
-                        .doOnComplete(() -> Log.d(TAG, COMPLETED))
+                        .doOnComplete(() -> Trace.d(TAG, COMPLETED))
                         .toObservable());
             case PostRequest.POST:
                 return isObject ? Completable.fromObservable(mRestApi.dynamicPost(mPostRequest.getUrl(), requestBody)
-                        .doOnSubscribe(subscription -> Log.d(TAG, "Posting " + mPostRequest.getRequestType()
-                                .getSimpleName()))
+                        .doOnSubscribe(subscription ->
+                                Trace.d(TAG, "Posting {}", mPostRequest.getRequestType()))
                         .doOnError(this::onError)
-                        .doOnComplete(() -> Log.d(TAG, COMPLETED))
+                        .doOnComplete(() -> Trace.d(TAG, COMPLETED))
                         .toObservable()) :
                         Completable.fromObservable(mRestApi.dynamicPost(mPostRequest.getUrl(), listRequestBody)
-                                .doOnSubscribe(subscription -> Log.d(TAG, "Posting List of " + mPostRequest
-                                        .getRequestType().getSimpleName()))
+                                .doOnSubscribe(subscription ->
+                                        Trace.d(TAG, "Posting List of {}", mPostRequest.getRequestType()))
                                 .doOnError(this::onError)
-                                .doOnComplete(() -> Log.d(TAG, COMPLETED))
+                                .doOnComplete(() -> Trace.d(TAG, COMPLETED))
                                 .toObservable());
             case PostRequest.PUT:
                 return isObject ? Completable.fromObservable(mRestApi.dynamicPut(mPostRequest.getUrl(), requestBody)
-                        .doOnSubscribe(subscription -> Log.d(TAG, "Putting " + mPostRequest.getRequestType()
-                                .getSimpleName()))
+                        .doOnSubscribe(subscription ->
+                                Trace.d(TAG, "Putting {}", mPostRequest.getRequestType()))
                         .doOnError(this::onError)
-                        .doOnComplete(() -> Log.d(TAG, COMPLETED))
+                        .doOnComplete(() -> Trace.d(TAG, COMPLETED))
                         .toObservable()) :
                         Completable.fromObservable(mRestApi.dynamicPut(mPostRequest.getUrl(), listRequestBody)
-                                .doOnSubscribe(subscription -> Log.d(TAG, "Putting List of " + mPostRequest.getRequestType()
-                                        .getSimpleName()))
+                                .doOnSubscribe(subscription ->
+                                        Trace.d(TAG, "Putting List of {}", mPostRequest.getRequestType()))
                                 .doOnError(this::onError)
-                                .doOnComplete(() -> Log.d(TAG, COMPLETED))
+                                .doOnComplete(() -> Trace.d(TAG, COMPLETED))
                                 .toObservable());
             case PostRequest.DELETE:
                 return isObject ? Completable.fromObservable(mRestApi.dynamicDelete(mPostRequest.getUrl(), requestBody)
-                        .doOnSubscribe(subscription -> Log.d(TAG, "Deleting " + mPostRequest.getRequestType()
-                                .getSimpleName()))
+                        .doOnSubscribe(subscription ->
+                                Trace.d(TAG, "Deleting {}", mPostRequest.getRequestType()))
                         .doOnError(this::onError)
-                        .doOnComplete(() -> Log.d(TAG, COMPLETED))
+                        .doOnComplete(() -> Trace.d(TAG, COMPLETED))
                         .toObservable()) :
                         Completable.fromObservable(mRestApi.dynamicDelete(mPostRequest.getUrl(), listRequestBody)
-                                .doOnSubscribe(subscription -> Log.d(TAG, "Deleting List of " + mPostRequest
-                                        .getRequestType().getSimpleName()))
+                                .doOnSubscribe(subscription ->
+                                        Trace.d(TAG, "Deleting List of {}", mPostRequest.getRequestType()))
                                 .doOnError(this::onError)
-                                .doOnComplete(() -> Log.d(TAG, COMPLETED))
+                                .doOnComplete(() -> Trace.d(TAG, COMPLETED))
                                 .toObservable());
             default:
                 break;
@@ -108,7 +108,7 @@ public class Post {
 
     private void onError(Throwable throwable) {
         queuePost();
-        Log.e(TAG, ON_ERROR, throwable);
+        Trace.e(TAG, ON_ERROR, throwable);
     }
 
     void queuePost() {
@@ -7,31 +7,35 @@ import android.net.ConnectivityManager;
 import android.os.BatteryManager;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.util.Log;
 
 import com.firebase.jobdispatcher.FirebaseJobDispatcher;
 import com.firebase.jobdispatcher.GooglePlayDriver;
+import com.google.gson.JsonElement;
 import com.zeyad.usecases.Config;
 import com.zeyad.usecases.db.DataBaseManager;
 import com.zeyad.usecases.db.RealmQueryProvider;
+import com.zeyad.usecases.db.WriteBehindBuffer;
 import com.zeyad.usecases.exceptions.NetworkConnectionException;
 import com.zeyad.usecases.mapper.DAOMapper;
+import com.zeyad.usecases.mapper.JsonListDecoder;
+import com.zeyad.usecases.metrics.DataServiceMetrics;
 import com.zeyad.usecases.network.ApiConnection;
+import com.zeyad.usecases.network.FileRequestBody;
 import com.zeyad.usecases.network.RestApi;
+import com.zeyad.usecases.network.TransferProgress;
 import com.zeyad.usecases.requests.FileIORequest;
 import com.zeyad.usecases.requests.PostRequest;
+import com.zeyad.usecases.utils.Trace;
 import com.zeyad.usecases.utils.Utils;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.ConnectException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,12 +44,15 @@ import java.util.concurrent.TimeUnit;
 import io.reactivex.Flowable;
 import io.reactivex.FlowableTransformer;
 import io.reactivex.Single;
-import io.reactivex.SingleObserver;
-import io.reactivex.disposables.Disposable;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.BYTES_DECODED;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.CLOUD;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Timer.LOAD;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Timer.NETWORK;
 import static com.zeyad.usecases.requests.PostRequest.DELETE;
 import static com.zeyad.usecases.requests.PostRequest.PATCH;
 import static com.zeyad.usecases.requests.PostRequest.POST;
@@ -55,15 +62,22 @@ public class CloudStore implements DataStore {
 
     public static final String APPLICATION_JSON = "application/json";
     private static final String TAG = CloudStore.class.getSimpleName(), MULTIPART_FORM_DATA = "multipart/form-data";
-    private static final int COUNTER_START = 1, ATTEMPTS = 3;
+    private static final int COUNTER_START = 1, ATTEMPTS = 3, WRITE_BATCH_SIZE = 200, DECODE_PAGE_SIZE = 100;
+    private static final long WRITE_WINDOW_MILLIS = 100;
     private final DataBaseManager mDataBaseManager;
     @NonNull
     private final DAOMapper mEntityDataMapper;
+    @NonNull
+    private final JsonListDecoder mJsonListDecoder;
     private final ApiConnection mApiConnection;
     @NonNull
     private final FirebaseJobDispatcher mDispatcher;
     private final Utils mUtils;
     private final MemoryStore mMemoryStore;
+    private final DataServiceMetrics mMetrics;
+    private final FileDownloader mFileDownloader;
+    private final FileUploader mFileUploader;
+    private WriteBehindBuffer mWriteBehindBuffer;
 
     /**
      * Construct a {@link DataStore} based on connections to the api (Cloud).
@@ -75,10 +89,14 @@ public class CloudStore implements DataStore {
                       @NonNull DAOMapper entityDataMapper, MemoryStore memoryStore, Utils utils) {
         mApiConnection = apiConnection;
         mEntityDataMapper = entityDataMapper;
+        mJsonListDecoder = new JsonListDecoder();
         mDataBaseManager = dataBaseManager;
         mDispatcher = new FirebaseJobDispatcher(new GooglePlayDriver(Config.getInstance().getContext()));
         mMemoryStore = memoryStore;
         mUtils = utils;
+        mMetrics = DataServiceMetrics.getInstance();
+        mFileDownloader = new FileDownloader(apiConnection);
+        mFileUploader = new FileUploader(apiConnection);
         Config.setCloudStore(this);
     }
 
@@ -91,22 +109,71 @@ public class CloudStore implements DataStore {
     public <M> Flowable<M> dynamicGetObject(String url, String idColumnName, Object itemId, Class itemIdType,
                                             @NonNull Class dataClass, boolean saveToDisk, boolean shouldCache) {
         return mApiConnection.<M>dynamicGetObject(url, shouldCache)
-                .doOnNext(m -> saveLocally(idColumnName, itemIdType,
-                        new JSONObject(gson.toJson(m)), dataClass, saveToDisk, shouldCache))
-                .map(entity -> mEntityDataMapper.<M>mapTo(entity, dataClass));
+                .compose(mMetrics.<M>timed(CLOUD, dataClass, NETWORK))
+                .map(entity -> mEntityDataMapper.<M>mapTo(entity, dataClass))
+                .doOnNext(m -> saveLocally(idColumnName, m, dataClass, saveToDisk, shouldCache))
+                .compose(mMetrics.<M>timed(CLOUD, dataClass, LOAD));
     }
 
     @NonNull
     @Override
     public <M> Flowable<List<M>> dynamicGetList(String url, @NonNull Class dataClass, boolean saveToDisk,
                                                 boolean shouldCache) {
-        return mApiConnection.dynamicGetList(url, shouldCache)
-                .map(entities -> mEntityDataMapper.<List<M>>mapAllTo(entities, dataClass))
-                .doOnNext(list -> {
+        return this.<M>dynamicGetListPages(url, dataClass, DECODE_PAGE_SIZE, saveToDisk, shouldCache)
+                .<List<M>>collect(ArrayList::new, List::addAll)
+                .toFlowable();
+    }
+
+    /**
+     * Gets a list from the api, decoding it while it is being downloaded.
+     * <p>
+     * Every page is emitted, and persisted if needed, as soon as it is parsed; flatten the pages
+     * with {@link Flowable#concatMapIterable} to get the items one by one. Items of a class with a
+     * registered {@link DAOMapper.Mapper} are parsed as {@link JsonElement}s and mapped by it.
+     *
+     * @param pageSize maximum number of items per emitted page.
+     * @return a {@link Flowable} emitting the parsed pages in order.
+     */
+    @NonNull
+    public <M> Flowable<List<M>> dynamicGetListPages(String url, @NonNull Class dataClass, int pageSize,
+                                                     boolean saveToDisk, boolean shouldCache) {
+        return mApiConnection.dynamicGetListStream(url, shouldCache)
+                .compose(mMetrics.<ResponseBody>timed(CLOUD, dataClass, NETWORK))
+                .concatMap(body -> {
+                    if (body.contentLength() > 0) {
+                        mMetrics.add(CLOUD, dataClass, BYTES_DECODED, body.contentLength());
+                    }
+                    if (mEntityDataMapper.hasMapper(dataClass)) {
+                        return mJsonListDecoder.<JsonElement>decodePages(body, JsonElement.class, pageSize)
+                                .map(page -> mEntityDataMapper.<List<M>>mapAllTo(page, dataClass));
+                    }
+                    return mJsonListDecoder.<M>decodePages(body, dataClass, pageSize);
+                })
+                .doOnNext(page -> {
                     if (mUtils.withDisk(saveToDisk)) {
-                        saveAllToDisk(list, dataClass);
+                        saveAllToDisk(page, dataClass);
                     }
-                });
+                })
+                .compose(mMetrics.<List<M>>timed(CLOUD, dataClass, LOAD));
+    }
+
+    /**
+     * Gets one page of a list from the api, persisting all of it with a single batched write once
+     * it is fully decoded.
+     *
+     * @return a {@link Flowable} emitting the items of the page.
+     */
+    @NonNull
+    public <M> Flowable<List<M>> dynamicGetPage(String url, @NonNull Class dataClass, boolean saveToDisk,
+                                                boolean shouldCache) {
+        return this.<M>dynamicGetListPages(url, dataClass, DECODE_PAGE_SIZE, false, shouldCache)
+                .<List<M>>collect(ArrayList::new, List::addAll)
+                .doOnSuccess(page -> {
+                    if (!page.isEmpty() && mUtils.withDisk(saveToDisk)) {
+                        saveAllToDisk(page, dataClass);
+                    }
+                })
+                .toFlowable();
     }
 
     @NonNull
@@ -286,29 +353,70 @@ public class CloudStore implements DataStore {
                                              @Nullable Map<String, Object> parameters,
                                              boolean onWifi, boolean whileCharging, boolean queuable,
                                              @NonNull Class dataClass) {
+        return dynamicUploadFile(new FileIORequest.Builder(url, file)
+                .key(key)
+                .payLoad(parameters != null ? new HashMap<>(parameters) : null)
+                .onWifi(onWifi)
+                .whileCharging(whileCharging)
+                .queuable(queuable)
+                .dataClass(dataClass)
+                .build());
+    }
+
+    /**
+     * Uploads a file, streamed from disk as it is sent.
+     * <p>
+     * With a chunk size, the file is sent chunk by chunk through the tus resumable upload protocol,
+     * carrying on from the last chunk acknowledged by the server when retried or re-queued, and the
+     * {@link Flowable} completes without any item, as the server replies with no body.
+     *
+     * @return a {@link Flowable} emitting the response of the server.
+     */
+    @NonNull
+    public <M> Flowable<M> dynamicUploadFile(@NonNull FileIORequest fileIORequest) {
+        String url = fileIORequest.getUrl();
+        File file = fileIORequest.getFile();
         return Flowable.defer(() -> {
-            if (isQueuableIfOutOfNetwork(queuable) && isOnWifi(Config.getInstance().getContext()) == onWifi
-                    && isChargingReqCompatible(isCharging(Config.getInstance().getContext()), whileCharging)) {
-                queueIOFile(url, file, true, whileCharging, false);
+            if (isQueuableIfOutOfNetwork(fileIORequest.isQueuable())
+                    && isOnWifi(Config.getInstance().getContext()) == fileIORequest.onWifi()
+                    && isChargingReqCompatible(isCharging(Config.getInstance().getContext()),
+                    fileIORequest.isWhileCharging())) {
+                queueFileIO(fileIORequest, true, false);
                 return Flowable.empty();
             } else if (!mUtils.isNetworkAvailable(Config.getInstance().getContext())) {
                 return getErrorFlowableNotPersisted();
             }
-            RequestBody requestFile = RequestBody.create(MediaType.parse(MULTIPART_FORM_DATA), file);
-            HashMap<String, RequestBody> map = new HashMap<>();
-            map.put(key, requestFile);
-            if (parameters != null && !parameters.isEmpty()) {
-                for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+            TransferProgress.Listener listener = fileIORequest.getProgressListener();
+            long progressStep = fileIORequest.getProgressStep() > 0 ? fileIORequest.getProgressStep() :
+                    FileDownloader.DEFAULT_PROGRESS_STEP;
+            Flowable<M> upload;
+            if (fileIORequest.getChunkSize() > 0) {
+                upload = mFileUploader.upload(url, file, fileIORequest.getParameters(),
+                        fileIORequest.getChunkSize(), listener, progressStep)
+                        .ignoreElements()
+                        .toFlowable();
+            } else {
+                // the file goes once, as its own part, the parameters being the other parts
+                HashMap<String, RequestBody> map = new HashMap<>();
+                for (Map.Entry<String, Object> entry : fileIORequest.getParameters().entrySet()) {
                     map.put(entry.getKey(), RequestBody.create(MediaType.parse(MULTIPART_FORM_DATA),
                             String.valueOf(entry.getValue())));
                 }
+                upload = mApiConnection.<M>dynamicUpload(url, map, MultipartBody.Part.createFormData(
+                        fileIORequest.getKey(), file.getName(), new FileRequestBody(
+                                MediaType.parse(MULTIPART_FORM_DATA), file, 0, file.length(), listener,
+                                progressStep)))
+                        .map(object -> daoMapHelper(fileIORequest.getDataClass(), object));
             }
-            return mApiConnection.<M>dynamicUpload(url, map, MultipartBody.Part.createFormData(key,
-                    file.getName(), requestFile))
-                    .map(object -> daoMapHelper(dataClass, object))
+            return upload
+                    .doOnComplete(() -> {
+                        if (listener != null) {
+                            listener.onProgress(new TransferProgress(file, file.length(), file.length(), true));
+                        }
+                    })
                     .onErrorResumeNext(throwable -> {
-                        if (isQueuableIfOutOfNetwork(queuable) && isNetworkFailure(throwable)) {
-                            queueIOFile(url, file, true, whileCharging, false);
+                        if (isQueuableIfOutOfNetwork(fileIORequest.isQueuable()) && isNetworkFailure(throwable)) {
+                            queueFileIO(fileIORequest, true, false);
                             return Flowable.empty();
                         }
                         return Flowable.error(throwable);
@@ -320,56 +428,47 @@ public class CloudStore implements DataStore {
     @Override
     public Flowable<File> dynamicDownloadFile(String url, @NonNull File file, boolean onWifi,
                                               boolean whileCharging, boolean queuable) {
+        return dynamicDownloadFileProgress(new FileIORequest.Builder(url, file)
+                .onWifi(onWifi)
+                .whileCharging(whileCharging)
+                .queuable(queuable)
+                .build())
+                .filter(TransferProgress::isDone)
+                .map(TransferProgress::getFile);
+    }
+
+    /**
+     * Downloads a file, carrying on from the bytes of an earlier attempt that failed or was queued,
+     * unless the remote file changed since.
+     *
+     * @return a {@link Flowable} emitting the progress every {@link FileIORequest#getProgressStep()}
+     * bytes, the last one once the file is complete and verified.
+     */
+    @NonNull
+    public Flowable<TransferProgress> dynamicDownloadFileProgress(@NonNull FileIORequest fileIORequest) {
+        String url = fileIORequest.getUrl();
+        File file = fileIORequest.getFile();
         return Flowable.defer(() -> {
-            if (isQueuableIfOutOfNetwork(queuable) && isOnWifi(Config.getInstance().getContext()) == onWifi
-                    && isChargingReqCompatible(isCharging(Config.getInstance().getContext()), whileCharging)) {
-                queueIOFile(url, file, onWifi, whileCharging, true);
+            if (isQueuableIfOutOfNetwork(fileIORequest.isQueuable())
+                    && isOnWifi(Config.getInstance().getContext()) == fileIORequest.onWifi()
+                    && isChargingReqCompatible(isCharging(Config.getInstance().getContext()),
+                    fileIORequest.isWhileCharging())) {
+                queueFileIO(fileIORequest, fileIORequest.onWifi(), true);
                 return Flowable.empty();
             } else if (!mUtils.isNetworkAvailable(Config.getInstance().getContext())) {
                 return getErrorFlowableNotPersisted();
             }
-            return mApiConnection.dynamicDownload(url)
+            long progressStep = fileIORequest.getProgressStep();
+            return mFileDownloader.download(url, file,
+                    progressStep > 0 ? progressStep : FileDownloader.DEFAULT_PROGRESS_STEP,
+                    fileIORequest.getChecksumAlgorithm(), fileIORequest.getChecksum(),
+                    fileIORequest.getSegments())
                     .onErrorResumeNext(throwable -> {
-                        if (isQueuableIfOutOfNetwork(queuable) && isNetworkFailure(throwable)) {
-                            queueIOFile(url, file, true, whileCharging, false);
+                        if (isQueuableIfOutOfNetwork(fileIORequest.isQueuable()) && isNetworkFailure(throwable)) {
+                            queueFileIO(fileIORequest, true, true);
                             return Flowable.empty();
                         }
                         return Flowable.error(throwable);
-                    })
-                    .map(responseBody -> {
-                        try {
-                            InputStream inputStream = null;
-                            OutputStream outputStream = null;
-                            try {
-                                byte[] fileReader = new byte[4096];
-                                long fileSize = responseBody.contentLength();
-                                long fileSizeDownloaded = 0;
-                                inputStream = responseBody.byteStream();
-                                outputStream = new FileOutputStream(file);
-                                while (true) {
-                                    int read = inputStream.read(fileReader);
-                                    if (read == -1) {
-                                        break;
-                                    }
-                                    outputStream.write(fileReader, 0, read);
-                                    fileSizeDownloaded += read;
-                                    Log.d(TAG, "file download: " + fileSizeDownloaded + " of " + fileSize);
-                                }
-                                outputStream.flush();
-                            } catch (IOException e) {
-                                Log.e(TAG, "", e);
-                            } finally {
-                                if (inputStream != null) {
-                                    inputStream.close();
-                                }
-                                if (outputStream != null) {
-                                    outputStream.close();
-                                }
-                            }
-                        } catch (IOException e) {
-                            Log.e(TAG, "", e);
-                        }
-                        return file;
                     });
         });
     }
@@ -380,12 +479,22 @@ public class CloudStore implements DataStore {
         return Flowable.error(new IllegalAccessException("Can not search disk in cloud data store!"));
     }
 
+    /**
+     * Writes the responses and payloads still waiting to be batched into the database.
+     *
+     * @return a {@link Single} emitting whether every pending batch was written.
+     */
+    @NonNull
+    public Single<Boolean> flushPendingWrites() {
+        return getWriteBehindBuffer().flush();
+    }
+
     private <M> FlowableTransformer<M, M> applyExponentialBackoff() {
         return observable -> observable.retryWhen(attempts -> {
             return attempts.zipWith(
                     Flowable.range(COUNTER_START, ATTEMPTS), (n, i) -> i)
                     .flatMap(i -> {
-                        Log.d(TAG, "delay retry by " + i + " second(s)");
+                        Trace.d(TAG, "delay retry by {} second(s)", i);
                         return Flowable.timer(5 * i, TimeUnit.SECONDS);
                     });
         });
@@ -445,10 +554,18 @@ public class CloudStore implements DataStore {
                 == ConnectivityManager.TYPE_WIFI;
     }
 
-    private void queueIOFile(String url, File file, boolean onWifi, boolean whileCharging, boolean isDownload) {
-        mUtils.queueFileIOCore(mDispatcher, isDownload, new FileIORequest.Builder(url, file)
+    private void queueFileIO(FileIORequest fileIORequest, boolean onWifi, boolean isDownload) {
+        mUtils.queueFileIOCore(mDispatcher, isDownload, new FileIORequest.Builder(fileIORequest.getUrl(),
+                fileIORequest.getFile())
+                .key(fileIORequest.getKey())
+                .payLoad(fileIORequest.getParameters())
+                .dataClass(fileIORequest.getDataClass())
                 .onWifi(onWifi)
-                .whileCharging(whileCharging)
+                .whileCharging(fileIORequest.isWhileCharging())
+                .progressStep(fileIORequest.getProgressStep())
+                .checksum(fileIORequest.getChecksumAlgorithm(), fileIORequest.getChecksum())
+                .segments(fileIORequest.getSegments())
+                .chunkSize(fileIORequest.getChunkSize())
                 .build());
     }
 
@@ -476,30 +593,49 @@ public class CloudStore implements DataStore {
         mUtils.queuePostCore(mDispatcher, postRequest);
     }
 
+    /**
+     * Created on first write, as the background thread is only set up after the stores.
+     */
+    private synchronized WriteBehindBuffer getWriteBehindBuffer() {
+        if (mWriteBehindBuffer == null) {
+            mWriteBehindBuffer = new WriteBehindBuffer(mDataBaseManager, Config.getBackgroundThread(),
+                    WRITE_WINDOW_MILLIS, WRITE_BATCH_SIZE);
+        }
+        return mWriteBehindBuffer;
+    }
+
     private void saveAllToDisk(List collection, Class dataClass) {
-        mDataBaseManager.putAll(collection, dataClass)
-                .subscribeOn(Config.getBackgroundThread())
-                .subscribe(new SimpleSubscriber(dataClass));
+        getWriteBehindBuffer().putAll(collection, dataClass);
     }
 
     private void saveLocally(String idColumnName, Class itemIdType, @NonNull JSONObject jsonObject,
                              @NonNull Class dataClass, boolean saveToDisk, boolean cache) {
         if (mUtils.withDisk(saveToDisk)) {
-            mDataBaseManager.put(jsonObject, idColumnName, itemIdType, dataClass)
-                    .subscribeOn(Config.getBackgroundThread())
-                    .subscribe(new SimpleSubscriber(dataClass));
+            getWriteBehindBuffer().put(jsonObject, idColumnName, itemIdType, dataClass);
         }
         if (mUtils.withCache(cache)) {
             mMemoryStore.cacheObject(idColumnName, jsonObject, dataClass);
         }
     }
 
+    /**
+     * Persists and caches an already mapped response as it is, without going through json again.
+     * It is cached under the value of its id column.
+     */
+    private void saveLocally(@Nullable String idColumnName, @NonNull Object item, @NonNull Class dataClass,
+                             boolean saveToDisk, boolean cache) {
+        if (mUtils.withDisk(saveToDisk)) {
+            getWriteBehindBuffer().put(item, dataClass);
+        }
+        if (mUtils.withCache(cache)) {
+            mMemoryStore.cacheModel(idColumnName, item, dataClass);
+        }
+    }
+
     private void saveAllLocally(String idColumnName, Class itemIdType, @NonNull JSONArray jsonArray,
                                 @NonNull Class dataClass, boolean saveToDisk, boolean cache) {
         if (mUtils.withDisk(saveToDisk)) {
-            mDataBaseManager.putAll(jsonArray, idColumnName, itemIdType, dataClass)
-                    .subscribeOn(Config.getBackgroundThread())
-                    .subscribe(new SimpleSubscriber(dataClass));
+            getWriteBehindBuffer().putAll(jsonArray, idColumnName, itemIdType, dataClass);
         }
         if (mUtils.withCache(cache)) {
             mMemoryStore.cacheList(idColumnName, jsonArray, dataClass);
@@ -509,39 +645,11 @@ public class CloudStore implements DataStore {
     private void deleteLocally(List<Long> ids, String idColumnName, Class dataClass,
                                boolean saveToDisk, boolean cache) {
         if (mUtils.withDisk(saveToDisk)) {
-            int collectionSize = ids.size();
-            for (int i = 0; i < collectionSize; i++) {
-                mDataBaseManager.evictById(dataClass, idColumnName, ids.get(i));
-            }
+            getWriteBehindBuffer().flush().blockingGet();
+            mDataBaseManager.evictCollection(idColumnName, ids, dataClass).blockingGet();
         }
         if (mUtils.withCache(cache)) {
             mMemoryStore.deleteList(ids, dataClass);
         }
     }
-
-    private static class SimpleSubscriber implements SingleObserver {
-        private final Class mClass;
-        private Disposable subscription;
-
-        SimpleSubscriber(Class aClass) {
-            mClass = aClass;
-        }
-
-        @Override
-        public void onSubscribe(@NonNull Disposable d) {
-            subscription = d;
-        }
-
-        @Override
-        public void onSuccess(Object o) {
-            subscription.dispose();
-            Log.d(TAG, mClass.getSimpleName() + " persisted!");
-        }
-
-        @Override
-        public void onError(@NonNull Throwable e) {
-            Log.e(TAG, "", e);
-            subscription.dispose();
-        }
-    }
 }
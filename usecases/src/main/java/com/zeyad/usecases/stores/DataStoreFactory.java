@@ -71,7 +71,7 @@ public class DataStoreFactory {
      * Creates a cloud {@link DataStore}.
      */
     @NonNull
-    public DataStore cloud(Class dataClass) {
+    public CloudStore cloud(Class dataClass) {
         if (mCloudStore == null) {
             mCloudStore = new CloudStore(mApiConnection,
                     mDataBaseManagerUtil.getDataBaseManager(dataClass), mDAOMapper, memory(),
@@ -4,6 +4,7 @@ import android.support.annotation.NonNull;
 
 import com.zeyad.usecases.db.DataBaseManager;
 import com.zeyad.usecases.db.RealmQueryProvider;
+import com.zeyad.usecases.metrics.DataServiceMetrics;
 import com.zeyad.usecases.utils.Utils;
 
 import org.json.JSONArray;
@@ -12,14 +13,22 @@ import org.json.JSONObject;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
 import io.reactivex.Single;
 
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.HIT;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.MISS;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.DISK;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Timer.LOAD;
+
 public class DiskStore implements DataStore {
     private static final String IO_DB_ERROR = "Can not file IO to local DB";
     private final DataBaseManager mDataBaseManager;
     private final MemoryStore mMemoryStore;
+    private final DataServiceMetrics mMetrics;
 
     /**
      * Construct a {@link DataStore} based file system data store.
@@ -29,6 +38,7 @@ public class DiskStore implements DataStore {
     DiskStore(DataBaseManager realmManager, MemoryStore memoryStore) {
         mDataBaseManager = realmManager;
         mMemoryStore = memoryStore;
+        mMetrics = DataServiceMetrics.getInstance();
     }
 
     @NonNull
@@ -36,6 +46,7 @@ public class DiskStore implements DataStore {
     public <M> Flowable<M> dynamicGetObject(String url, String idColumnName, Object itemId, Class itemIdType,
                                             @NonNull Class dataClass, boolean persist, boolean shouldCache) {
         return mDataBaseManager.<M>getById(idColumnName, itemId, itemIdType, dataClass)
+                .compose(this.<M>measured(dataClass))
                 .doOnNext(m -> {
                     if (Utils.getInstance().withCache(shouldCache)) {
                         mMemoryStore.cacheObject(idColumnName,
@@ -48,7 +59,7 @@ public class DiskStore implements DataStore {
     @Override
     public <M> Flowable<List<M>> dynamicGetList(
             String url, Class dataClass, boolean persist, boolean shouldCache) {
-        return mDataBaseManager.getAll(dataClass);
+        return mDataBaseManager.<M>getAll(dataClass).compose(this.<List<M>>measured(dataClass));
     }
 
     @NonNull
@@ -156,4 +167,27 @@ public class DiskStore implements DataStore {
             String url, File file, boolean onWifi, boolean whileCharging, boolean queuable) {
         return Flowable.error(new IllegalStateException(IO_DB_ERROR));
     }
+
+    /**
+     * Records the load time, hits and misses of the reads of the class. Reads are live queries, so
+     * only the first result of a subscription is counted, an empty list as a miss.
+     */
+    @NonNull
+    private <T> FlowableTransformer<T, T> measured(@NonNull Class dataClass) {
+        return upstream -> Flowable.defer(() -> {
+            AtomicBoolean counted = new AtomicBoolean();
+            return upstream.compose(mMetrics.<T>timed(DISK, dataClass, LOAD))
+                    .doOnNext(item -> {
+                        if (counted.compareAndSet(false, true)) {
+                            boolean empty = item instanceof List && ((List) item).isEmpty();
+                            mMetrics.increment(DISK, dataClass, empty ? MISS : HIT);
+                        }
+                    })
+                    .doOnError(throwable -> {
+                        if (counted.compareAndSet(false, true)) {
+                            mMetrics.increment(DISK, dataClass, MISS);
+                        }
+                    });
+        });
+    }
 }
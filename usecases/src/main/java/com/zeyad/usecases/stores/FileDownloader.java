@@ -0,0 +1,389 @@
+package com.zeyad.usecases.stores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.zeyad.usecases.network.ApiConnection;
+import com.zeyad.usecases.network.TransferProgress;
+import com.zeyad.usecases.utils.Trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Headers;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Downloads files so that an interrupted download carries on where it stopped.
+ * <p>
+ * The bytes are moved segment by segment from the response into a {@code .part} file next to the
+ * target, which is only renamed to the target once its length, and checksum if given, are verified.
+ * The validator and size of the remote file are kept in a {@code .part.meta} file, so a download
+ * retried, or re-queued and run later, asks for the rest of the file with a {@code Range} guarded by
+ * {@code If-Range}, and only starts over if the file changed meanwhile.
+ * <p>
+ * Large files can also be fetched as several ranges at once, over as many pooled connections, which
+ * multiplies the throughput of links with a high latency.
+ */
+final class FileDownloader {
+    static final long DEFAULT_PROGRESS_STEP = 256 * 1024;
+    private static final String TAG = FileDownloader.class.getSimpleName(), PART = ".part",
+            META = ".part.meta";
+    private static final long SEGMENT_BYTES = 64 * 1024;
+    private static final int ATTEMPTS = 3, HTTP_PARTIAL_CONTENT = 206, HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private final ApiConnection mApiConnection;
+
+    FileDownloader(ApiConnection apiConnection) {
+        mApiConnection = apiConnection;
+    }
+
+    /**
+     * @param progressStep      bytes to transfer between two progress updates.
+     * @param checksumAlgorithm {@link MessageDigest} algorithm of the checksum, null if none.
+     * @param checksum          hex digest the file should have, null to only verify its length.
+     * @return a {@link Flowable} emitting the progress of the download, the last one being done.
+     */
+    @NonNull
+    Flowable<TransferProgress> download(String url, @NonNull File file, long progressStep,
+                                        @Nullable String checksumAlgorithm, @Nullable String checksum) {
+        File part = new File(file.getPath() + PART), meta = new File(file.getPath() + META);
+        return Flowable.defer(() -> {
+            PartMeta partMeta = part.length() > 0 ? readMeta(meta) : null;
+            long offset = partMeta != null && !partMeta.validator.isEmpty() ? part.length() : 0;
+            if (offset > 0) {
+                Trace.d(TAG, "resuming {} from byte {}", file, offset);
+            }
+            return mApiConnection.dynamicDownloadRange(url, offset > 0 ? "bytes=" + offset + "-" : null,
+                    offset > 0 ? partMeta.validator : null)
+                    .concatMap(response -> Flowable.<TransferProgress>create(emitter ->
+                            write(response, file, part, meta, offset > 0 ? partMeta.total : -1, offset,
+                                    progressStep, checksumAlgorithm, checksum, emitter),
+                            BackpressureStrategy.LATEST));
+        }).retry(ATTEMPTS, throwable -> throwable instanceof IOException);
+    }
+
+    /**
+     * Like {@link #download(String, File, long, String, String)}, but fetches the file as that many
+     * byte ranges at once, each written at its offset of a preallocated part file and retried on its
+     * own. Falls back to a single stream if the server does not advertise {@code Accept-Ranges}, or
+     * sends the file encoded, as its {@code Content-Length} is then not the one ranges are counted in.
+     *
+     * @param segments number of ranges to fetch concurrently, 1 for a single stream.
+     */
+    @NonNull
+    Flowable<TransferProgress> download(String url, @NonNull File file, long progressStep,
+                                        @Nullable String checksumAlgorithm, @Nullable String checksum,
+                                        int segments) {
+        if (segments <= 1) {
+            return download(url, file, progressStep, checksumAlgorithm, checksum);
+        }
+        return mApiConnection.dynamicHead(url)
+                .concatMap(head -> {
+                    long total = contentLength(head.headers());
+                    String contentEncoding = head.headers().get("Content-Encoding");
+                    if (!head.isSuccessful() || !"bytes".equalsIgnoreCase(head.headers().get("Accept-Ranges"))
+                            || contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding)
+                            || total < segments) {
+                        Trace.d(TAG, "{} is not served by ranges, downloading it as one stream", url);
+                        return download(url, file, progressStep, checksumAlgorithm, checksum);
+                    }
+                    return downloadSegments(url, file, total, validatorOf(head.headers()), segments,
+                            progressStep, checksumAlgorithm, checksum);
+                });
+    }
+
+    private Flowable<TransferProgress> downloadSegments(String url, File file, long total, String validator,
+                                                        int segments, long progressStep,
+                                                        @Nullable String checksumAlgorithm,
+                                                        @Nullable String checksum) {
+        File part = new File(file.getPath() + PART), meta = new File(file.getPath() + META);
+        long segmentBytes = (total + segments - 1) / segments;
+        int count = (int) ((total + segmentBytes - 1) / segmentBytes);
+        return Flowable.defer(() -> {
+            // the preallocated part file has holes, so it is never resumed as a single stream
+            meta.delete();
+            RandomAccessFile preallocated = new RandomAccessFile(part, "rw");
+            try {
+                preallocated.setLength(total);
+            } finally {
+                preallocated.close();
+            }
+            AtomicLong transferred = new AtomicLong(), reported = new AtomicLong();
+            return Flowable.range(0, count)
+                    .flatMap(segment -> downloadSegment(url, part, validator.isEmpty() ? null : validator,
+                            segment * segmentBytes, Math.min(total, (segment + 1) * segmentBytes) - 1, total)
+                            .subscribeOn(Schedulers.io()), count)
+                    .map(transferred::addAndGet)
+                    .filter(sum -> {
+                        if (sum - reported.get() < progressStep) {
+                            return false;
+                        }
+                        reported.set(sum);
+                        return true;
+                    })
+                    .map(sum -> new TransferProgress(file, sum, total, false))
+                    .startWith(new TransferProgress(file, 0, total, false))
+                    .concatWith(Flowable.fromCallable(() ->
+                            complete(file, part, meta, total, checksumAlgorithm, checksum)));
+        });
+    }
+
+    /**
+     * @return a {@link Flowable} emitting the bytes written by each read of the segment.
+     */
+    private Flowable<Long> downloadSegment(String url, File part, @Nullable String validator, long start,
+                                           long end, long total) {
+        AtomicLong written = new AtomicLong();
+        return Flowable.defer(() -> {
+            long from = start + written.get();
+            return mApiConnection.dynamicDownloadRange(url, "bytes=" + from + "-" + end, validator)
+                    .concatMap(response -> Flowable.<Long>create(emitter ->
+                            writeSegment(response, part, from, end, total, written, emitter),
+                            BackpressureStrategy.BUFFER));
+        }).retry(ATTEMPTS, throwable -> throwable instanceof IOException);
+    }
+
+    private static void writeSegment(Response<ResponseBody> response, File part, long from, long end, long total,
+                                     AtomicLong written, FlowableEmitter<Long> emitter) throws IOException {
+        ResponseBody body = response.body();
+        if (response.code() != HTTP_PARTIAL_CONTENT || body == null) {
+            if (body != null) {
+                body.close();
+            }
+            // the whole file is only sent back for a range once it changed since the download started
+            throw response.isSuccessful() ? new IllegalStateException(part.getName()
+                    + " changed during its download") : new HttpException(response);
+        } else if (rangeStart(response.headers().get("Content-Range")) != from) {
+            body.close();
+            throw new IOException("Unexpected range " + response.headers().get("Content-Range"));
+        }
+        long rangeTotal = rangeTotal(response.headers().get("Content-Range"));
+        if (rangeTotal >= 0 && rangeTotal != total) {
+            body.close();
+            // the part file was preallocated to the announced length, so its length proves nothing
+            throw new IllegalStateException(part.getName() + " is " + rangeTotal + " bytes, not the "
+                    + total + " announced");
+        }
+        byte[] segment = new byte[(int) SEGMENT_BYTES];
+        long position = from;
+        BufferedSource source = body.source();
+        FileChannel channel = new RandomAccessFile(part, "rw").getChannel();
+        try {
+            int read;
+            while (position <= end && !emitter.isCancelled() && (read = source.read(segment, 0,
+                    (int) Math.min(segment.length, end - position + 1))) != -1) {
+                ByteBuffer buffer = ByteBuffer.wrap(segment, 0, read);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                written.addAndGet(read);
+                emitter.onNext((long) read);
+            }
+        } finally {
+            try {
+                channel.close();
+            } finally {
+                body.close();
+            }
+        }
+        if (position <= end && !emitter.isCancelled()) {
+            // the bytes written so far are kept, so the retry asks for the rest of the segment only
+            throw new IOException("Segment " + from + '-' + end + " of " + part.getName() + " ended early");
+        }
+        emitter.onComplete();
+    }
+
+    private void write(Response<ResponseBody> response, File file, File part, File meta, long knownTotal,
+                       long offset, long progressStep, @Nullable String checksumAlgorithm,
+                       @Nullable String checksum, FlowableEmitter<TransferProgress> emitter)
+            throws IOException {
+        ResponseBody body = response.body();
+        if (response.code() == HTTP_RANGE_NOT_SATISFIABLE && offset > 0 && offset == knownTotal) {
+            // the part file already holds the whole file, only its verification was missed
+            emitter.onNext(complete(file, part, meta, knownTotal, checksumAlgorithm, checksum));
+            emitter.onComplete();
+            return;
+        } else if (!response.isSuccessful() || body == null) {
+            if (response.code() == HTTP_RANGE_NOT_SATISFIABLE) {
+                discard(part, meta);
+            }
+            throw new HttpException(response);
+        }
+        long total;
+        boolean append = response.code() == HTTP_PARTIAL_CONTENT;
+        if (append) {
+            String contentRange = response.headers().get("Content-Range");
+            if (rangeStart(contentRange) != offset) {
+                body.close();
+                discard(part, meta);
+                throw new IOException("Unexpected range " + contentRange + " of " + file.getName());
+            }
+            total = rangeTotal(contentRange);
+        } else {
+            // the whole file was sent, as the server ignores ranges or the file changed meanwhile
+            total = body.contentLength();
+            writeMeta(meta, validatorOf(response.headers()), total);
+        }
+        long transferred = append ? offset : 0, reported = transferred;
+        emitter.onNext(new TransferProgress(file, transferred, total, false));
+        BufferedSource source = body.source();
+        BufferedSink sink = Okio.buffer(append ? Okio.appendingSink(part) : Okio.sink(part));
+        try {
+            long read;
+            while (!emitter.isCancelled() && (read = source.read(sink.buffer(), SEGMENT_BYTES)) != -1) {
+                sink.emitCompleteSegments();
+                transferred += read;
+                if (transferred - reported >= progressStep) {
+                    reported = transferred;
+                    emitter.onNext(new TransferProgress(file, transferred, total, false));
+                }
+            }
+        } finally {
+            try {
+                sink.close();
+            } finally {
+                body.close();
+            }
+        }
+        if (!emitter.isCancelled()) {
+            emitter.onNext(complete(file, part, meta, total, checksumAlgorithm, checksum));
+            emitter.onComplete();
+        }
+    }
+
+    @NonNull
+    private static TransferProgress complete(File file, File part, File meta, long total,
+                                             @Nullable String checksumAlgorithm, @Nullable String checksum)
+            throws IOException {
+        long length = part.length();
+        if (total >= 0 && length != total) {
+            if (length > total) {
+                discard(part, meta);
+            }
+            // a short part file is kept, so the retry asks for the missing bytes only
+            throw new IOException("Downloaded " + length + " of " + total + " bytes of " + file.getName());
+        } else if (checksum != null && !checksum.equalsIgnoreCase(digest(part, checksumAlgorithm))) {
+            discard(part, meta);
+            throw new IOException("Checksum mismatch of " + file.getName());
+        } else if ((file.exists() && !file.delete()) || !part.renameTo(file)) {
+            throw new IOException("Could not move " + part + " to " + file);
+        }
+        meta.delete();
+        return new TransferProgress(file, length, length, true);
+    }
+
+    @NonNull
+    static String digest(@NonNull File file, @Nullable String algorithm) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unknown checksum algorithm " + algorithm, e);
+        }
+        byte[] segment = new byte[(int) SEGMENT_BYTES];
+        BufferedSource source = Okio.buffer(Okio.source(file));
+        try {
+            int read;
+            while ((read = source.read(segment)) != -1) {
+                digest.update(segment, 0, read);
+            }
+        } finally {
+            source.close();
+        }
+        return ByteString.of(digest.digest()).hex();
+    }
+
+    @NonNull
+    private static String validatorOf(@NonNull Headers headers) {
+        String eTag = headers.get("ETag");
+        if (eTag != null && !eTag.startsWith("W/")) {
+            return eTag;
+        }
+        String lastModified = headers.get("Last-Modified");
+        return lastModified != null ? lastModified : "";
+    }
+
+    private static long contentLength(@NonNull Headers headers) {
+        try {
+            String contentLength = headers.get("Content-Length");
+            return contentLength != null ? Long.parseLong(contentLength) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long rangeStart(@Nullable String contentRange) {
+        try {
+            return contentRange == null ? -1 : Long.parseLong(contentRange
+                    .substring(contentRange.indexOf(' ') + 1, contentRange.indexOf('-')).trim());
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static long rangeTotal(@NonNull String contentRange) {
+        try {
+            return Long.parseLong(contentRange.substring(contentRange.indexOf('/') + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void writeMeta(File meta, String validator, long total) throws IOException {
+        BufferedSink sink = Okio.buffer(Okio.sink(meta));
+        try {
+            sink.writeUtf8(validator).writeByte('\n').writeDecimalLong(total).writeByte('\n');
+        } finally {
+            sink.close();
+        }
+    }
+
+    @Nullable
+    private static PartMeta readMeta(File meta) {
+        if (!meta.exists()) {
+            return null;
+        }
+        try {
+            BufferedSource source = Okio.buffer(Okio.source(meta));
+            try {
+                return new PartMeta(source.readUtf8LineStrict(), Long.parseLong(source.readUtf8LineStrict()));
+            } finally {
+                source.close();
+            }
+        } catch (IOException | NumberFormatException e) {
+            Trace.w(TAG, "unreadable {}, downloading from scratch", meta);
+            return null;
+        }
+    }
+
+    private static void discard(File part, File meta) {
+        part.delete();
+        meta.delete();
+    }
+
+    private static final class PartMeta {
+        final String validator;
+        final long total;
+
+        PartMeta(String validator, long total) {
+            this.validator = validator;
+            this.total = total;
+        }
+    }
+}
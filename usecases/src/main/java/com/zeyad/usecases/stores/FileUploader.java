@@ -0,0 +1,165 @@
+package com.zeyad.usecases.stores;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.zeyad.usecases.network.ApiConnection;
+import com.zeyad.usecases.network.FileRequestBody;
+import com.zeyad.usecases.network.TransferProgress;
+import com.zeyad.usecases.utils.Trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Flowable;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okio.ByteString;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Uploads files in chunks through the <a href="https://tus.io/protocols/resumable-upload.html">tus</a>
+ * resumable upload protocol.
+ * <p>
+ * An upload session is opened for the file, then the file is appended to it chunk after chunk, each
+ * at the offset acknowledged for the previous one. Sessions are remembered by url and file, so an
+ * upload retried, or re-queued and run later by the same process, asks the session how much it
+ * already holds and only sends the rest.
+ */
+final class FileUploader {
+    private static final String TAG = FileUploader.class.getSimpleName(), TUS_RESUMABLE = "Tus-Resumable",
+            TUS_VERSION = "1.0.0", UPLOAD_OFFSET = "Upload-Offset", UPLOAD_LENGTH = "Upload-Length",
+            UPLOAD_METADATA = "Upload-Metadata";
+    private static final MediaType OFFSET_OCTET_STREAM = MediaType.parse("application/offset+octet-stream");
+    private static final int ATTEMPTS = 3, HTTP_NOT_FOUND = 404, HTTP_CONFLICT = 409,
+            HTTP_GONE = 410;
+    private final ApiConnection mApiConnection;
+    private final Map<String, String> mSessions = new ConcurrentHashMap<>();
+
+    FileUploader(ApiConnection apiConnection) {
+        mApiConnection = apiConnection;
+    }
+
+    /**
+     * @param parameters   sent along as the metadata of the upload.
+     * @param chunkSize    bytes to send by request.
+     * @param listener     told of the bytes sent so far every progress step.
+     * @param progressStep bytes to send between two progress updates.
+     * @return a {@link Flowable} emitting the offset acknowledged after each chunk, completing once
+     * the server holds the whole file.
+     */
+    @NonNull
+    Flowable<Long> upload(String url, @NonNull File file, @Nullable Map<String, Object> parameters,
+                          long chunkSize, @Nullable TransferProgress.Listener listener, long progressStep) {
+        long total = file.length();
+        String sessionKey = url + '|' + file.getPath() + '|' + total + '|' + file.lastModified();
+        return Flowable.defer(() -> {
+            String session = mSessions.get(sessionKey);
+            if (session == null) {
+                return openSession(url, file, parameters, total)
+                        .doOnNext(opened -> mSessions.put(sessionKey, opened))
+                        .concatMap(opened -> uploadChunks(opened, file, 0, total, chunkSize, listener,
+                                progressStep));
+            }
+            return getOffset(session, sessionKey)
+                    .doOnNext(offset -> Trace.d(TAG, "resuming the upload of {} from byte {}", file, offset))
+                    .concatMap(offset -> uploadChunks(session, file, offset, total, chunkSize, listener,
+                            progressStep));
+        }).retry(ATTEMPTS, throwable -> throwable instanceof IOException)
+                .doOnComplete(() -> mSessions.remove(sessionKey));
+    }
+
+    private Flowable<String> openSession(String url, File file, @Nullable Map<String, Object> parameters,
+                                         long total) {
+        Map<String, String> headers = headers();
+        headers.put(UPLOAD_LENGTH, String.valueOf(total));
+        headers.put(UPLOAD_METADATA, metadata(file, parameters));
+        return mApiConnection.dynamicUploadSession(url, headers)
+                .map(response -> {
+                    String location = response.headers().get("Location");
+                    if (!response.isSuccessful()) {
+                        throw new HttpException(response);
+                    } else if (location == null) {
+                        throw new IllegalStateException("No upload session was opened at " + url);
+                    }
+                    HttpUrl sessionUrl = HttpUrl.parse(url);
+                    return sessionUrl != null ? sessionUrl.resolve(location).toString() : location;
+                });
+    }
+
+    private Flowable<Long> getOffset(String session, String sessionKey) {
+        return mApiConnection.dynamicUploadOffset(session, headers())
+                .map(response -> {
+                    if (response.code() == HTTP_NOT_FOUND || response.code() == HTTP_GONE) {
+                        // the retry opens a new session
+                        mSessions.remove(sessionKey);
+                        throw new IOException("Upload session " + session + " expired");
+                    }
+                    return acknowledgedOffset(response);
+                });
+    }
+
+    private Flowable<Long> uploadChunks(String session, File file, long from, long total, long chunkSize,
+                                        @Nullable TransferProgress.Listener listener, long progressStep) {
+        if (from >= total) {
+            return Flowable.empty();
+        }
+        AtomicLong offset = new AtomicLong(from);
+        return Flowable.defer(() -> {
+            long position = offset.get();
+            Map<String, String> headers = headers();
+            headers.put(UPLOAD_OFFSET, String.valueOf(position));
+            return mApiConnection.dynamicUploadChunk(session, headers, new FileRequestBody(OFFSET_OCTET_STREAM,
+                    file, position, Math.min(chunkSize, total - position), listener, progressStep))
+                    .map(response -> {
+                        if (response.code() == HTTP_CONFLICT) {
+                            // the offset moved on since, as a chunk whose reply was lost got through
+                            throw new IOException("Offset " + position + " of " + session + " is stale");
+                        }
+                        long acknowledged = acknowledgedOffset(response);
+                        if (acknowledged <= position) {
+                            throw new IOException("Chunk at " + position + " of " + file.getName()
+                                    + " was not acknowledged");
+                        }
+                        offset.set(acknowledged);
+                        return acknowledged;
+                    });
+        }).repeatUntil(() -> offset.get() >= total);
+    }
+
+    private static long acknowledgedOffset(Response<Void> response) {
+        String offset = response.headers().get(UPLOAD_OFFSET);
+        if (!response.isSuccessful() || offset == null) {
+            throw new HttpException(response);
+        }
+        return Long.parseLong(offset);
+    }
+
+    @NonNull
+    private static Map<String, String> headers() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(TUS_RESUMABLE, TUS_VERSION);
+        return headers;
+    }
+
+    /**
+     * @return the name of the file and the parameters, as comma separated keys and base64 values.
+     */
+    @NonNull
+    private static String metadata(File file, @Nullable Map<String, Object> parameters) {
+        StringBuilder metadata = new StringBuilder("filename ")
+                .append(ByteString.encodeUtf8(file.getName()).base64());
+        if (parameters != null) {
+            for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+                metadata.append(',').append(entry.getKey()).append(' ')
+                        .append(ByteString.encodeUtf8(String.valueOf(entry.getValue())).base64());
+            }
+        }
+        return metadata.toString();
+    }
+}
@@ -1,126 +1,396 @@
 package com.zeyad.usecases.stores;
 
 import android.support.annotation.NonNull;
-import android.util.Log;
+import android.support.annotation.Nullable;
 
 import com.google.gson.Gson;
 import com.zeyad.usecases.Config;
-import com.zeyad.usecases.utils.Utils;
+import com.zeyad.usecases.cache.CacheKey;
+import com.zeyad.usecases.cache.CachePolicy;
+import com.zeyad.usecases.cache.CachedList;
+import com.zeyad.usecases.cache.ObjectCache;
+import com.zeyad.usecases.metrics.DataServiceMetrics;
+import com.zeyad.usecases.utils.Trace;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import io.reactivex.Observable;
 import io.reactivex.Single;
-import st.lowlevel.storo.Storo;
 
-import static st.lowlevel.storo.Storo.get;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.EVICTION;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.HIT;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.MISS;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.MEMORY;
 
 /**
  * @author by ZIaDo on 6/5/17.
  */
 public class MemoryStore {
+    private static final String TAG = "MemoryStore", CACHE_MISS = "Cache Miss!";
+    private static final int DEFAULT_CACHE_SIZE = 8192, STRIPES = 64, HEADER_WEIGHT = 16, FIELD_WEIGHT = 16;
     private final Gson gson;
-    private final Map<Class, Set<String>> mapOfIds;
+    private final ConcurrentMap<Class, Set<CacheKey>> mapOfIds;
+    /**
+     * Held for writing while a list is cached or deleted, and for reading while the keys of its
+     * class are copied, so a reader never takes half a list for a complete one.
+     */
+    private final ConcurrentMap<Class, ReadWriteLock> listLocks;
+    private final ObjectCache<CacheKey, Object> cache;
+    private final Map<Class, CachePolicy> policies;
+    /**
+     * Caches of their own for the classes whose policy bounds their entries or bytes.
+     */
+    private final ConcurrentMap<Class, ObjectCache<CacheKey, Object>> classCaches;
+    /**
+     * Weight per class of the objects cached as they are, worked out once from its fields.
+     */
+    private final ConcurrentMap<Class, Integer> modelWeights;
+    /**
+     * Per class, a time no later than the write of any of its cached objects, so most refresh
+     * checks of a whole class do not have to look at every one of them.
+     */
+    private final ConcurrentMap<Class, Long> oldestWrites;
+    /**
+     * Pairs the cache write and the index update of a key, so a racing cache and delete of the same
+     * id can not leave a cached object missing from the index or the other way around.
+     */
+    private final Object[] locks;
+    private final DataServiceMetrics metrics;
+    private final ObjectCache.EvictionListener<CacheKey> evictionListener;
+    private final ObjectCache.ExpiryListener<CacheKey> expiryListener;
 
     MemoryStore(Gson gson) {
+        this(gson, new ObjectCache<>(getMaxSize(), getMaxWeight(), getExpiryNanos()), Config.getCachePolicies());
+    }
+
+    MemoryStore(Gson gson, ObjectCache<CacheKey, Object> cache) {
+        this(gson, cache, Collections.emptyMap());
+    }
+
+    MemoryStore(Gson gson, ObjectCache<CacheKey, Object> cache, @NonNull Map<Class, CachePolicy> policies) {
         this.gson = gson;
-        mapOfIds = new HashMap<>();
+        this.cache = cache;
+        this.policies = policies;
+        mapOfIds = new ConcurrentHashMap<>();
+        listLocks = new ConcurrentHashMap<>();
+        modelWeights = new ConcurrentHashMap<>();
+        oldestWrites = new ConcurrentHashMap<>();
+        classCaches = new ConcurrentHashMap<>();
+        metrics = DataServiceMetrics.getInstance();
+        // keys dropped by the cache leave the index too, so it only ever holds cached objects
+        evictionListener = key -> {
+            metrics.increment(MEMORY, key.getDataClass(), EVICTION);
+            removeKey(key.getDataClass(), key);
+        };
+        expiryListener = key -> removeKey(key.getDataClass(), key);
+        cache.setEvictionListener(evictionListener);
+        cache.setExpiryListener(expiryListener);
+        locks = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
     }
 
-    public <M> Single<M> getItem(String itemId, @NonNull Class dataClass) {
-        String key = dataClass.getSimpleName() + itemId;
-        return Single.defer(() -> {
-            if (isValid(key)) {
-                return Utils.getInstance().<M>toFlowable(get(key, dataClass).async())
-                        .firstElement().toSingle();
-            } else {
-                return Single.error(new IllegalAccessException("Cache Miss!"));
+    private static int getMaxSize() {
+        return Config.getCacheSize() > 0 ? Config.getCacheSize() : DEFAULT_CACHE_SIZE;
+    }
+
+    private static long getMaxWeight() {
+        return Config.getCacheMaxBytes() > 0 ? Config.getCacheMaxBytes() : Runtime.getRuntime().maxMemory() / 8;
+    }
+
+    private static long getExpiryNanos() {
+        TimeUnit timeUnit = Config.getCacheTimeUnit();
+        return timeUnit != null ? timeUnit.toNanos(Config.getCacheAmount()) : 0;
+    }
+
+    /**
+     * Rough heap footprint of an object decoded from the given json, used as its cache weight.
+     */
+    private static int estimateWeight(String json) {
+        return json.length() << 1;
+    }
+
+    /**
+     * Rough heap footprint of an object of the class, a header plus a slot for each of its instance
+     * fields, as its actual size is only known by serializing it.
+     */
+    private int estimateWeight(Class dataClass) {
+        Integer weight = modelWeights.get(dataClass);
+        if (weight == null) {
+            int fields = 0;
+            for (Class type = dataClass; type != null && type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fields++;
+                    }
+                }
             }
+            weight = HEADER_WEIGHT + FIELD_WEIGHT * fields;
+            modelWeights.putIfAbsent(dataClass, weight);
+        }
+        return weight;
+    }
+
+    public <M> Single<M> getItem(Object itemId, @NonNull Class dataClass) {
+        return Single.defer(() -> {
+            M item = itemId != null ? (M) cacheFor(dataClass).get(CacheKey.of(dataClass, itemId)) : null;
+            metrics.increment(MEMORY, dataClass, item != null ? HIT : MISS);
+            return item != null ? Single.just(item) : Single.error(new IllegalAccessException(CACHE_MISS));
         });
     }
 
+    /**
+     * Gets all the cached items of the class, failing with a cache miss if any of them expired.
+     */
     public <M> Single<List<M>> getAllItems(@NonNull Class<M> dataClass) {
-        final boolean[] missed = new boolean[1];
-        Set<String> stringSet = mapOfIds.get(dataClass);
-        if (stringSet == null)
-            return Single.error(new IllegalAccessException("Cache Miss!"));
-        List<M> result = Observable.fromIterable(stringSet)
-                .filter((key) -> {
-                    if (isValid(key))
-                        return true;
-                    else {
-                        missed[0] = true;
-                        return false;
-                    }
-                })
-                .filter(s -> !missed[0])
-                .map(key -> Storo.get(key, dataClass).execute())
-                .toList(missed[0] ? 0 : stringSet.size())
-                .blockingGet();
-        return missed[0] ? Single.error(new IllegalAccessException("Cache Miss!")) : Single.just(result);
+        return this.<M>getAllItemsPartially(dataClass)
+                .flatMap(cachedList -> cachedList.isComplete() ? Single.just(cachedList.getItems()) :
+                        Single.error(new IllegalAccessException(CACHE_MISS)));
+    }
+
+    /**
+     * Gets the cached items of the class that are still valid, along with the ids of the ones that
+     * expired, failing with a cache miss only if none is valid.
+     */
+    public <M> Single<CachedList<M>> getAllItemsPartially(@NonNull Class dataClass) {
+        return Single.defer(() -> {
+            List<CacheKey> keys;
+            Lock readLock = listLockFor(dataClass).readLock();
+            readLock.lock();
+            try {
+                Set<CacheKey> keySet = mapOfIds.get(dataClass);
+                keys = keySet != null ? new ArrayList<>(keySet) : Collections.emptyList();
+            } finally {
+                readLock.unlock();
+            }
+            int size = keys.size();
+            List<M> result = new ArrayList<>(size);
+            List<Object> missingIds = new ArrayList<>();
+            ObjectCache<CacheKey, Object> cache = cacheFor(dataClass);
+            for (int i = 0; i < size; i++) {
+                CacheKey key = keys.get(i);
+                M item = (M) cache.get(key);
+                if (item == null) {
+                    // expired since it was indexed, which also dropped it from the index
+                    missingIds.add(key.getId());
+                } else {
+                    result.add(item);
+                }
+            }
+            metrics.add(MEMORY, dataClass, HIT, result.size());
+            metrics.add(MEMORY, dataClass, MISS, result.isEmpty() ? Math.max(1, missingIds.size()) :
+                    missingIds.size());
+            return result.isEmpty() ? Single.error(new IllegalAccessException(CACHE_MISS)) :
+                    Single.just(new CachedList<>(result, missingIds));
+        });
+    }
+
+    /**
+     * @return whether objects of the class may be cached, as per its {@link CachePolicy}.
+     */
+    public boolean isCacheable(@NonNull Class dataClass) {
+        CachePolicy policy = policies.get(dataClass);
+        return policy == null || policy.isCacheable();
+    }
+
+    /**
+     * Tells whether cached objects of the class are due for a refresh, as per its
+     * {@link CachePolicy}. Such objects are still valid, but should be reloaded in the background.
+     *
+     * @param itemId id of the object to check, or null to check if any of them is due.
+     */
+    public boolean needsRefresh(@NonNull Class dataClass, @Nullable Object itemId) {
+        CachePolicy policy = policies.get(dataClass);
+        long refreshAfterWrite = policy != null ? policy.getRefreshAfterWriteNanos() : 0;
+        if (refreshAfterWrite <= 0) {
+            return false;
+        }
+        ObjectCache<CacheKey, Object> cache = cacheFor(dataClass);
+        if (itemId != null) {
+            return cache.ageNanos(CacheKey.of(dataClass, itemId)) >= refreshAfterWrite;
+        }
+        Long oldestWrite = oldestWrites.get(dataClass);
+        long now = cache.nowNanos();
+        if (oldestWrite == null || now - oldestWrite < refreshAfterWrite) {
+            return false;
+        }
+        Set<CacheKey> keys = mapOfIds.get(dataClass);
+        long maxAge = keys != null ? cache.maxAgeNanos(keys) : -1;
+        // narrowed to the oldest object left, so the next scan waits until that one is due
+        oldestWrites.replace(dataClass, oldestWrite, maxAge < 0 ? now : now - maxAge);
+        return maxAge >= refreshAfterWrite;
     }
 
     void cacheObject(String idColumnName, @NonNull JSONObject jsonObject, @NonNull Class dataClass) {
-        String className = dataClass.getSimpleName();
-        String key = className + jsonObject.optString(idColumnName);
-        Storo.put(key, gson.fromJson(jsonObject.toString(), dataClass))
-                .setExpiry(Config.getCacheAmount(), Config.getCacheTimeUnit())
-                .execute();
-        addKey(dataClass, key);
-        Log.d("MemoryStore", className + " cached!, id = " + key);
+        if (!isCacheable(dataClass)) {
+            return;
+        }
+        Object id = jsonObject.opt(idColumnName);
+        if (id == null || id == JSONObject.NULL) {
+            Trace.w(TAG, "{} not cached, as it has no {}", dataClass, idColumnName);
+            return;
+        }
+        CacheKey key = CacheKey.of(dataClass, id);
+        String json = jsonObject.toString();
+        int weight = estimateWeight(json);
+        cache(key, gson.fromJson(json, dataClass), weight);
+    }
+
+    /**
+     * Caches an already mapped object as it is, under the value of its id column, so callers share
+     * the instance with the cache.
+     */
+    void cacheModel(@Nullable String idColumnName, @NonNull Object item, @NonNull Class dataClass) {
+        if (!isCacheable(dataClass)) {
+            return;
+        }
+        Object id = idColumnName != null ? idOf(item, idColumnName) : null;
+        if (id == null) {
+            Trace.w(TAG, "{} not cached, as it has no {}", dataClass, idColumnName);
+        } else {
+            cache(CacheKey.of(dataClass, id), item, estimateWeight(dataClass));
+        }
+    }
+
+    @Nullable
+    private static Object idOf(Object item, String idColumnName) {
+        for (Class type = item.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(idColumnName);
+                field.setAccessible(true);
+                return field.get(item);
+            } catch (NoSuchFieldException e) {
+                // declared by a super class, if at all
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void cache(CacheKey key, Object item, int weight) {
+        Class dataClass = key.getDataClass();
+        CachePolicy policy = policies.get(dataClass);
+        ObjectCache<CacheKey, Object> cache = cacheFor(dataClass);
+        oldestWrites.putIfAbsent(dataClass, cache.nowNanos());
+        boolean admitted;
+        synchronized (lockFor(key)) {
+            // the cache locks on itself, so no eviction can drop the key between its write and indexing
+            synchronized (cache) {
+                admitted = policy != null && policy.getTimeToLiveNanos() > 0 ?
+                        cache.put(key, item, weight, policy.getTimeToLiveNanos()) :
+                        cache.put(key, item, weight);
+                if (admitted) {
+                    addKey(dataClass, key);
+                }
+            }
+        }
+        Trace.d(TAG, "{} {}, id = {}", dataClass, admitted ? "cached!" : "not admitted", key);
     }
 
     void deleteList(List<Long> ids, @NonNull Class dataClass) {
-        String className = dataClass.getSimpleName();
-        Observable.fromIterable(ids)
-                .map(id -> className + String.valueOf(id))
-                .filter((key) -> {
-                    if (isValid(key))
-                        return true;
-                    else {
-                        removeKey(dataClass, key);
-                        return false;
-                    }
-                })
-                .doOnEach(stringNotification -> {
-                    String key = stringNotification.getValue();
+        ObjectCache<CacheKey, Object> cache = cacheFor(dataClass);
+        Lock writeLock = listLockFor(dataClass).writeLock();
+        writeLock.lock();
+        try {
+            int size = ids.size();
+            for (int i = 0; i < size; i++) {
+                CacheKey key = CacheKey.of(dataClass, (long) ids.get(i));
+                boolean deleted;
+                synchronized (lockFor(key)) {
+                    deleted = cache.remove(key) != null;
                     removeKey(dataClass, key);
-                    Log.d("MemoryStore", className + " " + (Storo.delete(key) ? "" : "not ") +
-                            "deleted!, id = " + key);
-                })
-                .blockingSubscribe();
+                }
+                Trace.d(TAG, "{} {}deleted!, id = {}", dataClass, deleted ? "" : "not ", key);
+            }
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     void cacheList(String idColumnName, @NonNull JSONArray jsonArray, @NonNull Class dataClass) {
-        int size = jsonArray.length();
-        for (int i = 0; i < size; i++) {
-            cacheObject(idColumnName, jsonArray.optJSONObject(i), dataClass);
+        if (!isCacheable(dataClass)) {
+            return;
+        }
+        Lock writeLock = listLockFor(dataClass).writeLock();
+        writeLock.lock();
+        try {
+            int size = jsonArray.length();
+            for (int i = 0; i < size; i++) {
+                cacheObject(idColumnName, jsonArray.optJSONObject(i), dataClass);
+            }
+        } finally {
+            writeLock.unlock();
         }
     }
 
-    private void addKey(Class dataType, String key) {
-        if (!mapOfIds.containsKey(dataType)) {
-            mapOfIds.put(dataType, new HashSet<>(Collections.singleton(key)));
-        } else {
-            mapOfIds.get(dataType).add(key);
+    private ObjectCache<CacheKey, Object> cacheFor(Class dataClass) {
+        CachePolicy policy = policies.get(dataClass);
+        if (policy == null || policy.getMaxEntries() <= 0 && policy.getMaxBytes() <= 0) {
+            return cache;
+        }
+        ObjectCache<CacheKey, Object> classCache = classCaches.get(dataClass);
+        if (classCache == null) {
+            ObjectCache<CacheKey, Object> newCache = new ObjectCache<>(
+                    policy.getMaxEntries() > 0 ? policy.getMaxEntries() : getMaxSize(),
+                    policy.getMaxBytes() > 0 ? policy.getMaxBytes() : getMaxWeight(), getExpiryNanos());
+            newCache.setEvictionListener(evictionListener);
+            newCache.setExpiryListener(expiryListener);
+            classCache = classCaches.putIfAbsent(dataClass, newCache);
+            if (classCache == null) {
+                classCache = newCache;
+            }
         }
+        return classCache;
     }
 
-    private void removeKey(Class dataType, String key) {
-        if (mapOfIds.containsKey(dataType)) {
-            mapOfIds.get(dataType).remove(key);
+    private ReadWriteLock listLockFor(Class dataClass) {
+        ReadWriteLock lock = listLocks.get(dataClass);
+        if (lock == null) {
+            ReadWriteLock newLock = new ReentrantReadWriteLock();
+            lock = listLocks.putIfAbsent(dataClass, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    private Object lockFor(CacheKey key) {
+        return locks[key.hashCode() & (STRIPES - 1)];
+    }
+
+    private void addKey(Class dataType, CacheKey key) {
+        Set<CacheKey> keys = mapOfIds.get(dataType);
+        if (keys == null) {
+            Set<CacheKey> newKeys = Collections.newSetFromMap(new ConcurrentHashMap<>());
+            keys = mapOfIds.putIfAbsent(dataType, newKeys);
+            if (keys == null) {
+                keys = newKeys;
+            }
         }
+        keys.add(key);
     }
 
-    private boolean isValid(String key) {
-        return Storo.contains(key) && !Storo.hasExpired(key).execute();
+    private void removeKey(Class dataType, CacheKey key) {
+        Set<CacheKey> keys = mapOfIds.get(dataType);
+        if (keys != null) {
+            keys.remove(key);
+        }
     }
 }
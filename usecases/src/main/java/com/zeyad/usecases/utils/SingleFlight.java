@@ -0,0 +1,102 @@
+package com.zeyad.usecases.utils;
+
+import android.support.annotation.NonNull;
+
+import com.zeyad.usecases.metrics.DataServiceMetrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Flowable;
+import io.reactivex.functions.Action;
+
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.COALESCED_CALL;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.CLOUD;
+
+/**
+ * Coalesces identical in-flight GETs, keyed by url, data class, result type and whether the
+ * response is persisted and cached, into one upstream call. A call that skips saving its response
+ * is never joined by one expecting it saved, and vice versa.
+ * <p>
+ * The first caller's {@link Flowable} is shared through {@link ReplayingShare}, so callers joining
+ * while it runs get its last value replayed instead of firing their own request, mapping and
+ * persisting the same response again. The entry is dropped as soon as the upstream terminates,
+ * before its subscribers are told, or once they all cancel, so the next call after that hits the
+ * network again instead of joining a finished call.
+ */
+public final class SingleFlight {
+    private static final String TAG = "SingleFlight";
+    private final ConcurrentMap<Key, Flowable> inFlight;
+    private final AtomicLong savedCalls;
+
+    public SingleFlight() {
+        inFlight = new ConcurrentHashMap<>();
+        savedCalls = new AtomicLong();
+    }
+
+    /**
+     * @param resultType  type of the items emitted, telling apart calls to the same url that decode
+     *                    its response differently, like a list and a single object.
+     * @param persist     whether the upstream saves its response to disk.
+     * @param shouldCache whether the upstream caches its response in memory.
+     * @return a Flowable that, once subscribed, joins the in-flight call with the same key or starts
+     * the given upstream as the new one.
+     */
+    @NonNull
+    public <T> Flowable<T> share(@NonNull String url, @NonNull Class dataClass, @NonNull Class resultType,
+                                 boolean persist, boolean shouldCache, @NonNull Flowable<T> upstream) {
+        Key key = new Key(url, dataClass, resultType, persist, shouldCache);
+        return Flowable.defer(() -> {
+            Flowable[] flight = new Flowable[1];
+            Action land = () -> inFlight.remove(key, flight[0]);
+            flight[0] = upstream.doOnTerminate(land)
+                    .doOnCancel(land)
+                    .compose(ReplayingShare.instance());
+            Flowable<T> existing = inFlight.putIfAbsent(key, flight[0]);
+            if (existing != null) {
+                DataServiceMetrics.getInstance().increment(CLOUD, dataClass, COALESCED_CALL);
+                Trace.d(TAG, "Joined in-flight {}, duplicate calls saved: {}", url,
+                        savedCalls.incrementAndGet());
+                return existing;
+            }
+            return flight[0];
+        });
+    }
+
+    /**
+     * @return number of calls that joined an in-flight one instead of hitting the upstream.
+     */
+    public long getSavedCallCount() {
+        return savedCalls.get();
+    }
+
+    private static final class Key {
+        private final String url;
+        private final Class dataClass, resultType;
+        private final boolean persist, shouldCache;
+
+        Key(String url, Class dataClass, Class resultType, boolean persist, boolean shouldCache) {
+            this.url = url;
+            this.dataClass = dataClass;
+            this.resultType = resultType;
+            this.persist = persist;
+            this.shouldCache = shouldCache;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return dataClass == key.dataClass && resultType == key.resultType && persist == key.persist
+                    && shouldCache == key.shouldCache && url.equals(key.url);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 31 * (31 * url.hashCode() + dataClass.hashCode()) + resultType.hashCode();
+            return 31 * (31 * result + (persist ? 1 : 0)) + (shouldCache ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.zeyad.usecases.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+/**
+ * Levelled tracing of the library.
+ * <p>
+ * Messages are templates with a {@code {}} per argument, formatted only once a trace passes the
+ * level, so a disabled trace costs a field read and a comparison instead of building its string.
+ * Classes passed as arguments are printed by their simple name. Only warnings and errors are traced
+ * by default.
+ */
+public final class Trace {
+    /**
+     * Level above every {@link Log} priority, turning all the traces off.
+     */
+    public static final int OFF = Integer.MAX_VALUE;
+    private static final Object[] NO_ARGS = new Object[0];
+    private static volatile Tracer sTracer = Tracer.LOGCAT;
+    private static volatile int sLevel = Log.WARN;
+
+    private Trace() {
+    }
+
+    public static void setTracer(@NonNull Tracer tracer) {
+        sTracer = tracer;
+    }
+
+    /**
+     * @param level the lowest {@link Log} priority to trace, or {@link #OFF}.
+     */
+    public static void setLevel(int level) {
+        sLevel = level;
+    }
+
+    public static int getLevel() {
+        return sLevel;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= sLevel;
+    }
+
+    public static void d(@NonNull String tag, @NonNull String message) {
+        if (isLoggable(Log.DEBUG)) {
+            sTracer.trace(Log.DEBUG, tag, message, NO_ARGS, null);
+        }
+    }
+
+    public static void d(@NonNull String tag, @NonNull String template, Object arg) {
+        if (isLoggable(Log.DEBUG)) {
+            sTracer.trace(Log.DEBUG, tag, template, new Object[]{arg}, null);
+        }
+    }
+
+    public static void d(@NonNull String tag, @NonNull String template, Object arg1, Object arg2) {
+        if (isLoggable(Log.DEBUG)) {
+            sTracer.trace(Log.DEBUG, tag, template, new Object[]{arg1, arg2}, null);
+        }
+    }
+
+    public static void d(@NonNull String tag, @NonNull String template, Object arg1, Object arg2,
+                         Object arg3) {
+        if (isLoggable(Log.DEBUG)) {
+            sTracer.trace(Log.DEBUG, tag, template, new Object[]{arg1, arg2, arg3}, null);
+        }
+    }
+
+    public static void i(@NonNull String tag, @NonNull String template, Object... args) {
+        if (isLoggable(Log.INFO)) {
+            sTracer.trace(Log.INFO, tag, template, args, null);
+        }
+    }
+
+    public static void w(@NonNull String tag, @NonNull String template, Object... args) {
+        if (isLoggable(Log.WARN)) {
+            sTracer.trace(Log.WARN, tag, template, args, null);
+        }
+    }
+
+    public static void e(@NonNull String tag, @NonNull String message, @Nullable Throwable throwable) {
+        if (isLoggable(Log.ERROR)) {
+            sTracer.trace(Log.ERROR, tag, message, NO_ARGS, throwable);
+        }
+    }
+
+    public static void e(@NonNull String tag, @NonNull String template, Object arg,
+                         @Nullable Throwable throwable) {
+        if (isLoggable(Log.ERROR)) {
+            sTracer.trace(Log.ERROR, tag, template, new Object[]{arg}, throwable);
+        }
+    }
+
+    /**
+     * Replaces each {@code {}} of the template with the next argument, leaving the extra ones as
+     * they are.
+     */
+    @NonNull
+    public static String format(@NonNull String template, @NonNull Object[] args) {
+        if (args.length == 0) {
+            return template;
+        }
+        StringBuilder builder = new StringBuilder(template.length() + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            int placeholder = template.indexOf("{}", start);
+            if (placeholder < 0) {
+                break;
+            }
+            builder.append(template, start, placeholder)
+                    .append(arg instanceof Class ? ((Class) arg).getSimpleName() : String.valueOf(arg));
+            start = placeholder + 2;
+        }
+        return builder.append(template, start, template.length()).toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.zeyad.usecases.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+/**
+ * Destination of the traces of the library, set through {@link Trace#setTracer(Tracer)}.
+ * <p>
+ * Only traces at or above the {@link Trace} level reach a tracer, with the message template and its
+ * arguments kept apart, so a tracer can record them as structured events or format them with
+ * {@link Trace#format(String, Object[])}.
+ */
+public interface Tracer {
+
+    /**
+     * Formats the traces and hands them to logcat.
+     */
+    Tracer LOGCAT = (level, tag, template, args, throwable) -> {
+        String message = Trace.format(template, args);
+        Log.println(level, tag, throwable != null ? message + '\n' + Log.getStackTraceString(throwable) :
+                message);
+    };
+
+    /**
+     * @param level     one of the {@link Log} priorities.
+     * @param template  message with a {@code {}} in place of each of the arguments.
+     * @param args      arguments of the template, possibly empty.
+     * @param throwable error the trace is about, if any.
+     */
+    void trace(int level, @NonNull String tag, @NonNull String template, @NonNull Object[] args,
+               @Nullable Throwable throwable);
+}
@@ -8,7 +8,6 @@ import android.os.Build;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.util.Log;
 
 import com.firebase.jobdispatcher.Constraint;
 import com.firebase.jobdispatcher.FirebaseJobDispatcher;
@@ -16,6 +15,7 @@ import com.firebase.jobdispatcher.Lifetime;
 import com.firebase.jobdispatcher.RetryStrategy;
 import com.firebase.jobdispatcher.Trigger;
 import com.zeyad.usecases.Config;
+import com.zeyad.usecases.metrics.DataServiceMetrics;
 import com.zeyad.usecases.requests.FileIORequest;
 import com.zeyad.usecases.requests.PostRequest;
 import com.zeyad.usecases.services.GenericJobService;
@@ -32,6 +32,9 @@ import io.reactivex.Flowable;
 import retrofit2.HttpException;
 import rx.Observable;
 
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.QUEUED_JOB;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.CLOUD;
+
 public class Utils {
 
     private static Utils instance;
@@ -87,7 +90,8 @@ public class Utils {
                 .setConstraints(Constraint.ON_ANY_NETWORK, Constraint.DEVICE_CHARGING)
                 .setExtras(extras)
                 .build());
-        Log.d("FBJD", postRequest.getMethod() + " request is queued successfully!");
+        DataServiceMetrics.getInstance().increment(CLOUD, postRequest.getRequestType(), QUEUED_JOB);
+        Trace.d("FBJD", "{} request is queued successfully!", postRequest.getMethod());
     }
 
     public void queueFileIOCore(@NonNull FirebaseJobDispatcher dispatcher, boolean isDownload,
@@ -107,8 +111,8 @@ public class Utils {
                         fileIORequest.isWhileCharging() ? Constraint.DEVICE_CHARGING : 0)
                 .setExtras(extras)
                 .build());
-        Log.d("FBJD", String.format("%s file request is queued successfully!", isDownload ?
-                "Download" : "Upload"));
+        DataServiceMetrics.getInstance().increment(CLOUD, fileIORequest.getDataClass(), QUEUED_JOB);
+        Trace.d("FBJD", "{} file request is queued successfully!", isDownload ? "Download" : "Upload");
     }
 
     public List<Long> convertToListOfId(@Nullable JSONArray jsonArray) {
@@ -125,7 +129,7 @@ public class Utils {
                 try {
                     idList.add(jsonArray.getLong(i));
                 } catch (JSONException e) {
-                    Log.e("Utils", "convertToListOfId", e);
+                    Trace.e("Utils", "convertToListOfId", e);
                 }
             }
         }
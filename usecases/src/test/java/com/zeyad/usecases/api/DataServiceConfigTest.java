@@ -3,8 +3,13 @@ package com.zeyad.usecases.api;
 import android.content.Context;
 import android.os.HandlerThread;
 import android.support.test.rule.BuildConfig;
+import android.util.Log;
 
+import com.zeyad.usecases.TestRealmModel;
+import com.zeyad.usecases.cache.CachePolicy;
 import com.zeyad.usecases.mapper.DAOMapper;
+import com.zeyad.usecases.network.RequestCompression;
+import com.zeyad.usecases.utils.Tracer;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -21,6 +26,8 @@ import okhttp3.OkHttpClient;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -31,6 +38,7 @@ import static org.mockito.Mockito.mock;
 public class DataServiceConfigTest {
     private final String URL = "www.google.com";
     private final int cacheSize = 8192;
+    private final long cacheMaxBytes = 4 * 1024 * 1024;
     private DataServiceConfig mDataServiceConfig;
     private Context mockContext;
     private OkHttpClient.Builder builder;
@@ -49,6 +57,7 @@ public class DataServiceConfigTest {
                 new DataServiceConfig.Builder(mockContext)
                         .baseUrl(URL)
                         .cacheSize(cacheSize)
+                        .cacheMaxBytes(cacheMaxBytes)
                         .okHttpBuilder(builder)
                         .okhttpCache(cache)
                         .postExecutionThread(null)
@@ -67,6 +76,16 @@ public class DataServiceConfigTest {
         assertThat(mDataServiceConfig.getEntityMapper().getClass(), is(equalTo(DAOMapper.class)));
     }
 
+    @Test
+    public void getEntityMapperUsesRegisteredMappers() throws Exception {
+        DataServiceConfig dataServiceConfig = new DataServiceConfig.Builder(mockContext)
+                .mapper(TestRealmModel.class, source -> new TestRealmModel(1, "mapped"))
+                .build();
+
+        TestRealmModel mapped = dataServiceConfig.getEntityMapper().mapTo(new Object(), TestRealmModel.class);
+        assertThat(mapped, is(equalTo(new TestRealmModel(1, "mapped"))));
+    }
+
     @Test
     public void getPostExecutionThread() throws Exception {
         assertThat(mDataServiceConfig.getPostExecutionThread(), is(equalTo(null)));
@@ -102,6 +121,11 @@ public class DataServiceConfigTest {
         assertThat(mDataServiceConfig.getCacheSize(), is(equalTo(cacheSize)));
     }
 
+    @Test
+    public void getCacheMaxBytes() throws Exception {
+        assertThat(mDataServiceConfig.getCacheMaxBytes(), is(equalTo(cacheMaxBytes)));
+    }
+
     @Test
     public void getCacheAmount() throws Exception {
         assertThat(mDataServiceConfig.getCacheAmount(), is(equalTo(3)));
@@ -112,6 +136,53 @@ public class DataServiceConfigTest {
         assertThat(mDataServiceConfig.getTimeUnit(), is(equalTo(TimeUnit.MINUTES)));
     }
 
+    @Test
+    public void getCachePolicies() throws Exception {
+        CachePolicy cachePolicy = new CachePolicy.Builder().timeToLive(30, TimeUnit.SECONDS).build();
+        DataServiceConfig dataServiceConfig = new DataServiceConfig.Builder(mockContext)
+                .cachePolicy(TestRealmModel.class, cachePolicy)
+                .build();
+
+        assertThat(dataServiceConfig.getCachePolicies().get(TestRealmModel.class), is(equalTo(cachePolicy)));
+        assertThat(mDataServiceConfig.getCachePolicies().isEmpty(), is(equalTo(true)));
+    }
+
+    @Test
+    public void getTracing() throws Exception {
+        Tracer tracer = (level, tag, template, args, throwable) -> {
+        };
+        DataServiceConfig dataServiceConfig = new DataServiceConfig.Builder(mockContext)
+                .traceLevel(Log.DEBUG)
+                .tracer(tracer)
+                .build();
+
+        assertThat(dataServiceConfig.getTraceLevel(), is(equalTo(Log.DEBUG)));
+        assertThat(dataServiceConfig.getTracer(), is(equalTo(tracer)));
+        assertThat(mDataServiceConfig.getTraceLevel(), is(equalTo(Log.WARN)));
+        assertThat(mDataServiceConfig.getTracer(), is(equalTo(Tracer.LOGCAT)));
+    }
+
+    @Test
+    public void getRequestCompression() throws Exception {
+        RequestCompression requestCompression = new RequestCompression.Builder().build();
+        DataServiceConfig dataServiceConfig = new DataServiceConfig.Builder(mockContext)
+                .requestCompression(requestCompression)
+                .build();
+
+        assertThat(dataServiceConfig.getRequestCompression(), is(equalTo(requestCompression)));
+        assertThat(mDataServiceConfig.getRequestCompression(), is(nullValue()));
+    }
+
+    @Test
+    public void getConnectionPool() throws Exception {
+        DataServiceConfig dataServiceConfig = new DataServiceConfig.Builder(mockContext)
+                .connectionPool(8, 1, TimeUnit.MINUTES)
+                .build();
+
+        assertThat(dataServiceConfig.getConnectionPool(), is(notNullValue()));
+        assertThat(mDataServiceConfig.getConnectionPool(), is(nullValue()));
+    }
+
     @Test
     public void getHandlerThread() throws Exception {
         assertThat(
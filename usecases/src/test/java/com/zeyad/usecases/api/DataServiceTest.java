@@ -1,9 +1,11 @@
 package com.zeyad.usecases.api;
 
 import com.zeyad.usecases.TestRealmModel;
+import com.zeyad.usecases.cache.CachedList;
 import com.zeyad.usecases.db.RealmQueryProvider;
 import com.zeyad.usecases.requests.FileIORequest;
 import com.zeyad.usecases.requests.GetRequest;
+import com.zeyad.usecases.requests.PageRequest;
 import com.zeyad.usecases.requests.PostRequest;
 import com.zeyad.usecases.stores.CloudStore;
 import com.zeyad.usecases.stores.DataStoreFactory;
@@ -16,19 +18,25 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 
 import io.reactivex.Flowable;
 import io.reactivex.Scheduler;
 import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
-import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -106,6 +114,102 @@ public class DataServiceTest {
                         anyBoolean());
     }
 
+    @Test
+    public void getPagesByOffsetStopsAtTheShortPage() throws Exception {
+        when(dataStoreFactory.cloud(Object.class)
+                .dynamicGetPage(anyString(), any(Class.class), anyBoolean(), anyBoolean()))
+                .thenAnswer(invocation -> Flowable.just(((String) invocation.getArguments()[0])
+                        .endsWith("offset=4") ? Collections.singletonList(5) : Arrays.asList(1, 2)));
+        PageRequest<Integer> pageRequest = new PageRequest.Builder<Integer>(getRequest)
+                .offset("offset", 0, 2)
+                .prefetch(3)
+                .build();
+
+        TestSubscriber<Page<Integer>> subscriber = new DataService(dataStoreFactory, null,
+                Schedulers.trampoline()).getPages(pageRequest).test();
+
+        subscriber.awaitTerminalEvent();
+        subscriber.assertNoErrors();
+        subscriber.assertValueCount(3);
+        Page<Integer> last = subscriber.values().get(2);
+        assertEquals(2, last.getIndex());
+        assertEquals(4L, last.getKey());
+        assertEquals(Collections.singletonList(5), last.getItems());
+        assertTrue(last.isLast());
+    }
+
+    @Test
+    public void getPagesPrefetchesAheadOfDemand() throws Exception {
+        CloudStore cloudStore = dataStoreFactory.cloud(Object.class);
+        when(cloudStore.dynamicGetPage(anyString(), any(Class.class), anyBoolean(), anyBoolean()))
+                .thenReturn((Flowable) Flowable.just(Arrays.asList(1, 2)));
+        PageRequest<Integer> pageRequest = new PageRequest.Builder<Integer>(getRequest)
+                .offset("offset", 0, 2)
+                .prefetch(2)
+                .build();
+
+        TestSubscriber<Page<Integer>> subscriber = new TestSubscriber<>(1);
+        new DataService(dataStoreFactory, null, Schedulers.trampoline()).getPages(pageRequest)
+                .subscribe(subscriber);
+
+        verify(cloudStore, timeout(1000).times(3))
+                .dynamicGetPage(anyString(), any(Class.class), anyBoolean(), anyBoolean());
+        Thread.sleep(100);
+        verify(cloudStore, times(3)).dynamicGetPage(anyString(), any(Class.class), anyBoolean(), anyBoolean());
+        subscriber.assertValueCount(1);
+        subscriber.cancel();
+    }
+
+    @Test
+    public void getPagesByCursorFollowsTheLastItem() throws Exception {
+        when(dataStoreFactory.cloud(Object.class)
+                .dynamicGetPage(anyString(), any(Class.class), anyBoolean(), anyBoolean()))
+                .thenAnswer(invocation -> {
+                    String url = (String) invocation.getArguments()[0];
+                    return Flowable.just(url.endsWith("since=0") ? Arrays.asList(1, 2) :
+                            url.endsWith("since=2") ? Arrays.asList(3, 4) : Collections.emptyList());
+                });
+        PageRequest<Integer> pageRequest = new PageRequest.Builder<Integer>(getRequest)
+                .cursor("since", 0, 0, item -> item)
+                .build();
+
+        TestSubscriber<Page<Integer>> subscriber = new DataService(dataStoreFactory, null,
+                Schedulers.trampoline()).getPages(pageRequest).test();
+
+        subscriber.awaitTerminalEvent();
+        subscriber.assertNoErrors();
+        subscriber.assertValueCount(3);
+        assertEquals(Arrays.asList(3, 4), subscriber.values().get(1).getItems());
+        assertEquals(4, subscriber.values().get(1).getNextKey());
+        assertTrue(subscriber.values().get(2).getItems().isEmpty());
+    }
+
+    @Test
+    public void getListRevalidatesTheItemsReloadedForAPartialHit() throws Exception {
+        com.zeyad.usecases.Config.setWithCache(true);
+        TestRealmModel cached = new TestRealmModel(1, "1"), reloaded = new TestRealmModel(2, "2"),
+                fresh = new TestRealmModel(2, "fresh");
+        MemoryStore memoryStore = dataStoreFactory.memory();
+        when(memoryStore.isCacheable(any(Class.class))).thenReturn(true);
+        when(memoryStore.getAllItemsPartially(any(Class.class)))
+                .thenReturn(Single.just(new CachedList<Object>(Collections.singletonList(cached),
+                        Collections.singletonList(2L))));
+        when(dataStoreFactory.disk(Object.class).queryDisk(any(RealmQueryProvider.class)))
+                .thenReturn(Flowable.just(Collections.singletonList(reloaded)));
+        when(dataStoreFactory.dynamically(anyString(), any(Class.class))
+                .dynamicGetList(anyString(), any(Class.class), anyBoolean(), anyBoolean()))
+                .thenReturn(Flowable.just(Arrays.asList(cached, fresh)));
+
+        TestSubscriber<List<TestRealmModel>> subscriber = new DataService(dataStoreFactory, null,
+                Schedulers.trampoline()).<TestRealmModel>getList(new GetRequest.Builder(TestRealmModel.class, true)
+                .fullUrl("")
+                .cache()
+                .build())
+                .test();
+
+        subscriber.assertValues(Arrays.asList(cached, reloaded), Arrays.asList(cached, fresh));
+    }
+
     @Test
     public void getListOffLineFirst() throws Exception {
         when(dataStoreFactory
@@ -118,8 +222,9 @@ public class DataServiceTest {
                 .thenReturn(Flowable.just(Collections.EMPTY_LIST));
         when(dataStoreFactory
                 .memory()
-                .getAllItems(any(Class.class)))
-                .thenReturn(Single.just(Collections.singletonList(true)));
+                .getAllItemsPartially(any(Class.class)))
+                .thenReturn(Single.just(new CachedList<Object>(Collections.singletonList(true),
+                        Collections.emptyList())));
 
         dataService.getListOffLineFirst(getRequest);
 
@@ -415,32 +520,13 @@ public class DataServiceTest {
 
     @Test
     public void uploadFile() throws Exception {
-        when(dataStoreFactory
-                .cloud(Object.class)
-                .dynamicUploadFile(
-                        anyString(),
-                        any(File.class),
-                        anyString(),
-                        (HashMap<String, Object>) anyMap(),
-                        anyBoolean(),
-                        anyBoolean(),
-                        anyBoolean(),
-                        any(Class.class)))
+        when(dataStoreFactory.cloud(Object.class).dynamicUploadFile(any(FileIORequest.class)))
                 .thenReturn(flowable);
 
         dataService.uploadFile(
                 new FileIORequest.Builder("", new File("")).dataClass(Object.class).build());
 
-        verify(dataStoreFactory.cloud(Object.class), times(1))
-                .dynamicUploadFile(
-                        anyString(),
-                        any(File.class),
-                        anyString(),
-                        (HashMap<String, Object>) anyMap(),
-                        anyBoolean(),
-                        anyBoolean(),
-                        anyBoolean(),
-                        any(Class.class));
+        verify(dataStoreFactory.cloud(Object.class), times(1)).dynamicUploadFile(any(FileIORequest.class));
     }
 
     @Test
@@ -0,0 +1,55 @@
+package com.zeyad.usecases.cache;
+
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+
+public class CacheKeyTest {
+
+    @Test
+    public void numericIdsOfAnyBoxedTypeAreEqual() throws Exception {
+        CacheKey key = CacheKey.of(TestRealmModel.class, 37L);
+
+        assertEquals(key, CacheKey.of(TestRealmModel.class, (Object) 37));
+        assertEquals(key, CacheKey.of(TestRealmModel.class, (Object) 37.0));
+        assertEquals(key.hashCode(), CacheKey.of(TestRealmModel.class, (Object) 37).hashCode());
+    }
+
+    @Test
+    public void stringIds() throws Exception {
+        assertEquals(CacheKey.of(TestRealmModel.class, "Zeyad-37"),
+                CacheKey.of(TestRealmModel.class, (Object) "Zeyad-37"));
+    }
+
+    @Test
+    public void stringsHoldingWholeNumbersMatchNumericIds() throws Exception {
+        assertEquals(CacheKey.of(TestRealmModel.class, 37L), CacheKey.of(TestRealmModel.class, (Object) "37"));
+        assertEquals(CacheKey.of(TestRealmModel.class, -37L), CacheKey.of(TestRealmModel.class, (Object) "-37"));
+        assertFalse(CacheKey.of(TestRealmModel.class, (Object) "037").equals(CacheKey.of(TestRealmModel.class, 37L)));
+    }
+
+    @Test
+    public void fractionalIdsDoNotCollideWithWholeOnes() throws Exception {
+        assertFalse(CacheKey.of(TestRealmModel.class, (Object) 37.5).equals(CacheKey.of(TestRealmModel.class, 37L)));
+        assertEquals(CacheKey.of(TestRealmModel.class, (Object) 37.5), CacheKey.of(TestRealmModel.class, (Object) "37.5"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullIdsAreRejected() throws Exception {
+        CacheKey.of(TestRealmModel.class, (Object) null);
+    }
+
+    @Test
+    public void classesWithSameSimpleNameDoNotCollide() throws Exception {
+        assertFalse(CacheKey.of(TestRealmModel.class, 1L)
+                .equals(CacheKey.of(Other.TestRealmModel.class, 1L)));
+    }
+
+    private static final class Other {
+        private static final class TestRealmModel {
+        }
+    }
+}
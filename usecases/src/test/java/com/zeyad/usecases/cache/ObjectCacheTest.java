@@ -0,0 +1,163 @@
+package com.zeyad.usecases.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class ObjectCacheTest {
+    private long now;
+    private ObjectCache<String, Object> objectCache;
+
+    @Before
+    public void setUp() throws Exception {
+        now = 0;
+        objectCache = new ObjectCache<>(100, 10_000, 1000, () -> now);
+    }
+
+    @Test
+    public void getReturnsLiveObject() throws Exception {
+        Object value = new Object();
+        objectCache.put("key", value, 10);
+
+        assertEquals(value, objectCache.get("key"));
+        assertEquals(1, objectCache.size());
+        assertEquals(10, objectCache.weightedSize());
+    }
+
+    @Test
+    public void getAfterExpiryIsMiss() throws Exception {
+        objectCache.put("key", new Object(), 10);
+        now = 1000;
+
+        assertNull(objectCache.get("key"));
+        assertEquals(0, objectCache.size());
+    }
+
+    @Test
+    public void putWithTimeToLiveOverridesDefault() throws Exception {
+        objectCache.put("key", new Object(), 10, 5000);
+        now = 4000;
+
+        assertTrue(objectCache.get("key") != null);
+    }
+
+    @Test
+    public void ageNanosSinceLastWrite() throws Exception {
+        objectCache.put("key", new Object(), 10);
+        now = 300;
+        objectCache.put("key", new Object(), 10);
+        now = 500;
+
+        assertEquals(200, objectCache.ageNanos("key"));
+        assertEquals(-1, objectCache.ageNanos("missing"));
+        now = 1300;
+        assertEquals(-1, objectCache.ageNanos("key"));
+    }
+
+    @Test
+    public void maxAgeNanosOfTheOldestLiveKey() throws Exception {
+        objectCache.put("old", new Object(), 10);
+        now = 300;
+        objectCache.put("new", new Object(), 10);
+        now = 500;
+
+        assertEquals(500, objectCache.maxAgeNanos(Arrays.asList("old", "new", "missing")));
+        assertEquals(-1, objectCache.maxAgeNanos(Collections.singletonList("missing")));
+        now = 1200;
+        assertEquals(900, objectCache.maxAgeNanos(Arrays.asList("old", "new")));
+    }
+
+    @Test
+    public void boundedByEntryCount() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            objectCache.put("key" + i, i, 1);
+        }
+
+        assertEquals(100, objectCache.size());
+        assertEquals(400, objectCache.evictionCount());
+    }
+
+    @Test
+    public void evictionListenerGetsEveryEvictedKey() throws Exception {
+        List<String> evicted = new ArrayList<>();
+        objectCache.setEvictionListener(evicted::add);
+        for (int i = 0; i < 500; i++) {
+            objectCache.put("key" + i, i, 1);
+        }
+        objectCache.remove("key499");
+
+        assertEquals(400, evicted.size());
+        assertFalse(evicted.contains("key499"));
+        for (String key : evicted) {
+            assertNull(objectCache.get(key));
+        }
+    }
+
+    @Test
+    public void expiryListenerGetsTheExpiredKeysOnRead() throws Exception {
+        List<String> expired = new ArrayList<>();
+        objectCache.setExpiryListener(expired::add);
+        objectCache.put("key1", 1, 1);
+        now = 1000;
+
+        assertNull(objectCache.get("key1"));
+        assertEquals(Collections.singletonList("key1"), expired);
+    }
+
+    @Test
+    public void putReportsWhetherTheEntryWasAdmitted() throws Exception {
+        assertTrue(objectCache.put("key1", 1, 1));
+        assertFalse(objectCache.put("key2", 2, 10_001));
+        assertNull(objectCache.get("key2"));
+    }
+
+    @Test
+    public void boundedByWeight() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            objectCache.put("key" + i, i, 1000);
+        }
+
+        assertEquals(10, objectCache.size());
+        assertEquals(10_000, objectCache.weightedSize());
+    }
+
+    @Test
+    public void scanDoesNotFlushHotEntries() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (objectCache.get("hot" + i) == null) {
+                    objectCache.put("hot" + i, i, 1);
+                }
+            }
+        }
+        for (int i = 0; i < 10_000; i++) {
+            objectCache.put("scan" + i, i, 1);
+        }
+        int hits = 0;
+        for (int i = 0; i < 50; i++) {
+            if (objectCache.get("hot" + i) != null) {
+                hits++;
+            }
+        }
+
+        assertTrue(hits >= 45);
+    }
+
+    @Test
+    public void remove() throws Exception {
+        objectCache.put("key", 1, 10);
+
+        assertEquals(1, objectCache.remove("key"));
+        assertNull(objectCache.get("key"));
+        assertEquals(0, objectCache.weightedSize());
+    }
+}
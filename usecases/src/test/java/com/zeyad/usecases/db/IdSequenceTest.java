@@ -0,0 +1,105 @@
+package com.zeyad.usecases.db;
+
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class IdSequenceTest {
+    private IdSequence idSequence;
+    private AtomicInteger seeds;
+
+    @Before
+    public void setUp() throws Exception {
+        idSequence = new IdSequence();
+        seeds = new AtomicInteger();
+    }
+
+    private long currentMax() {
+        seeds.incrementAndGet();
+        return 41;
+    }
+
+    @Test
+    public void seedsOnceFromCurrentMax() throws Exception {
+        assertEquals(42, idSequence.next(TestRealmModel.class, "id", this::currentMax));
+        assertEquals(43, idSequence.next(TestRealmModel.class, "id", this::currentMax));
+        assertEquals(1, seeds.get());
+    }
+
+    @Test
+    public void sequencesArePerClassAndColumn() throws Exception {
+        idSequence.next(TestRealmModel.class, "id", this::currentMax);
+
+        assertEquals(42, idSequence.next(TestRealmModel.class, "otherId", this::currentMax));
+        assertEquals(42, idSequence.next(Object.class, "id", this::currentMax));
+    }
+
+    @Test
+    public void advanceToSkipsAssignedIds() throws Exception {
+        idSequence.next(TestRealmModel.class, "id", this::currentMax);
+        idSequence.advanceTo(TestRealmModel.class, "id", 100);
+        idSequence.advanceTo(TestRealmModel.class, "id", 50);
+
+        assertEquals(101, idSequence.next(TestRealmModel.class, "id", this::currentMax));
+    }
+
+    @Test
+    public void advanceAllMovesTheSeededColumnsOfTheClass() throws Exception {
+        idSequence.next(TestRealmModel.class, "id", this::currentMax);
+        idSequence.advanceAll(TestRealmModel.class, column -> 100);
+        idSequence.advanceAll(Object.class, column -> 200);
+
+        assertEquals(101, idSequence.next(TestRealmModel.class, "id", this::currentMax));
+        assertEquals(1, seeds.get());
+    }
+
+    @Test
+    public void resetSeedsAgain() throws Exception {
+        idSequence.next(TestRealmModel.class, "id", this::currentMax);
+        idSequence.next(Object.class, "id", this::currentMax);
+        idSequence.reset(TestRealmModel.class);
+
+        assertEquals(42, idSequence.next(TestRealmModel.class, "id", this::currentMax));
+        assertEquals(43, idSequence.next(Object.class, "id", this::currentMax));
+        assertEquals(3, seeds.get());
+    }
+
+    @Test
+    public void concurrentAllocationsAreUnique() throws Exception {
+        int threads = 8, perThread = 1000;
+        Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(threads);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executorService.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(idSequence.next(TestRealmModel.class, "id", this::currentMax));
+                    }
+                } catch (InterruptedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        executorService.shutdown();
+
+        assertEquals(threads * perThread, ids.size());
+    }
+}
@@ -0,0 +1,29 @@
+package com.zeyad.usecases.db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class QueryChangeTest {
+
+    @Test
+    public void initialInsertsAllRows() throws Exception {
+        QueryChange<String> queryChange = QueryChange.initial(Arrays.asList("a", "b", "c"));
+
+        assertTrue(Arrays.equals(new int[]{0, 1, 2}, queryChange.getInsertions()));
+        assertEquals(Arrays.asList("a", "b", "c"), queryChange.getInserted());
+        assertEquals(0, queryChange.getDeletions().length);
+        assertEquals(0, queryChange.getModifications().length);
+        assertFalse(queryChange.isEmpty());
+    }
+
+    @Test
+    public void initialOfNoRowsIsEmpty() throws Exception {
+        assertTrue(QueryChange.initial(Collections.emptyList()).isEmpty());
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -19,17 +20,35 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.reactivex.Flowable;
 import io.reactivex.Single;
 import io.reactivex.observers.TestObserver;
 import io.reactivex.subscribers.TestSubscriber;
+import io.realm.OrderedCollectionChangeSet;
+import io.realm.OrderedRealmCollectionChangeListener;
 import io.realm.Realm;
 import io.realm.RealmConfiguration;
+import io.realm.RealmFieldType;
+import io.realm.RealmObjectSchema;
 import io.realm.RealmQuery;
 import io.realm.RealmResults;
+import io.realm.RealmSchema;
+import io.realm.Sort;
 import rx.Observable;
 
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mock;
 
 /**
@@ -38,7 +57,7 @@ import static org.powermock.api.mockito.PowerMockito.mock;
 @RunWith(RobolectricTestRunner.class)
 @Config(constants = BuildConfig.class, sdk = 19)
 @PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
-@PrepareForTest({Realm.class, RealmQuery.class, RealmResults.class})
+@PrepareForTest({Realm.class, RealmQuery.class, RealmResults.class, RealmSchema.class, RealmObjectSchema.class})
 public class RealmManagerTest {
 
     @Rule
@@ -157,8 +176,324 @@ public class RealmManagerTest {
         applyTestSubscriber(completable);
     }
 
+    @Test
+    public void whereIdInMatchesIdsAsTheIdFieldType() throws Exception {
+        Realm realm = realmWithIdOfType(RealmFieldType.INTEGER);
+        RealmQuery<TestRealmModel> realmQuery = realm.where(TestRealmModel.class);
+
+        RealmManager.whereIdIn(realm, TestRealmModel.class, "id", Arrays.asList(1L, "2", 3));
+
+        verify(realmQuery).in("id", new Long[]{1L, 2L, 3L});
+    }
+
+    @Test
+    public void whereIdInMatchesNumbersAsStringsOfAStringId() throws Exception {
+        Realm realm = realmWithIdOfType(RealmFieldType.STRING);
+        RealmQuery<TestRealmModel> realmQuery = realm.where(TestRealmModel.class);
+
+        RealmManager.whereIdIn(realm, TestRealmModel.class, "id", Arrays.asList(1L, "2"));
+
+        verify(realmQuery).in("id", new String[]{"1", "2"});
+    }
+
+    @Test
+    public void whereIdInOfNoIdsMatchesNothing() throws Exception {
+        Realm realm = realmWithIdOfType(RealmFieldType.INTEGER);
+        RealmQuery<TestRealmModel> realmQuery = realm.where(TestRealmModel.class);
+
+        RealmManager.whereIdIn(realm, TestRealmModel.class, "id", new ArrayList<>());
+
+        verify(realmQuery).equalTo("id", 0L);
+        verify(realmQuery).notEqualTo("id", 0L);
+        verify(realmQuery, never()).in(anyString(), any(Long[].class));
+    }
+
+    private Realm realmWithIdOfType(RealmFieldType fieldType) {
+        Realm realm = mock(Realm.class);
+        RealmQuery<TestRealmModel> realmQuery = mock(RealmQuery.class);
+        RealmSchema realmSchema = mock(RealmSchema.class);
+        RealmObjectSchema objectSchema = mock(RealmObjectSchema.class);
+        PowerMockito.when(realm.where(TestRealmModel.class)).thenReturn(realmQuery);
+        PowerMockito.when(realmQuery.equalTo("id", 0L)).thenReturn(realmQuery);
+        PowerMockito.when(realm.getSchema()).thenReturn(realmSchema);
+        PowerMockito.when(realmSchema.get("TestRealmModel")).thenReturn(objectSchema);
+        PowerMockito.when(objectSchema.getFieldType("id")).thenReturn(fieldType);
+        return realm;
+    }
+
     @Test
     public void evictById() throws Exception {
 //        assertEquals(mRealmManager.evictById(TestRealmModel.class, "id", 1), true);
     }
+
+    @Test
+    public void getPageWithInvalidBounds() throws Exception {
+        mRealmManager.getPage(TestRealmModel.class, -1, 10, "id", Sort.ASCENDING).test()
+                .assertError(IllegalArgumentException.class);
+        mRealmManager.getPage(TestRealmModel.class, 0, 0, "id", Sort.ASCENDING).test()
+                .assertError(IllegalArgumentException.class);
+        mRealmManager.getPages(TestRealmModel.class, 0, null, Sort.ASCENDING).test()
+                .assertError(IllegalArgumentException.class);
+    }
+
+    private AtomicLong stubMaxId() {
+        AtomicLong maxId = new AtomicLong();
+        RealmQuery<TestRealmModel> realmQuery = Realm.getDefaultInstance().where(TestRealmModel.class);
+        PowerMockito.when(realmQuery.max("id")).thenAnswer(invocation -> maxId.get());
+        mRealmManager.evictAll(TestRealmModel.class).blockingGet();
+        return maxId;
+    }
+
+    private JSONObject putWithoutId() throws Exception {
+        JSONObject jsonObject = new JSONObject(new Gson().toJson(new TestRealmModel()));
+        mRealmManager.put(jsonObject, "id", int.class, TestRealmModel.class).blockingGet();
+        return jsonObject;
+    }
+
+    @Test
+    public void idLessPutsFollowTheIdsOfPutModels() throws Exception {
+        AtomicLong maxId = stubMaxId();
+
+        assertEquals(1, putWithoutId().getLong("id"));
+        maxId.set(10);
+        mRealmManager.putAll(Arrays.asList(new TestRealmModel(9, "9"), new TestRealmModel(10, "10")),
+                TestRealmModel.class).blockingGet();
+        assertEquals(11, putWithoutId().getLong("id"));
+        maxId.set(20);
+        mRealmManager.put(new TestRealmModel(20, "20"), TestRealmModel.class).blockingGet();
+        assertEquals(21, putWithoutId().getLong("id"));
+    }
+
+    @Test
+    public void evictAllSeedsTheIdsAgain() throws Exception {
+        AtomicLong maxId = stubMaxId();
+        maxId.set(5);
+
+        assertEquals(6, putWithoutId().getLong("id"));
+        maxId.set(0);
+        mRealmManager.evictAll(TestRealmModel.class).blockingGet();
+        assertEquals(1, putWithoutId().getLong("id"));
+    }
+
+    private static List<TestRealmModel> rows(int... ids) {
+        List<TestRealmModel> rows = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            rows.add(new TestRealmModel(id, "" + id));
+        }
+        return rows;
+    }
+
+    /**
+     * @return loaded results backed by the given rows, copied out as they are.
+     */
+    private RealmResults<TestRealmModel> mockResults(List<TestRealmModel> rows) {
+        RealmResults<TestRealmModel> results = mock(RealmResults.class);
+        PowerMockito.when(results.isLoaded()).thenReturn(true);
+        PowerMockito.when(results.size()).thenAnswer(invocation -> rows.size());
+        PowerMockito.when(results.get(anyInt()))
+                .thenAnswer(invocation -> rows.get((int) invocation.getArguments()[0]));
+        PowerMockito.when(results.subList(anyInt(), anyInt())).thenAnswer(invocation ->
+                rows.subList((int) invocation.getArguments()[0], (int) invocation.getArguments()[1]));
+        PowerMockito.when(results.iterator()).thenAnswer(invocation -> rows.iterator());
+        Realm realm = Realm.getDefaultInstance();
+        PowerMockito.when(realm.copyFromRealm(any(Iterable.class))).thenAnswer(invocation -> {
+            List<Object> copies = new ArrayList<>();
+            for (Object row : (Iterable<?>) invocation.getArguments()[0]) {
+                copies.add(row);
+            }
+            return copies;
+        });
+        return results;
+    }
+
+    private RealmQuery<TestRealmModel> query() {
+        return Realm.getDefaultInstance().where(TestRealmModel.class);
+    }
+
+    @Test
+    public void getPageCopiesOnlyTheRowsOfThePage() throws Exception {
+        RealmResults<TestRealmModel> results = mockResults(rows(1, 2, 3, 4, 5));
+        PowerMockito.when(query().findAll()).thenReturn(results);
+
+        mRealmManager.getPage(TestRealmModel.class, 1, 2, null, Sort.ASCENDING).test()
+                .assertValue(rows(2, 3))
+                .dispose();
+        verify(results).subList(1, 3);
+    }
+
+    @Test
+    public void getPageSortsBeforeSlicing() throws Exception {
+        RealmResults<TestRealmModel> results = mockResults(rows(5, 4, 3, 2, 1));
+        PowerMockito.when(query().findAllSorted("id", Sort.DESCENDING)).thenReturn(results);
+
+        mRealmManager.getPage(TestRealmModel.class, 0, 2, "id", Sort.DESCENDING).test()
+                .assertValue(rows(5, 4))
+                .dispose();
+    }
+
+    @Test
+    public void getPageAtTheEnd() throws Exception {
+        PowerMockito.when(query().findAll()).thenReturn(mockResults(rows(1, 2, 3)));
+
+        mRealmManager.getPage(TestRealmModel.class, 2, 2, null, Sort.ASCENDING).test()
+                .assertValue(rows(3))
+                .dispose();
+        mRealmManager.getPage(TestRealmModel.class, 5, 2, null, Sort.ASCENDING).test()
+                .assertValue(rows())
+                .dispose();
+    }
+
+    @Test
+    public void getPagesEndsWithTheShortPage() throws Exception {
+        PowerMockito.when(query().findAllSorted("id", Sort.ASCENDING)).thenReturn(mockResults(rows(1, 2, 3, 4, 5)));
+
+        mRealmManager.getPages(TestRealmModel.class, 2, "id", Sort.ASCENDING).test()
+                .assertValues(rows(1, 2), rows(3, 4), rows(5))
+                .assertComplete();
+    }
+
+    @Test
+    public void getPagesDoesNotEmitAnEmptyLastPage() throws Exception {
+        PowerMockito.when(query().findAll()).thenReturn(mockResults(rows(1, 2, 3, 4)));
+
+        mRealmManager.getPages(TestRealmModel.class, 2, null, Sort.ASCENDING).test()
+                .assertValues(rows(1, 2), rows(3, 4))
+                .assertComplete();
+    }
+
+    @Test
+    public void getPagesOfNoItems() throws Exception {
+        PowerMockito.when(query().findAll()).thenReturn(mockResults(rows()));
+
+        mRealmManager.getPages(TestRealmModel.class, 2, null, Sort.ASCENDING).test()
+                .assertNoValues()
+                .assertComplete();
+    }
+
+    private static OrderedCollectionChangeSet changeSet(int[] deletions, int[] insertions, int[] changes) {
+        OrderedCollectionChangeSet changeSet = mock(OrderedCollectionChangeSet.class);
+        PowerMockito.when(changeSet.getDeletions()).thenReturn(deletions);
+        PowerMockito.when(changeSet.getInsertions()).thenReturn(insertions);
+        PowerMockito.when(changeSet.getChanges()).thenReturn(changes);
+        return changeSet;
+    }
+
+    private static int[] at(int... indices) {
+        return indices;
+    }
+
+    private static OrderedRealmCollectionChangeListener<RealmResults<TestRealmModel>> listenerOf(
+            RealmResults<TestRealmModel> results) {
+        ArgumentCaptor<OrderedRealmCollectionChangeListener> listener =
+                ArgumentCaptor.forClass(OrderedRealmCollectionChangeListener.class);
+        verify(results).addChangeListener(listener.capture());
+        return listener.getValue();
+    }
+
+    @Test
+    public void getQueryChangesStartsWithAllRowsInserted() throws Exception {
+        PowerMockito.when(query().findAll()).thenReturn(mockResults(rows(1, 2)));
+
+        TestSubscriber<QueryChange<TestRealmModel>> subscriber =
+                mRealmManager.getQueryChanges(realm -> realm.where(TestRealmModel.class)).test();
+
+        QueryChange<TestRealmModel> initial = subscriber.values().get(0);
+        assertTrue(Arrays.equals(at(0, 1), initial.getInsertions()));
+        assertEquals(rows(1, 2), initial.getInserted());
+        subscriber.dispose();
+    }
+
+    @Test
+    public void getQueryChangesCopiesOnlyTheInsertedAndModifiedRows() throws Exception {
+        List<TestRealmModel> rows = rows(1, 2, 3);
+        RealmResults<TestRealmModel> results = mockResults(rows);
+        PowerMockito.when(query().findAll()).thenReturn(results);
+        TestSubscriber<QueryChange<TestRealmModel>> subscriber =
+                mRealmManager.getQueryChanges(realm -> realm.where(TestRealmModel.class)).test();
+        OrderedRealmCollectionChangeListener<RealmResults<TestRealmModel>> listener = listenerOf(results);
+
+        rows.remove(0);
+        rows.get(0).setValue("modified");
+        rows.add(new TestRealmModel(4, "4"));
+        listener.onChange(results, changeSet(at(0), at(2), at(0)));
+
+        subscriber.assertValueCount(2);
+        QueryChange<TestRealmModel> change = subscriber.values().get(1);
+        assertTrue(Arrays.equals(at(0), change.getDeletions()));
+        assertTrue(Arrays.equals(at(2), change.getInsertions()));
+        assertEquals(rows(4), change.getInserted());
+        assertTrue(Arrays.equals(at(0), change.getModifications()));
+        assertEquals("modified", change.getModified().get(0).getValue());
+        verify(results, times(2)).get(anyInt());
+        subscriber.dispose();
+    }
+
+    @Test
+    public void getQueryChangesStopsListeningWhenCancelled() throws Exception {
+        RealmResults<TestRealmModel> results = mockResults(rows(1));
+        PowerMockito.when(query().findAll()).thenReturn(results);
+
+        mRealmManager.getQueryChanges(realm -> realm.where(TestRealmModel.class)).test().dispose();
+
+        OrderedRealmCollectionChangeListener<RealmResults<TestRealmModel>> listener = listenerOf(results);
+        verify(results).removeChangeListener(listener);
+        verify(Realm.getDefaultInstance()).close();
+    }
+
+    @Test
+    public void getPageSkipsChangesThatDoNotTouchIt() throws Exception {
+        RealmResults<TestRealmModel> results = mockResults(rows(1, 2, 3, 4, 5, 6));
+        PowerMockito.when(query().findAll()).thenReturn(results);
+        TestSubscriber<List<TestRealmModel>> subscriber =
+                mRealmManager.<TestRealmModel>getPage(TestRealmModel.class, 2, 2, null, Sort.ASCENDING).test();
+        OrderedRealmCollectionChangeListener<RealmResults<TestRealmModel>> listener = listenerOf(results);
+
+        listener.onChange(results, changeSet(at(), at(), at(0, 1)));
+        listener.onChange(results, changeSet(at(), at(), at(4, 5)));
+        listener.onChange(results, changeSet(at(), at(4, 5), at()));
+        listener.onChange(results, changeSet(at(5), at(), at()));
+
+        subscriber.assertValueCount(1);
+        subscriber.dispose();
+    }
+
+    @Test
+    public void getPageEmitsChangesThatTouchIt() throws Exception {
+        RealmResults<TestRealmModel> results = mockResults(rows(1, 2, 3, 4, 5, 6));
+        PowerMockito.when(query().findAll()).thenReturn(results);
+        TestSubscriber<List<TestRealmModel>> subscriber =
+                mRealmManager.<TestRealmModel>getPage(TestRealmModel.class, 2, 2, null, Sort.ASCENDING).test();
+        OrderedRealmCollectionChangeListener<RealmResults<TestRealmModel>> listener = listenerOf(results);
+
+        listener.onChange(results, changeSet(at(), at(), at(3)));
+        listener.onChange(results, changeSet(at(), at(0), at()));
+        listener.onChange(results, changeSet(at(1), at(), at()));
+        listener.onChange(results, changeSet(at(), at(3), at()));
+        listener.onChange(results, null);
+
+        subscriber.assertValueCount(6);
+        subscriber.assertValueAt(5, rows(3, 4));
+        subscriber.dispose();
+    }
+
+    @Test
+    public void noRealmLeaksAfterBurst() throws Exception {
+        Realm realm = Realm.getDefaultInstance();
+        AtomicInteger opened = new AtomicInteger();
+        RealmPool realmPool = new RealmPool(() -> {
+            opened.incrementAndGet();
+            return Realm.getDefaultInstance();
+        });
+        mRealmManager = new RealmManager(realmPool);
+        for (int i = 1; i <= 50; i++) {
+            mRealmManager.put(new JSONObject(new Gson().toJson(new TestRealmModel(i, "" + i))), "id",
+                    int.class, TestRealmModel.class).blockingGet();
+            mRealmManager.putAll(new JSONArray(), "id", int.class, TestRealmModel.class).blockingGet();
+            mRealmManager.putAll(new ArrayList<>(), TestRealmModel.class).blockingGet();
+            mRealmManager.evictAll(TestRealmModel.class).blockingGet();
+        }
+
+        assertEquals(0, realmPool.getOpenCount());
+        verify(realm, times(opened.get())).close();
+    }
 }
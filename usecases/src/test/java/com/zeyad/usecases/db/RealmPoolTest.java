@@ -0,0 +1,98 @@
+package com.zeyad.usecases.db;
+
+import android.support.test.rule.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.realm.Realm;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.fail;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 19)
+@PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
+@PrepareForTest({Realm.class})
+public class RealmPoolTest {
+
+    @Rule
+    public PowerMockRule rule = new PowerMockRule();
+    private List<Realm> opened;
+    private RealmPool realmPool;
+
+    @Before
+    public void setUp() throws Exception {
+        opened = new CopyOnWriteArrayList<>();
+        realmPool = new RealmPool(() -> {
+            Realm realm = mock(Realm.class);
+            opened.add(realm);
+            return realm;
+        });
+    }
+
+    @Test
+    public void nestedAcquiresShareOneInstance() throws Exception {
+        Realm outer = realmPool.acquire();
+        Realm inner = realmPool.acquire();
+
+        assertSame(outer, inner);
+        assertEquals(1, opened.size());
+
+        realmPool.release(inner);
+        verify(outer, never()).close();
+        realmPool.release(outer);
+        verify(outer, times(1)).close();
+        assertEquals(0, realmPool.getOpenCount());
+    }
+
+    @Test
+    public void threadsGetTheirOwnInstance() throws Exception {
+        Realm realm = realmPool.acquire();
+        Realm[] other = new Realm[1];
+        Thread thread = new Thread(() -> realmPool.use(threadRealm -> other[0] = threadRealm));
+        thread.start();
+        thread.join();
+
+        assertNotSame(realm, other[0]);
+        verify(other[0], times(1)).close();
+        assertEquals(1, realmPool.getOpenCount());
+        realmPool.release(realm);
+    }
+
+    @Test
+    public void useReleasesWhenActionFails() throws Exception {
+        try {
+            realmPool.use(realm -> {
+                throw new IllegalStateException("failed");
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            assertEquals("failed", expected.getMessage());
+        }
+
+        verify(opened.get(0), times(1)).close();
+        assertEquals(0, realmPool.getOpenCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releaseWithoutAcquireFails() throws Exception {
+        realmPool.release(mock(Realm.class));
+    }
+}
@@ -0,0 +1,152 @@
+package com.zeyad.usecases.db;
+
+import android.support.test.rule.BuildConfig;
+
+import com.zeyad.usecases.TestRealmModel;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.TestScheduler;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class WriteBehindBufferTest {
+    private DataBaseManager dataBaseManager;
+    private TestScheduler scheduler;
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Before
+    public void setUp() throws Exception {
+        dataBaseManager = mock(DataBaseManager.class);
+        when(dataBaseManager.put(any(JSONObject.class), anyString(), any(Class.class), any(Class.class)))
+                .thenReturn(Single.just(true));
+        when(dataBaseManager.putAll(any(JSONArray.class), anyString(), any(Class.class), any(Class.class)))
+                .thenReturn(Single.just(true));
+        when(dataBaseManager.putAll(anyList(), any(Class.class))).thenReturn(Single.just(true));
+        scheduler = new TestScheduler();
+        writeBehindBuffer = new WriteBehindBuffer(dataBaseManager, scheduler, 100, 3);
+    }
+
+    @Test
+    public void putsWithinWindowAreWrittenInOneTransaction() throws Exception {
+        writeBehindBuffer.put(new JSONObject().put("id", 1), "id", long.class, TestRealmModel.class);
+        writeBehindBuffer.put(new JSONObject().put("id", 2), "id", long.class, TestRealmModel.class);
+        scheduler.advanceTimeBy(99, TimeUnit.MILLISECONDS);
+
+        verify(dataBaseManager, never()).putAll(any(JSONArray.class), anyString(), any(Class.class),
+                any(Class.class));
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        ArgumentCaptor<JSONArray> captor = ArgumentCaptor.forClass(JSONArray.class);
+        verify(dataBaseManager, times(1)).putAll(captor.capture(), eq("id"), eq(long.class),
+                eq(TestRealmModel.class));
+        assertEquals(2, captor.getValue().length());
+        verify(dataBaseManager, never()).put(any(JSONObject.class), anyString(), any(Class.class),
+                any(Class.class));
+    }
+
+    @Test
+    public void fullBatchIsWrittenBeforeWindowElapses() throws Exception {
+        writeBehindBuffer.putAll(Arrays.asList(new TestRealmModel(1, "1"), new TestRealmModel(2, "2"),
+                new TestRealmModel(3, "3")), TestRealmModel.class);
+        scheduler.triggerActions();
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(dataBaseManager, times(1)).putAll(captor.capture(), eq(TestRealmModel.class));
+        assertEquals(3, captor.getValue().size());
+    }
+
+    @Test
+    public void mappedObjectsAreBatchedAsTheyAre() throws Exception {
+        TestRealmModel testRealmModel = new TestRealmModel(1, "1");
+        writeBehindBuffer.put(testRealmModel, TestRealmModel.class);
+        writeBehindBuffer.put(new TestRealmModel(2, "2"), TestRealmModel.class);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(dataBaseManager, times(1)).putAll(captor.capture(), eq(TestRealmModel.class));
+        assertEquals(2, captor.getValue().size());
+        assertSame(testRealmModel, captor.getValue().get(0));
+    }
+
+    @Test
+    public void objectWithoutIdColumnIsWrittenRightAway() throws Exception {
+        writeBehindBuffer.put(new JSONObject(), "", long.class, TestRealmModel.class);
+        scheduler.triggerActions();
+
+        verify(dataBaseManager, times(1)).put(any(JSONObject.class), eq(""), eq(long.class),
+                eq(TestRealmModel.class));
+    }
+
+    @Test
+    public void flushWritesPendingBatches() throws Exception {
+        writeBehindBuffer.put(new JSONObject().put("id", 1), "id", long.class, TestRealmModel.class);
+        writeBehindBuffer.putAll(Arrays.asList(new TestRealmModel(2, "2")), TestRealmModel.class);
+
+        writeBehindBuffer.flush().test().assertValue(true);
+
+        verify(dataBaseManager, times(1)).putAll(any(JSONArray.class), eq("id"), eq(long.class),
+                eq(TestRealmModel.class));
+        verify(dataBaseManager, times(1)).putAll(anyList(), eq(TestRealmModel.class));
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        verify(dataBaseManager, times(1)).putAll(anyList(), eq(TestRealmModel.class));
+    }
+
+    @Test
+    public void jsonAndMappedPutsOfAClassCommitInOrder() throws Exception {
+        writeBehindBuffer.put(new JSONObject().put("id", 1), "id", long.class, TestRealmModel.class);
+        writeBehindBuffer.put(new TestRealmModel(2, "2"), TestRealmModel.class);
+        writeBehindBuffer.put(new JSONObject().put("id", 3), "id", long.class, TestRealmModel.class);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        InOrder inOrder = inOrder(dataBaseManager);
+        inOrder.verify(dataBaseManager).putAll(any(JSONArray.class), eq("id"), eq(long.class),
+                eq(TestRealmModel.class));
+        inOrder.verify(dataBaseManager).putAll(anyList(), eq(TestRealmModel.class));
+        inOrder.verify(dataBaseManager).putAll(any(JSONArray.class), eq("id"), eq(long.class),
+                eq(TestRealmModel.class));
+    }
+
+    @Test
+    public void failedBatchIsRetriedOneByOneAndReportedByFlush() throws Exception {
+        TestRealmModel good = new TestRealmModel(1, "1"), bad = new TestRealmModel(2, "2");
+        when(dataBaseManager.putAll(anyList(), any(Class.class)))
+                .thenReturn(Single.error(new IllegalStateException()));
+        when(dataBaseManager.put(good, TestRealmModel.class)).thenReturn(Single.just(true));
+        when(dataBaseManager.put(bad, TestRealmModel.class)).thenReturn(Single.error(new IllegalStateException()));
+        writeBehindBuffer.putAll(Arrays.asList(good, bad), TestRealmModel.class);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        verify(dataBaseManager).put(good, TestRealmModel.class);
+        verify(dataBaseManager).put(bad, TestRealmModel.class);
+        writeBehindBuffer.flush().test().assertValue(false);
+        writeBehindBuffer.flush().test().assertValue(true);
+    }
+}
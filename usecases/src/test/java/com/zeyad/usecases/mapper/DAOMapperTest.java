@@ -1,6 +1,6 @@
 package com.zeyad.usecases.mapper;
 
-import com.google.gson.internal.LinkedTreeMap;
+import com.google.gson.JsonObject;
 import com.zeyad.usecases.Config;
 import com.zeyad.usecases.TestRealmModel;
 
@@ -12,6 +12,8 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author by ZIaDo on 5/14/17.
@@ -32,13 +34,49 @@ public class DAOMapperTest {
 
     @Test
     public void mapTo() throws Exception {
-        Assert.assertEquals(
-                daoMapper.mapTo(new Object(), Object.class).getClass(), LinkedTreeMap.class);
+        Object object = new Object();
+        Assert.assertSame(daoMapper.mapTo(object, Object.class), object);
         Assert.assertEquals(
                 daoMapper.mapTo(new Object(), TestRealmModel.class).getClass(),
                 TestRealmModel.class);
     }
 
+    @Test
+    public void mapToSkipsObjectsOfTheDomainClass() throws Exception {
+        TestRealmModel testRealmModel = new TestRealmModel(1, "one");
+        Assert.assertSame(daoMapper.mapTo(testRealmModel, TestRealmModel.class), testRealmModel);
+    }
+
+    @Test
+    public void mapToReadsTrees() throws Exception {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("id", 1);
+        jsonObject.addProperty("value", "one");
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", 1.0);
+        map.put("value", "one");
+
+        Assert.assertEquals(daoMapper.mapTo(jsonObject, TestRealmModel.class), new TestRealmModel(1, "one"));
+        Assert.assertEquals(daoMapper.mapTo(map, TestRealmModel.class), new TestRealmModel(1, "one"));
+    }
+
+    @Test
+    public void mapToUsesRegisteredMappers() throws Exception {
+        Assert.assertFalse(daoMapper.hasMapper(TestRealmModel.class));
+        daoMapper.register(TestRealmModel.class, source -> new TestRealmModel(2, String.valueOf(source)));
+
+        Assert.assertTrue(daoMapper.hasMapper(TestRealmModel.class));
+
+        Assert.assertEquals(daoMapper.mapTo("two", TestRealmModel.class), new TestRealmModel(2, "two"));
+        Assert.assertEquals(daoMapper.mapAllTo(Collections.singletonList("two"), TestRealmModel.class),
+                Collections.singletonList(new TestRealmModel(2, "two")));
+    }
+
+    @Test
+    public void mapToNull() throws Exception {
+        Assert.assertNull(daoMapper.mapTo(null, TestRealmModel.class));
+    }
+
     @Test
     public void mapAllTo() throws Exception {
         Assert.assertEquals(
@@ -0,0 +1,117 @@
+package com.zeyad.usecases.mapper;
+
+import com.zeyad.usecases.Config;
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.subscribers.TestSubscriber;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import static junit.framework.Assert.assertTrue;
+
+public class JsonListDecoderTest {
+    private static final String JSON = "[{\"id\":1,\"value\":\"one\"},{\"id\":2,\"value\":\"two\"},"
+            + "{\"id\":3,\"value\":\"three\"}]";
+    private JsonListDecoder jsonListDecoder;
+
+    @Before
+    public void setUp() throws Exception {
+        Config.setGson();
+        jsonListDecoder = new JsonListDecoder();
+    }
+
+    private ResponseBody body(String json) {
+        return ResponseBody.create(MediaType.parse("application/json"), json);
+    }
+
+    @Test
+    public void decodePages() throws Exception {
+        TestSubscriber<List<TestRealmModel>> testSubscriber = new TestSubscriber<>();
+        jsonListDecoder.<TestRealmModel>decodePages(body(JSON), TestRealmModel.class, 2)
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertValues(
+                Arrays.asList(new TestRealmModel(1, "one"), new TestRealmModel(2, "two")),
+                Collections.singletonList(new TestRealmModel(3, "three")));
+        testSubscriber.assertComplete();
+    }
+
+    @Test
+    public void decodeItemsOnlyReadsWhatIsRequested() throws Exception {
+        TestSubscriber<TestRealmModel> testSubscriber = new TestSubscriber<>(0);
+        jsonListDecoder.<TestRealmModel>decodeItems(body(JSON), TestRealmModel.class)
+                .subscribe(testSubscriber);
+
+        testSubscriber.request(1);
+        testSubscriber.assertValue(new TestRealmModel(1, "one"));
+        testSubscriber.assertNotComplete();
+
+        testSubscriber.request(2);
+        testSubscriber.assertValueCount(3);
+        testSubscriber.assertComplete();
+    }
+
+    @Test
+    public void decodeEmptyArray() throws Exception {
+        TestSubscriber<List<TestRealmModel>> testSubscriber = new TestSubscriber<>();
+        jsonListDecoder.<TestRealmModel>decodePages(body("[]"), TestRealmModel.class, 2)
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertNoValues();
+        testSubscriber.assertComplete();
+    }
+
+    @Test
+    public void decodeNonArrayFailsAndClosesTheBody() throws Exception {
+        boolean[] closed = new boolean[1];
+        BufferedSource source = Okio.buffer(new ForwardingSource(new Buffer().writeUtf8("{}")) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        });
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), -1, source);
+
+        TestSubscriber<List<TestRealmModel>> testSubscriber = new TestSubscriber<>();
+        jsonListDecoder.<TestRealmModel>decodePages(body, TestRealmModel.class, 2)
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertError(IllegalStateException.class);
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    public void cancellingClosesTheBody() throws Exception {
+        boolean[] closed = new boolean[1];
+        BufferedSource source = Okio.buffer(new ForwardingSource(new Buffer().writeUtf8(JSON)) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        });
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), -1, source);
+
+        TestSubscriber<TestRealmModel> testSubscriber = new TestSubscriber<>(1);
+        jsonListDecoder.<TestRealmModel>decodeItems(body, TestRealmModel.class)
+                .subscribe(testSubscriber);
+        testSubscriber.cancel();
+
+        testSubscriber.assertValueCount(1);
+        assertTrue(closed[0]);
+    }
+}
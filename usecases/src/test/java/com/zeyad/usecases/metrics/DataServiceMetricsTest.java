@@ -0,0 +1,110 @@
+package com.zeyad.usecases.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.EVICTION;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.HIT;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.MISS;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.CLOUD;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.DISK;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.MEMORY;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Timer.LOAD;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Timer.NETWORK;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class DataServiceMetricsTest {
+    private DataServiceMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new DataServiceMetrics();
+    }
+
+    @Test
+    public void countsPerStoreAndClass() throws Exception {
+        metrics.increment(MEMORY, String.class, HIT);
+        metrics.increment(MEMORY, String.class, HIT);
+        metrics.increment(MEMORY, String.class, MISS);
+        metrics.add(MEMORY, Integer.class, EVICTION, 5);
+        metrics.increment(DISK, String.class, HIT);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getCount(MEMORY, String.class, HIT));
+        assertEquals(1, snapshot.getCount(MEMORY, String.class, MISS));
+        assertEquals(5, snapshot.getCount(MEMORY, Integer.class, EVICTION));
+        assertEquals(1, snapshot.getCount(DISK, String.class, HIT));
+        assertEquals(0, snapshot.getCount(CLOUD, String.class, HIT));
+        assertEquals(2, snapshot.getDataClasses(MEMORY).size());
+        assertEquals(2 / 3.0, snapshot.getHitRatio(MEMORY, String.class), 0.001);
+    }
+
+    @Test
+    public void totalsAcrossClasses() throws Exception {
+        metrics.increment(MEMORY, String.class, HIT);
+        metrics.increment(MEMORY, Integer.class, HIT);
+
+        assertEquals(2, metrics.snapshot().getTotal(MEMORY, HIT));
+    }
+
+    @Test
+    public void eventsWithoutClassAreRecordedUnderObject() throws Exception {
+        metrics.increment(CLOUD, null, HIT);
+
+        assertEquals(1, metrics.snapshot().getCount(CLOUD, Object.class, HIT));
+        assertEquals(1, metrics.snapshot().getCount(CLOUD, null, HIT));
+    }
+
+    @Test
+    public void recordNanos() throws Exception {
+        metrics.recordNanos(CLOUD, String.class, NETWORK, 100);
+        metrics.recordNanos(CLOUD, String.class, NETWORK, 300);
+
+        Histogram.Snapshot network = metrics.snapshot().getTimer(CLOUD, String.class, NETWORK);
+        assertEquals(2, network.getCount());
+        assertEquals(300, network.getMax());
+        assertEquals(0, metrics.snapshot().getTimer(CLOUD, String.class, LOAD).getCount());
+        assertEquals(0, metrics.snapshot().getTimer(DISK, Integer.class, LOAD).getCount());
+    }
+
+    @Test
+    public void timedRecordsOncePerSubscription() throws Exception {
+        Flowable<Integer> timed = Flowable.just(1, 2, 3).compose(metrics.timed(DISK, String.class, LOAD));
+
+        timed.test().assertValues(1, 2, 3);
+        Flowable.<Integer>empty().compose(metrics.timed(DISK, String.class, LOAD)).test().assertComplete();
+        Flowable.<Integer>error(new IllegalStateException())
+                .compose(metrics.timed(DISK, String.class, LOAD)).test();
+
+        assertEquals(2, metrics.snapshot().getTimer(DISK, String.class, LOAD).getCount());
+    }
+
+    @Test
+    public void snapshotsArePublishedPeriodically() throws Exception {
+        metrics.increment(MEMORY, String.class, HIT);
+
+        List<MetricsSnapshot> snapshots = metrics.snapshots(10, TimeUnit.MILLISECONDS)
+                .take(2)
+                .toList()
+                .blockingGet();
+
+        assertEquals(2, snapshots.size());
+        assertEquals(1, snapshots.get(1).getCount(MEMORY, String.class, HIT));
+        assertTrue(snapshots.get(1).getTimestampMillis() >= snapshots.get(0).getTimestampMillis());
+    }
+
+    @Test
+    public void resetDropsEverything() throws Exception {
+        metrics.increment(MEMORY, String.class, HIT);
+        metrics.reset();
+
+        assertEquals(0, metrics.snapshot().getTotal(MEMORY, HIT));
+        assertTrue(metrics.snapshot().getDataClasses(MEMORY).isEmpty());
+    }
+}
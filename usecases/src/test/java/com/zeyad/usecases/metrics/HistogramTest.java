@@ -0,0 +1,60 @@
+package com.zeyad.usecases.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+public class HistogramTest {
+    private Histogram histogram;
+
+    @Before
+    public void setUp() throws Exception {
+        histogram = new Histogram();
+    }
+
+    @Test
+    public void emptySnapshot() throws Exception {
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0.0, snapshot.getMean(), 0);
+        assertEquals(0, snapshot.getPercentile(0.99));
+    }
+
+    @Test
+    public void countSumMeanAndMax() throws Exception {
+        histogram.record(10);
+        histogram.record(30);
+        histogram.record(-5);
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.getCount());
+        assertEquals(40, snapshot.getSum());
+        assertEquals(30, snapshot.getMax());
+        assertEquals(40 / 3.0, snapshot.getMean(), 0.001);
+    }
+
+    @Test
+    public void percentilesAreBucketUpperBounds() throws Exception {
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(127, snapshot.getPercentile(0.5));
+        assertEquals(127, snapshot.getPercentile(0.99));
+        assertEquals(5000, snapshot.getPercentile(1));
+    }
+
+    @Test
+    public void snapshotIsNotAffectedByLaterRecords() throws Exception {
+        histogram.record(1);
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        histogram.record(2);
+
+        assertEquals(1, snapshot.getCount());
+        assertEquals(1, snapshot.getPercentile(1));
+    }
+}
@@ -10,9 +10,12 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Mockito;
 
+import java.io.File;
 import java.util.Map;
 
+import okhttp3.Cache;
 import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import okhttp3.logging.HttpLoggingInterceptor;
 
@@ -20,6 +23,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 
@@ -72,6 +76,20 @@ public class ApiConnectionTest {
                                         : HttpLoggingInterceptor.Level.NONE)));
     }
 
+    @Test
+    public void testProvideOkHttpClient_sharesTheConnectionsOfTheBaseClient() throws Exception {
+        OkHttpClient baseClient = new OkHttpClient();
+        Cache cache = new Cache(new File("http-cache"), 1024);
+
+        OkHttpClient cachedClient = ApiConnection.provideOkHttpClient(baseClient, cache);
+
+        assertThat(cachedClient.cache(), is(sameInstance(cache)));
+        assertThat(cachedClient.connectionPool(), is(sameInstance(baseClient.connectionPool())));
+        assertThat(cachedClient.dispatcher(), is(sameInstance(baseClient.dispatcher())));
+        assertThat(cachedClient.sslSocketFactory(), is(sameInstance(baseClient.sslSocketFactory())));
+        assertThat(ApiConnection.provideOkHttpClient(baseClient, null), is(sameInstance(baseClient)));
+    }
+
     @Test
     public void testDynamicDownload() throws Exception {
         mApiConnection.dynamicDownload(mValidUrl);
@@ -118,6 +136,12 @@ public class ApiConnectionTest {
         Mockito.verify(mRestApiWithoutCache).dynamicGetList(eq(mValidUrl));
     }
 
+    @Test
+    public void testDynamicGetListStream() throws Exception {
+        mApiConnection.dynamicGetListStream(mValidUrl, false);
+        Mockito.verify(mRestApiWithoutCache).dynamicGetListStream(eq(mValidUrl));
+    }
+
     @Test
     public void testDynamicPostObject() throws Exception {
         mApiConnection.dynamicPost(mValidUrl, mMockedRequestBody);
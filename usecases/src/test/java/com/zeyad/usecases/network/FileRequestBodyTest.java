@@ -0,0 +1,49 @@
+package com.zeyad.usecases.network;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import okio.Buffer;
+import okio.Okio;
+
+import static junit.framework.Assert.assertEquals;
+
+public class FileRequestBodyTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file(String content) throws Exception {
+        File file = folder.newFile();
+        Okio.buffer(Okio.sink(file)).writeUtf8(content).close();
+        return file;
+    }
+
+    @Test
+    public void writesTheRangeOfTheFile() throws Exception {
+        FileRequestBody body = new FileRequestBody(null, file("0123456789"), 3, 5, null, 1);
+        Buffer sink = new Buffer();
+
+        body.writeTo(sink);
+
+        assertEquals(5, body.contentLength());
+        assertEquals("34567", sink.readUtf8());
+    }
+
+    @Test
+    public void reportsTheProgressEveryStep() throws Exception {
+        List<Long> progress = new ArrayList<>();
+        FileRequestBody body = new FileRequestBody(null, file("0123456789"), 2, 8,
+                transferProgress -> progress.add(transferProgress.getBytesTransferred()), 4);
+
+        body.writeTo(new Buffer());
+
+        // the whole range is read at once, so only its end is reported
+        assertEquals(1, progress.size());
+        assertEquals(10L, (long) progress.get(0));
+    }
+}
@@ -0,0 +1,108 @@
+package com.zeyad.usecases.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.zip.Deflater;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSource;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+public class RequestCompressionTest {
+    private static final MediaType APPLICATION_JSON = MediaType.parse("application/json");
+    private static final String PAYLOAD = payload(200);
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private static String payload(int size) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            builder.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"user\"}");
+        }
+        return builder.append(']').toString();
+    }
+
+    private RecordedRequest post(RequestCompression compression, String path, String content) throws Exception {
+        server.enqueue(new MockResponse());
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(ApiConnection.provideGzipRequestInterceptor(compression))
+                .build();
+        client.newCall(new Request.Builder()
+                .url(server.url(path))
+                .post(RequestBody.create(APPLICATION_JSON, content))
+                .build())
+                .execute()
+                .close();
+        return server.takeRequest();
+    }
+
+    private static String gunzip(Buffer body) throws Exception {
+        Buffer gunzipped = new Buffer();
+        gunzipped.writeAll(new GzipSource(body));
+        return gunzipped.readUtf8();
+    }
+
+    @Test
+    public void compressesBodiesFromTheMinimumSize() throws Exception {
+        RecordedRequest request = post(new RequestCompression.Builder().build(), "/users", PAYLOAD);
+
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        assertEquals(String.valueOf(request.getBodySize()), request.getHeader("Content-Length"));
+        assertEquals(PAYLOAD, gunzip(request.getBody()));
+    }
+
+    @Test
+    public void leavesSmallerBodiesAsTheyAre() throws Exception {
+        RecordedRequest request = post(new RequestCompression.Builder().minBytes(PAYLOAD.length() + 1).build(),
+                "/users", PAYLOAD);
+
+        assertNull(request.getHeader("Content-Encoding"));
+        assertEquals(PAYLOAD, request.getBody().readUtf8());
+    }
+
+    @Test
+    public void streamsChunkedBodies() throws Exception {
+        RecordedRequest request = post(new RequestCompression.Builder()
+                .level(Deflater.BEST_SPEED)
+                .chunked()
+                .build(), "/users", PAYLOAD);
+
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+        assertNull(request.getHeader("Content-Length"));
+        assertEquals(PAYLOAD, gunzip(request.getBody()));
+    }
+
+    @Test
+    public void onlyCompressesTheIncludedEndpoints() throws Exception {
+        RequestCompression compression = new RequestCompression.Builder()
+                .include(server.url("/users").toString())
+                .exclude(server.url("/users/raw").toString())
+                .build();
+
+        assertEquals("gzip", post(compression, "/users/1", PAYLOAD).getHeader("Content-Encoding"));
+        assertNull(post(compression, "/users/raw", PAYLOAD).getHeader("Content-Encoding"));
+        assertNull(post(compression, "/repositories", PAYLOAD).getHeader("Content-Encoding"));
+    }
+}
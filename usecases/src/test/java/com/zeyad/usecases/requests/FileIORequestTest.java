@@ -67,5 +67,28 @@ public class FileIORequestTest {
     public void testWhileChargingGetFile() throws Exception {
         assertThat(mFileIORequest.isWhileCharging(), is(equalTo(WHILE_CHARGING)));
     }
-}
 
+    @Test
+    public void testGetChecksum() throws Exception {
+        FileIORequest fileIORequest = new FileIORequest.Builder(URL, FILE)
+                .checksum("SHA-256", "ab12")
+                .progressStep(1024)
+                .build();
+        assertThat(fileIORequest.getChecksumAlgorithm(), is(equalTo("SHA-256")));
+        assertThat(fileIORequest.getChecksum(), is(equalTo("ab12")));
+        assertThat(fileIORequest.getProgressStep(), is(equalTo(1024L)));
+    }
+
+    @Test
+    public void testGetSegments() throws Exception {
+        assertThat(mFileIORequest.getSegments(), is(equalTo(1)));
+        assertThat(new FileIORequest.Builder(URL, FILE).segments(4).build().getSegments(), is(equalTo(4)));
+    }
+
+    @Test
+    public void testGetChunkSize() throws Exception {
+        assertThat(mFileIORequest.getChunkSize(), is(equalTo(0L)));
+        assertThat(new FileIORequest.Builder(URL, FILE).chunkSize(4096).build().getChunkSize(),
+                is(equalTo(4096L)));
+    }
+}
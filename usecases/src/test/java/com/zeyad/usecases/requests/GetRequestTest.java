@@ -29,6 +29,7 @@ public class GetRequestTest {
                 new GetRequest.Builder(DATA_CLASS, TO_PERSIST)
                         .fullUrl(URL)
                         .cache()
+                        .staleWhileRevalidate()
                         .id(ID, ID_COLUMN_NAME, long.class)
                         .build();
     }
@@ -58,6 +59,11 @@ public class GetRequestTest {
         assertThat(mGetRequest.isShouldCache(), is(equalTo(SHOULD_CACHE)));
     }
 
+    @Test
+    public void testIsStaleWhileRevalidate() throws Exception {
+        assertThat(mGetRequest.isStaleWhileRevalidate(), is(equalTo(true)));
+    }
+
     @Test
     public void testGetIdColumnName() throws Exception {
         assertThat(mGetRequest.getIdColumnName(), is(equalTo(ID_COLUMN_NAME)));
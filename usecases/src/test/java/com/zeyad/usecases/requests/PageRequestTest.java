@@ -0,0 +1,83 @@
+package com.zeyad.usecases.requests;
+
+import com.zeyad.usecases.TestRealmModel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@RunWith(JUnit4.class)
+public class PageRequestTest {
+
+    private GetRequest mTemplate;
+
+    @Before
+    public void setUp() throws Exception {
+        mTemplate = new GetRequest.Builder(TestRealmModel.class, true)
+                .fullUrl("https://api.github.com/users")
+                .build();
+    }
+
+    @Test
+    public void offsetKeys() throws Exception {
+        PageRequest<TestRealmModel> pageRequest = new PageRequest.Builder<TestRealmModel>(mTemplate)
+                .offset("offset", 10, 2)
+                .build();
+        TestRealmModel item = new TestRealmModel(1, "1");
+
+        assertThat(pageRequest.isKeyedByOffset(), is(true));
+        assertThat(pageRequest.getKey(3), is(equalTo((Object) 16L)));
+        assertThat(pageRequest.getUrl(16L), is(equalTo("https://api.github.com/users?offset=16")));
+        assertThat(pageRequest.getNextKey(16L, Arrays.asList(item, item)), is(equalTo((Object) 18L)));
+        assertThat(pageRequest.getNextKey(16L, Collections.singletonList(item)), is(nullValue()));
+    }
+
+    @Test
+    public void pageNumberKeys() throws Exception {
+        GetRequest template = new GetRequest.Builder(TestRealmModel.class, true)
+                .fullUrl("https://host/items?per_page=2")
+                .build();
+        PageRequest<TestRealmModel> pageRequest = new PageRequest.Builder<TestRealmModel>(template)
+                .pageNumber("page", 1, 2)
+                .build();
+        TestRealmModel item = new TestRealmModel(1, "1");
+
+        assertThat(pageRequest.getKey(2), is(equalTo((Object) 3L)));
+        assertThat(pageRequest.getUrl(3L), is(equalTo("https://host/items?per_page=2&page=3")));
+        assertThat(pageRequest.getNextKey(3L, Arrays.asList(item, item)), is(equalTo((Object) 4L)));
+    }
+
+    @Test
+    public void cursorKeys() throws Exception {
+        PageRequest<TestRealmModel> pageRequest = new PageRequest.Builder<TestRealmModel>(mTemplate)
+                .cursor("since", 0, 0, TestRealmModel::getId)
+                .prefetch(4)
+                .build();
+
+        assertThat(pageRequest.isKeyedByOffset(), is(false));
+        assertThat(pageRequest.getPrefetch(), is(4));
+        assertThat(pageRequest.getFirstKey(), is(equalTo((Object) 0)));
+        assertThat(pageRequest.getNextKey(0, Arrays.asList(new TestRealmModel(3, "3"),
+                new TestRealmModel(46, "46"))), is(equalTo((Object) 46)));
+        assertThat(pageRequest.getNextKey(46, Collections.emptyList()), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unkeyedPagesAreRejected() throws Exception {
+        new PageRequest.Builder<TestRealmModel>(mTemplate).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPagesAreRejected() throws Exception {
+        new PageRequest.Builder<TestRealmModel>(mTemplate).offset("offset", 0, 0);
+    }
+}
@@ -116,6 +116,8 @@ public class FileIOTest {
                         anyBoolean(),
                         anyBoolean()))
                 .thenReturn(Flowable.empty());
+        Mockito.when(cloudStore.dynamicDownloadFileProgress(any())).thenReturn(Flowable.empty());
+        Mockito.when(cloudStore.dynamicUploadFile(any(FileIORequest.class))).thenReturn(Flowable.empty());
         Mockito.when(
                 cloudStore.dynamicUploadFile(
                         Mockito.anyString(),
@@ -9,6 +9,7 @@ import android.os.HandlerThread;
 import android.support.annotation.NonNull;
 import android.support.test.rule.BuildConfig;
 
+import com.google.gson.JsonObject;
 import com.zeyad.usecases.TestRealmModel;
 import com.zeyad.usecases.db.DataBaseManager;
 import com.zeyad.usecases.db.RealmManager;
@@ -21,15 +22,17 @@ import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.reactivex.Flowable;
 import io.reactivex.Single;
@@ -37,8 +40,10 @@ import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.subscribers.TestSubscriber;
 import io.realm.RealmModel;
 import io.realm.RealmObject;
+import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 
 import static junit.framework.Assert.assertEquals;
 import static org.mockito.Matchers.any;
@@ -112,38 +117,97 @@ public class CloudStoreTest { // TODO: 6/5/17 add error assertions, disk and cac
                 .subscribe(testSubscriber);
 
         testSubscriber.assertNoErrors();
+        cloudStore.flushPendingWrites().blockingGet();
 
         verify(mockApiConnection, times(1)).dynamicGetObject(anyString(), anyBoolean());
-        verifyDBInteractions(0, 0, 1, 0, 0, 0);
+        verifyDBInteractions(0, 1, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void dynamicGetObjectCachesTheResponseUnderItsId() throws Exception {
+        TestRealmModel response = new TestRealmModel(7, "seven");
+        when(mockApiConnection.dynamicGetObject(anyString(), anyBoolean())).thenReturn(Flowable.just(response));
+        Utils utils = mock(Utils.class);
+        when(utils.withCache(true)).thenReturn(true);
+        MemoryStore memoryStore = new MemoryStore(com.zeyad.usecases.Config.getGson());
+        cloudStore = new CloudStore(mockApiConnection, mockDataBaseManager, new DAOMapper(), memoryStore, utils);
+
+        TestSubscriber<TestRealmModel> testSubscriber = new TestSubscriber<>();
+        cloudStore.<TestRealmModel>dynamicGetObject("", "id", 1L, long.class, TestRealmModel.class, false, true)
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertValue(response);
+        memoryStore.<TestRealmModel>getItem(7L, TestRealmModel.class).test()
+                .assertValue(item -> item == response);
+        memoryStore.getItem(1L, TestRealmModel.class).test().assertError(IllegalAccessException.class);
     }
 
     @Test
     public void dynamicGetList() throws Exception {
-        List<TestRealmModel> testRealmObjects = new ArrayList<>();
-        testRealmObjects.add(new TestRealmModel());
-        Flowable<List> observable = Flowable.just(testRealmObjects);
-        when(mockApiConnection.dynamicGetList(anyString(), anyBoolean())).thenReturn(observable);
+        when(mockApiConnection.dynamicGetListStream(anyString(), anyBoolean()))
+                .thenReturn(Flowable.just(listBody("[{\"id\":1,\"value\":\"one\"}]")));
 
-        cloudStore.dynamicGetList("", Object.class, false, false);
+        cloudStore.dynamicGetList("", TestRealmModel.class, false, false);
 
-        verify(mockApiConnection, times(1)).dynamicGetList(anyString(), anyBoolean());
+        verify(mockApiConnection, times(1)).dynamicGetListStream(anyString(), anyBoolean());
         verifyDBInteractions(0, 0, 0, 0, 0, 0);
     }
 
     @Test
     public void dynamicGetListCanWillPersist() throws Exception {
-        Flowable<List> observable = Flowable.just(Collections.singletonList(new TestRealmModel()));
-        when(mockApiConnection.dynamicGetList(anyString(), anyBoolean())).thenReturn(observable);
+        when(mockApiConnection.dynamicGetListStream(anyString(), anyBoolean()))
+                .thenReturn(Flowable.just(listBody("[{\"id\":1,\"value\":\"one\"}]")));
 
-        TestSubscriber<List> testSubscriber = new TestSubscriber<>();
-        cloudStore.dynamicGetList("", Object.class, true, false).subscribe(testSubscriber);
+        TestSubscriber<List<TestRealmModel>> testSubscriber = new TestSubscriber<>();
+        cloudStore.<TestRealmModel>dynamicGetList("", TestRealmModel.class, true, false)
+                .subscribe(testSubscriber);
 
         testSubscriber.assertNoErrors();
+        testSubscriber.assertValue(Collections.singletonList(new TestRealmModel(1, "one")));
 
-        verify(mockApiConnection, times(1)).dynamicGetList(anyString(), anyBoolean());
+        verify(mockApiConnection, times(1)).dynamicGetListStream(anyString(), anyBoolean());
         //        verifyDBInteractions(0, 1, 0, 0, 0, 0);
     }
 
+    @Test
+    public void dynamicGetListPagesEmitsPagesAsTheyAreParsed() throws Exception {
+        when(mockApiConnection.dynamicGetListStream(anyString(), anyBoolean()))
+                .thenReturn(Flowable.just(listBody("[{\"id\":1,\"value\":\"one\"},"
+                        + "{\"id\":2,\"value\":\"two\"},{\"id\":3,\"value\":\"three\"}]")));
+
+        TestSubscriber<List<TestRealmModel>> testSubscriber = new TestSubscriber<>();
+        cloudStore.<TestRealmModel>dynamicGetListPages("", TestRealmModel.class, 2, false, false)
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertValues(
+                Arrays.asList(new TestRealmModel(1, "one"), new TestRealmModel(2, "two")),
+                Collections.singletonList(new TestRealmModel(3, "three")));
+        testSubscriber.assertComplete();
+    }
+
+    @Test
+    public void dynamicGetListUsesRegisteredMappers() throws Exception {
+        DAOMapper daoMapper = new DAOMapper();
+        daoMapper.register(TestRealmModel.class, source -> {
+            JsonObject jsonObject = (JsonObject) source;
+            return new TestRealmModel(jsonObject.get("id").getAsInt(),
+                    jsonObject.get("value").getAsString().toUpperCase());
+        });
+        cloudStore = new CloudStore(mockApiConnection, mockDataBaseManager, daoMapper,
+                new MemoryStore(com.zeyad.usecases.Config.getGson()), mock(Utils.class));
+        when(mockApiConnection.dynamicGetListStream(anyString(), anyBoolean()))
+                .thenReturn(Flowable.just(listBody("[{\"id\":1,\"value\":\"one\"},"
+                        + "{\"id\":2,\"value\":\"two\"}]")));
+
+        TestSubscriber<List<TestRealmModel>> testSubscriber = new TestSubscriber<>();
+        cloudStore.<TestRealmModel>dynamicGetList("", TestRealmModel.class, false, false)
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertValue(Arrays.asList(new TestRealmModel(1, "ONE"), new TestRealmModel(2, "TWO")));
+    }
+
     @Test
     public void dynamicPatchObject() throws Exception {
         when(mockApiConnection.dynamicPatch(anyString(), any(RequestBody.class)))
@@ -521,6 +585,22 @@ public class CloudStoreTest { // TODO: 6/5/17 add error assertions, disk and cac
         verifyDBInteractions(0, 0, 0, 0, 0, 0);
     }
 
+    @Test
+    public void dynamicUploadFileSendsTheFileOnce() throws Exception {
+        when(mockApiConnection.dynamicUpload(anyString(), anyMap(), any(MultipartBody.Part.class)))
+                .thenReturn(observable);
+        HashMap<String, Object> parameters = new HashMap<>();
+        parameters.put("id", 1);
+
+        cloudStore.dynamicUploadFile("", new File(""), "file", parameters, false, false, false, Object.class)
+                .subscribe(new TestSubscriber<>());
+
+        ArgumentCaptor<Map> partMap = ArgumentCaptor.forClass(Map.class);
+        verify(mockApiConnection, times(1))
+                .dynamicUpload(anyString(), partMap.capture(), any(MultipartBody.Part.class));
+        assertEquals(Collections.singleton("id"), partMap.getValue().keySet());
+    }
+
     @Test
     public void dynamicUploadFileNoNetwork() throws Exception {
         changeStateOfNetwork(mockContext, false);
@@ -549,15 +629,15 @@ public class CloudStoreTest { // TODO: 6/5/17 add error assertions, disk and cac
 
     @Test
     public void dynamicDownloadFile() throws Exception {
-        when(mockApiConnection.dynamicDownload(anyString())).thenReturn(observable);
+        when(mockApiConnection.dynamicDownloadRange(anyString(), any(), any())).thenReturn(Flowable.empty());
 
         TestSubscriber<Object> testSubscriber = new TestSubscriber<>();
         cloudStore.dynamicDownloadFile("", new File(""), false, false, false)
                 .subscribe(testSubscriber);
 
-        //        testSubscriber.assertNoErrors();
+        testSubscriber.assertNoErrors();
 
-        verify(mockApiConnection, times(1)).dynamicDownload(anyString());
+        verify(mockApiConnection, times(1)).dynamicDownloadRange(anyString(), any(), any());
         verifyDBInteractions(0, 0, 0, 0, 0, 0);
     }
 
@@ -610,6 +690,11 @@ public class CloudStoreTest { // TODO: 6/5/17 add error assertions, disk and cac
         verify(mockDataBaseManager, atLeast(evict)).evictById(any(Class.class), anyString(), anyLong());
     }
 
+    @NonNull
+    private ResponseBody listBody(String json) {
+        return ResponseBody.create(MediaType.parse(CloudStore.APPLICATION_JSON), json);
+    }
+
     @NonNull
     private Context changeStateOfNetwork(@NonNull Context mockedContext, boolean toEnable) {
         ConnectivityManager connectivityManager = Mockito.mock(ConnectivityManager.class);
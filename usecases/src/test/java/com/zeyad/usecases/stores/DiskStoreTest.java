@@ -4,6 +4,8 @@ import com.zeyad.usecases.Config;
 import com.zeyad.usecases.TestRealmModel;
 import com.zeyad.usecases.db.DataBaseManager;
 import com.zeyad.usecases.db.RealmQueryProvider;
+import com.zeyad.usecases.metrics.DataServiceMetrics;
+import com.zeyad.usecases.metrics.MetricsSnapshot;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -15,12 +17,16 @@ import org.mockito.Mockito;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
 import io.reactivex.Flowable;
 import io.reactivex.Single;
 
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.HIT;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.MISS;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.DISK;
 import static junit.framework.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
@@ -57,6 +63,27 @@ public class DiskStoreTest { // TODO: 6/5/17 add cache verifications
         Mockito.verify(dbManager, times(1)).getAll(any(Class.class));
     }
 
+    @Test
+    public void getListCountsTheFirstResultOfEachRead() {
+        DataServiceMetrics metrics = DataServiceMetrics.getInstance();
+        metrics.reset();
+        List<TestRealmModel> items = Collections.singletonList(new TestRealmModel(1, "1"));
+        when(dbManager.<TestRealmModel>getAll(TestRealmModel.class))
+                .thenReturn(Flowable.just(items, items, items));
+        when(dbManager.<TestRealmModel>getAll(Object.class))
+                .thenReturn(Flowable.just(Collections.<TestRealmModel>emptyList(), items));
+
+        mDiskStore.dynamicGetList("", TestRealmModel.class, false, false).test().assertValueCount(3);
+        mDiskStore.dynamicGetList("", TestRealmModel.class, false, false).test();
+        mDiskStore.dynamicGetList("", Object.class, false, false).test();
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getCount(DISK, TestRealmModel.class, HIT));
+        assertEquals(0, snapshot.getCount(DISK, TestRealmModel.class, MISS));
+        assertEquals(0, snapshot.getCount(DISK, Object.class, HIT));
+        assertEquals(1, snapshot.getCount(DISK, Object.class, MISS));
+    }
+
     @Test
     public void testGetObject() {
         Flowable observable = Flowable.just(new TestRealmModel());
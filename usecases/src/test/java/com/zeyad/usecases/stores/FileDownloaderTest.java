@@ -0,0 +1,366 @@
+package com.zeyad.usecases.stores;
+
+import com.zeyad.usecases.network.ApiConnection;
+import com.zeyad.usecases.network.RestApi;
+import com.zeyad.usecases.network.TransferProgress;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.ByteString;
+import okio.Okio;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileDownloaderTest {
+    private static final String URL = "http://localhost/file", CONTENT = "0123456789", E_TAG = "\"v1\"";
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private static final String LARGE_CONTENT = largeContent(1000);
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private ApiConnection apiConnection;
+    private FileDownloader fileDownloader;
+    private File file, part, meta;
+
+    @Before
+    public void setUp() throws Exception {
+        apiConnection = mock(ApiConnection.class);
+        fileDownloader = new FileDownloader(apiConnection);
+        file = new File(folder.getRoot(), "file");
+        part = new File(folder.getRoot(), "file.part");
+        meta = new File(folder.getRoot(), "file.part.meta");
+    }
+
+    private static Response<ResponseBody> response(int code, ResponseBody body, String... headers) {
+        okhttp3.Response raw = new okhttp3.Response.Builder()
+                .code(code)
+                .message("")
+                .protocol(Protocol.HTTP_1_1)
+                .request(new Request.Builder().url(URL).build())
+                .headers(Headers.of(headers))
+                .build();
+        return code < 300 ? Response.success(body, raw) : Response.error(body, raw);
+    }
+
+    private static String largeContent(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        return builder.toString();
+    }
+
+    private static FileDownloader served(MockWebServer server) {
+        RestApi restApi = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build()
+                .create(RestApi.class);
+        return new FileDownloader(new ApiConnection(restApi, restApi));
+    }
+
+    private static ResponseBody body(String content) {
+        return ResponseBody.create(OCTET_STREAM, content);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Okio.buffer(Okio.sink(file)).writeUtf8(content).close();
+    }
+
+    private static String read(File file) throws IOException {
+        return Okio.buffer(Okio.source(file)).readUtf8();
+    }
+
+    @Test
+    public void downloadsThroughThePartFile() throws Exception {
+        when(apiConnection.dynamicDownloadRange(URL, null, null))
+                .thenAnswer(invocation -> Flowable.just(response(200, body(CONTENT), "ETag", E_TAG)));
+
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+        fileDownloader.download(URL, file, 4, null, null).subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertComplete();
+        List<TransferProgress> progress = testSubscriber.values();
+        assertEquals(0, progress.get(0).getBytesTransferred());
+        assertEquals(10, progress.get(0).getTotalBytes());
+        assertTrue(progress.get(progress.size() - 1).isDone());
+        assertEquals(CONTENT, read(file));
+        assertFalse(part.exists());
+        assertFalse(meta.exists());
+    }
+
+    @Test
+    public void resumesFromThePartFile() throws Exception {
+        write(part, "01234");
+        write(meta, E_TAG + "\n10\n");
+        when(apiConnection.dynamicDownloadRange(URL, "bytes=5-", E_TAG))
+                .thenAnswer(invocation -> Flowable.just(response(206, body("56789"),
+                        "Content-Range", "bytes 5-9/10")));
+
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+        fileDownloader.download(URL, file, 4, null, null).subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        assertEquals(5, testSubscriber.values().get(0).getBytesTransferred());
+        assertEquals(CONTENT, read(file));
+    }
+
+    @Test
+    public void startsOverWhenTheFileChanged() throws Exception {
+        write(part, "01234");
+        write(meta, E_TAG + "\n10\n");
+        when(apiConnection.dynamicDownloadRange(URL, "bytes=5-", E_TAG))
+                .thenAnswer(invocation -> Flowable.just(response(200, body("abcdefghij"), "ETag", "\"v2\"")));
+
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+        fileDownloader.download(URL, file, 4, null, null).subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        assertEquals("abcdefghij", read(file));
+    }
+
+    @Test
+    public void retriesATruncatedDownloadFromWhereItStopped() throws Exception {
+        when(apiConnection.dynamicDownloadRange(URL, null, null))
+                .thenAnswer(invocation -> Flowable.just(response(200,
+                        ResponseBody.create(OCTET_STREAM, 10, new Buffer().writeUtf8("01234")),
+                        "ETag", E_TAG)));
+        when(apiConnection.dynamicDownloadRange(URL, "bytes=5-", E_TAG))
+                .thenAnswer(invocation -> Flowable.just(response(206, body("56789"),
+                        "Content-Range", "bytes 5-9/10")));
+
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+        fileDownloader.download(URL, file, 4, null, null).subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        assertEquals(CONTENT, read(file));
+        verify(apiConnection, times(1)).dynamicDownloadRange(URL, null, null);
+        verify(apiConnection, times(1)).dynamicDownloadRange(URL, "bytes=5-", E_TAG);
+    }
+
+    @Test
+    public void verifiesTheChecksum() throws Exception {
+        when(apiConnection.dynamicDownloadRange(URL, null, null))
+                .thenAnswer(invocation -> Flowable.just(response(200, body(CONTENT))));
+
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+        fileDownloader.download(URL, file, 4, "SHA-256", ByteString.encodeUtf8(CONTENT).sha256().hex())
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertNoErrors();
+        assertEquals(CONTENT, read(file));
+    }
+
+    @Test
+    public void discardsAFileNotMatchingTheChecksum() throws Exception {
+        when(apiConnection.dynamicDownloadRange(URL, null, null))
+                .thenAnswer(invocation -> Flowable.just(response(200, body(CONTENT))));
+
+        TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+        fileDownloader.download(URL, file, 4, "SHA-256", ByteString.encodeUtf8("other").sha256().hex())
+                .subscribe(testSubscriber);
+
+        testSubscriber.assertError(IOException.class);
+        assertFalse(file.exists());
+        assertFalse(part.exists());
+    }
+
+    @Test
+    public void downloadsSegmentsAtTheirOffsets() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new RangeDispatcher(true, false));
+        server.start();
+        try {
+            TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+            served(server).download(server.url("/file").toString(), file, 100, "SHA-256",
+                    ByteString.encodeUtf8(LARGE_CONTENT).sha256().hex(), 4)
+                    .subscribe(testSubscriber);
+
+            testSubscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+            testSubscriber.assertNoErrors();
+            assertTrue(testSubscriber.values().get(testSubscriber.valueCount() - 1).isDone());
+            assertEquals(LARGE_CONTENT, read(file));
+            assertFalse(part.exists());
+            assertEquals(5, server.getRequestCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void retriesTheRestOfAFailedSegment() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new RangeDispatcher(true, true));
+        server.start();
+        try {
+            TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+            served(server).download(server.url("/file").toString(), file, 100, null, null, 4)
+                    .subscribe(testSubscriber);
+
+            testSubscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+            testSubscriber.assertNoErrors();
+            assertEquals(LARGE_CONTENT, read(file));
+            assertEquals(6, server.getRequestCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void fallsBackToOneStreamWithoutAcceptRanges() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new RangeDispatcher(false, false));
+        server.start();
+        try {
+            TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+            served(server).download(server.url("/file").toString(), file, 100, null, null, 4)
+                    .subscribe(testSubscriber);
+
+            testSubscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+            testSubscriber.assertNoErrors();
+            assertEquals(LARGE_CONTENT, read(file));
+            assertEquals("HEAD", server.takeRequest().getMethod());
+            assertNull(server.takeRequest().getHeader("Range"));
+            assertEquals(2, server.getRequestCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void asksForTheLengthOfTheUnencodedFile() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new RangeDispatcher(true, false));
+        server.start();
+        try {
+            served(server).download(server.url("/file").toString(), file, 100, null, null, 4)
+                    .test()
+                    .awaitTerminalEvent(10, TimeUnit.SECONDS);
+
+            assertEquals("identity", server.takeRequest().getHeader("Accept-Encoding"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void fallsBackToOneStreamForEncodedFiles() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new RangeDispatcher(true, false, "gzip", LARGE_CONTENT.length()));
+        server.start();
+        try {
+            TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+            served(server).download(server.url("/file").toString(), file, 100, null, null, 4)
+                    .subscribe(testSubscriber);
+
+            testSubscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+            testSubscriber.assertNoErrors();
+            assertEquals(LARGE_CONTENT, read(file));
+            assertEquals("HEAD", server.takeRequest().getMethod());
+            assertNull(server.takeRequest().getHeader("Range"));
+            assertEquals(2, server.getRequestCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void failsIfTheRangesDisagreeWithTheAnnouncedLength() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new RangeDispatcher(true, false, null, 800));
+        server.start();
+        try {
+            TestSubscriber<TransferProgress> testSubscriber = new TestSubscriber<>();
+            served(server).download(server.url("/file").toString(), file, 100, null, null, 4)
+                    .subscribe(testSubscriber);
+
+            testSubscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+            testSubscriber.assertError(IllegalStateException.class);
+            assertFalse(file.exists());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    /**
+     * Serves {@link #LARGE_CONTENT}, by ranges if they are accepted, dropping the connection halfway
+     * through the second segment once if asked to. Its {@code HEAD} can announce an encoding and a
+     * length of its own.
+     */
+    private static final class RangeDispatcher extends Dispatcher {
+        private final boolean acceptRanges;
+        private final AtomicBoolean failSecondSegment;
+        private final String contentEncoding;
+        private final int headLength;
+
+        RangeDispatcher(boolean acceptRanges, boolean failSecondSegment) {
+            this(acceptRanges, failSecondSegment, null, LARGE_CONTENT.length());
+        }
+
+        RangeDispatcher(boolean acceptRanges, boolean failSecondSegment, String contentEncoding, int headLength) {
+            this.acceptRanges = acceptRanges;
+            this.failSecondSegment = new AtomicBoolean(failSecondSegment);
+            this.contentEncoding = contentEncoding;
+            this.headLength = headLength;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if ("HEAD".equals(request.getMethod())) {
+                MockResponse response = new MockResponse()
+                        .setHeader("Content-Length", headLength)
+                        .setHeader("ETag", E_TAG);
+                if (contentEncoding != null) {
+                    response.setHeader("Content-Encoding", contentEncoding);
+                }
+                return acceptRanges ? response.setHeader("Accept-Ranges", "bytes") : response;
+            }
+            String range = request.getHeader("Range");
+            if (!acceptRanges || range == null) {
+                return new MockResponse().setBody(LARGE_CONTENT);
+            }
+            int start = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-'))),
+                    end = Integer.parseInt(range.substring(range.indexOf('-') + 1));
+            MockResponse response = new MockResponse()
+                    .setResponseCode(206)
+                    .setHeader("Content-Range", "bytes " + start + '-' + end + '/' + LARGE_CONTENT.length())
+                    .setBody(LARGE_CONTENT.substring(start, end + 1));
+            return start == 250 && failSecondSegment.getAndSet(false) ?
+                    response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY) : response;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.zeyad.usecases.stores;
+
+import com.zeyad.usecases.network.ApiConnection;
+import com.zeyad.usecases.network.RestApi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.subscribers.TestSubscriber;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.Okio;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+
+import static junit.framework.Assert.assertEquals;
+
+public class FileUploaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private MockWebServer server;
+    private TusDispatcher dispatcher;
+    private FileUploader fileUploader;
+    private File file;
+    private String content;
+
+    @Before
+    public void setUp() throws Exception {
+        dispatcher = new TusDispatcher();
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        RestApi restApi = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient.Builder().retryOnConnectionFailure(false).build())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build()
+                .create(RestApi.class);
+        fileUploader = new FileUploader(new ApiConnection(restApi, restApi));
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        content = builder.toString();
+        file = folder.newFile("upload");
+        Okio.buffer(Okio.sink(file)).writeUtf8(content).close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void uploadsTheFileInChunks() throws Exception {
+        TestSubscriber<Long> testSubscriber = new TestSubscriber<>();
+        fileUploader.upload(server.url("/files").toString(), file,
+                Collections.<String, Object>singletonMap("id", 1), 300, null, 100)
+                .subscribe(testSubscriber);
+
+        testSubscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+        testSubscriber.assertNoErrors();
+        testSubscriber.assertValues(300L, 600L, 900L, 1000L);
+        assertEquals(content, dispatcher.received.readUtf8());
+        RecordedRequest session = server.takeRequest();
+        assertEquals("POST", session.getMethod());
+        assertEquals("1000", session.getHeader("Upload-Length"));
+        assertEquals("filename dXBsb2Fk,id MQ==", session.getHeader("Upload-Metadata"));
+    }
+
+    @Test
+    public void resumesFromTheOffsetOfTheSession() throws Exception {
+        dispatcher.dropSecondChunk.set(true);
+        List<Long> progress = new ArrayList<>();
+
+        TestSubscriber<Long> testSubscriber = new TestSubscriber<>();
+        fileUploader.upload(server.url("/files").toString(), file, null, 300,
+                transferProgress -> progress.add(transferProgress.getBytesTransferred()), 300)
+                .subscribe(testSubscriber);
+
+        testSubscriber.awaitTerminalEvent(10, TimeUnit.SECONDS);
+        testSubscriber.assertNoErrors();
+        assertEquals(content, dispatcher.received.readUtf8());
+        // the dropped chunk was received, so the session tells to carry on after it
+        assertEquals(6, server.getRequestCount());
+        assertEquals(1000L, (long) progress.get(progress.size() - 1));
+    }
+
+    /**
+     * Serves a single tus upload session, dropping the connection once the second chunk is received
+     * if asked to.
+     */
+    private static final class TusDispatcher extends Dispatcher {
+        final Buffer received = new Buffer();
+        final AtomicBoolean dropSecondChunk = new AtomicBoolean();
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            switch (request.getMethod()) {
+                case "POST":
+                    return new MockResponse().setResponseCode(201).setHeader("Location", "/files/1");
+                case "HEAD":
+                    return new MockResponse().setHeader("Upload-Offset", received.size());
+                default:
+                    if (Long.parseLong(request.getHeader("Upload-Offset")) != received.size()) {
+                        return new MockResponse().setResponseCode(409);
+                    }
+                    boolean drop = received.size() > 0 && dropSecondChunk.getAndSet(false);
+                    received.writeAll(request.getBody());
+                    MockResponse response = new MockResponse().setResponseCode(204)
+                            .setHeader("Upload-Offset", received.size());
+                    return drop ? response.setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST) : response;
+            }
+        }
+    }
+}
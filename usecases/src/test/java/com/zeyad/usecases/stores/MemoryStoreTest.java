@@ -1,38 +1,391 @@
 package com.zeyad.usecases.stores;
 
+import android.support.test.rule.BuildConfig;
+
 import com.google.gson.Gson;
+import com.zeyad.usecases.TestRealmModel;
+import com.zeyad.usecases.cache.CachePolicy;
+import com.zeyad.usecases.cache.CachedList;
+import com.zeyad.usecases.cache.ObjectCache;
+import com.zeyad.usecases.metrics.DataServiceMetrics;
+import com.zeyad.usecases.metrics.MetricsSnapshot;
 
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.observers.TestObserver;
+
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.EVICTION;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.HIT;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Counter.MISS;
+import static com.zeyad.usecases.metrics.DataServiceMetrics.Store.MEMORY;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 
 /**
  * @author by ZIaDo on 6/5/17.
  */
-public class MemoryStoreTest { // TODO: 6/15/17 test ids
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class MemoryStoreTest {
     private MemoryStore memoryStore;
 
     @Before
     public void setUp() throws Exception {
-        memoryStore = new MemoryStore(new Gson());
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(100, 1024 * 1024,
+                TimeUnit.MINUTES.toNanos(1)));
     }
 
     @Test
     public void getAllItems() throws Exception {
-//        memoryStore.getAllItems(TestRealmModel.class);
+        JSONArray jsonArray = new JSONArray();
+        jsonArray.put(new JSONObject(new Gson().toJson(new TestRealmModel(1, "1"))));
+        jsonArray.put(new JSONObject(new Gson().toJson(new TestRealmModel(2, "2"))));
+        memoryStore.cacheList("id", jsonArray, TestRealmModel.class);
+
+        TestObserver<List<TestRealmModel>> testObserver = new TestObserver<>();
+        memoryStore.getAllItems(TestRealmModel.class).subscribe(testObserver);
+
+        testObserver.assertNoErrors();
+        testObserver.assertValue(list -> list.size() == 2);
+    }
+
+    @Test
+    public void getAllItemsMiss() throws Exception {
+        TestObserver<List<TestRealmModel>> testObserver = new TestObserver<>();
+        memoryStore.getAllItems(TestRealmModel.class).subscribe(testObserver);
+
+        testObserver.assertError(IllegalAccessException.class);
+    }
+
+    @Test
+    public void hitsMissesAndEvictionsAreRecorded() throws Exception {
+        DataServiceMetrics metrics = DataServiceMetrics.getInstance();
+        metrics.reset();
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(1, 1024 * 1024, 0));
+        memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(new TestRealmModel(1, "1"))),
+                TestRealmModel.class);
+        memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(new TestRealmModel(2, "2"))),
+                TestRealmModel.class);
+
+        memoryStore.getItem(1, TestRealmModel.class).test();
+        memoryStore.getItem(2, TestRealmModel.class).test();
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getCount(MEMORY, TestRealmModel.class, HIT));
+        assertEquals(1, snapshot.getCount(MEMORY, TestRealmModel.class, MISS));
+        assertEquals(1, snapshot.getCount(MEMORY, TestRealmModel.class, EVICTION));
+    }
+
+    @Test
+    public void getAllItemsPartially() throws Exception {
+        long[] now = {0};
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(100, 1024 * 1024, 1000, () -> now[0]));
+        memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(new TestRealmModel(1, "1"))),
+                TestRealmModel.class);
+        now[0] = 500;
+        memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(new TestRealmModel(2, "2"))),
+                TestRealmModel.class);
+        now[0] = 1000;
+
+        TestObserver<CachedList<TestRealmModel>> testObserver = new TestObserver<>();
+        memoryStore.<TestRealmModel>getAllItemsPartially(TestRealmModel.class).subscribe(testObserver);
+
+        testObserver.assertNoErrors();
+        testObserver.assertValue(cachedList -> cachedList.getItems().size() == 1
+                && cachedList.getMissingIds().equals(Collections.singletonList(1L)));
+    }
+
+    @Test
+    public void cacheModelUnderItsIdColumn() throws Exception {
+        TestRealmModel second = new TestRealmModel(2, "2");
+        memoryStore.cacheModel("id", new TestRealmModel(1, "1"), TestRealmModel.class);
+        memoryStore.cacheModel("id", second, TestRealmModel.class);
+        memoryStore.cacheModel("missing", new TestRealmModel(3, "3"), TestRealmModel.class);
+
+        memoryStore.<TestRealmModel>getItem(2L, TestRealmModel.class).test().assertValue(item -> item == second);
+        memoryStore.getAllItems(TestRealmModel.class).test().assertValue(list -> list.size() == 2);
+    }
+
+    @Test
+    public void expiredItemsLeaveTheIndexOnceFoundMissing() throws Exception {
+        long[] now = {0};
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(100, 1024 * 1024, 1000, () -> now[0]));
+        memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(new TestRealmModel(1, "1"))),
+                TestRealmModel.class);
+        now[0] = 500;
+        memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(new TestRealmModel(2, "2"))),
+                TestRealmModel.class);
+        now[0] = 1000;
+
+        memoryStore.<TestRealmModel>getAllItemsPartially(TestRealmModel.class).test()
+                .assertValue(cachedList -> cachedList.getMissingIds().equals(Collections.singletonList(1L)));
+        memoryStore.getAllItems(TestRealmModel.class).test().assertValue(list -> list.size() == 1);
+    }
+
+    @Test
+    public void evictedAndRejectedItemsLeaveTheIndex() throws Exception {
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(1, 1024 * 1024,
+                TimeUnit.MINUTES.toNanos(1)));
+        for (int i = 1; i <= 3; i++) {
+            memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(new TestRealmModel(i, "" + i))),
+                    TestRealmModel.class);
+        }
+
+        memoryStore.getAllItems(TestRealmModel.class).test().assertValue(list -> list.size() == 1);
     }
 
     @Test
     public void getObject() throws Exception {
-//        memoryStore.getItem("", TestRealmModel.class);
+        TestRealmModel testRealmModel = new TestRealmModel(1, "1");
+        memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(testRealmModel)),
+                TestRealmModel.class);
+
+        TestObserver<TestRealmModel> testObserver = new TestObserver<>();
+        memoryStore.<TestRealmModel>getItem(1, TestRealmModel.class).subscribe(testObserver);
+
+        testObserver.assertNoErrors();
+        testObserver.assertValue(testRealmModel);
+    }
+
+    @Test
+    public void getObjectByAStringId() throws Exception {
+        memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(new TestRealmModel(1, "1"))),
+                TestRealmModel.class);
+
+        memoryStore.<TestRealmModel>getItem("1", TestRealmModel.class).test().assertValueCount(1);
+    }
+
+    @Test
+    public void objectsWithoutIdAreNotCached() throws Exception {
+        memoryStore.cacheObject("id", new JSONObject().put("value", "1"), TestRealmModel.class);
+
+        memoryStore.getAllItems(TestRealmModel.class).test().assertError(IllegalAccessException.class);
+        memoryStore.<TestRealmModel>getItem(null, TestRealmModel.class).test()
+                .assertError(IllegalAccessException.class);
+    }
+
+    @Test
+    public void cacheModelKeepsTheInstance() throws Exception {
+        TestRealmModel testRealmModel = new TestRealmModel(1, "1");
+        memoryStore.cacheModel("id", testRealmModel, TestRealmModel.class);
+
+        TestObserver<TestRealmModel> testObserver = new TestObserver<>();
+        memoryStore.<TestRealmModel>getItem(1, TestRealmModel.class).subscribe(testObserver);
+
+        testObserver.assertNoErrors();
+        testObserver.assertValue(item -> item == testRealmModel);
+    }
+
+    @Test
+    public void noCachePolicySkipsCaching() throws Exception {
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(100, 1024 * 1024, 0),
+                Collections.singletonMap(TestRealmModel.class, new CachePolicy.Builder().noCache().build()));
+        memoryStore.cacheModel("id", new TestRealmModel(1, "1"), TestRealmModel.class);
+
+        assertFalse(memoryStore.isCacheable(TestRealmModel.class));
+        memoryStore.<TestRealmModel>getItem(1, TestRealmModel.class).test()
+                .assertError(IllegalAccessException.class);
+    }
+
+    @Test
+    public void timeToLivePolicyOverridesGlobalExpiry() throws Exception {
+        long[] now = {0};
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(100, 1024 * 1024, 1000, () -> now[0]),
+                Collections.singletonMap(TestRealmModel.class,
+                        new CachePolicy.Builder().timeToLive(100, TimeUnit.NANOSECONDS).build()));
+        memoryStore.cacheModel("id", new TestRealmModel(1, "1"), TestRealmModel.class);
+        memoryStore.cacheModel("id", new TestRealmModel(1, "other"), Object.class);
+        now[0] = 100;
+
+        memoryStore.<TestRealmModel>getItem(1, TestRealmModel.class).test()
+                .assertError(IllegalAccessException.class);
+        memoryStore.<TestRealmModel>getItem(1, Object.class).test()
+                .assertValue(item -> item.getValue().equals("other"));
     }
 
     @Test
-    public void cacheObject() throws Exception {
-//        memoryStore.cacheObject("", new JSONObject(), TestRealmModel.class);
+    public void maxEntriesPolicyBoundsTheClassOnly() throws Exception {
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(100, 1024 * 1024, 0),
+                Collections.singletonMap(TestRealmModel.class, new CachePolicy.Builder().maxEntries(2).build()));
+        for (int i = 1; i <= 10; i++) {
+            memoryStore.cacheModel("id", new TestRealmModel(i, String.valueOf(i)), TestRealmModel.class);
+            memoryStore.cacheModel("id", new TestRealmModel(i, String.valueOf(i)), Object.class);
+        }
+
+        TestObserver<CachedList<TestRealmModel>> testObserver = new TestObserver<>();
+        memoryStore.<TestRealmModel>getAllItemsPartially(TestRealmModel.class).subscribe(testObserver);
+        testObserver.assertValue(cachedList -> cachedList.getItems().size() == 2);
+        memoryStore.getAllItems(Object.class).test().assertValue(list -> list.size() == 10);
+    }
+
+    @Test
+    public void needsRefreshAfterWrite() throws Exception {
+        long[] now = {0};
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(100, 1024 * 1024, 1000, () -> now[0]),
+                Collections.singletonMap(TestRealmModel.class,
+                        new CachePolicy.Builder().refreshAfterWrite(100, TimeUnit.NANOSECONDS).build()));
+        memoryStore.cacheModel("id", new TestRealmModel(1, "1"), TestRealmModel.class);
+        now[0] = 50;
+        memoryStore.cacheModel("id", new TestRealmModel(2, "2"), TestRealmModel.class);
+
+        assertFalse(memoryStore.needsRefresh(TestRealmModel.class, null));
+        now[0] = 100;
+        assertTrue(memoryStore.needsRefresh(TestRealmModel.class, 1L));
+        assertFalse(memoryStore.needsRefresh(TestRealmModel.class, 2L));
+        assertTrue(memoryStore.needsRefresh(TestRealmModel.class, null));
+        assertFalse(memoryStore.needsRefresh(Object.class, null));
+        memoryStore.<TestRealmModel>getItem(1, TestRealmModel.class).test().assertValueCount(1);
+    }
+
+    @Test
+    public void needsRefreshAgainOnceTheRefreshedObjectsAreDue() throws Exception {
+        long[] now = {0};
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(100, 1024 * 1024, 1000, () -> now[0]),
+                Collections.singletonMap(TestRealmModel.class,
+                        new CachePolicy.Builder().refreshAfterWrite(100, TimeUnit.NANOSECONDS).build()));
+        memoryStore.cacheModel("id", new TestRealmModel(1, "1"), TestRealmModel.class);
+        now[0] = 100;
+        assertTrue(memoryStore.needsRefresh(TestRealmModel.class, null));
+
+        now[0] = 150;
+        memoryStore.cacheModel("id", new TestRealmModel(1, "1"), TestRealmModel.class);
+        now[0] = 200;
+        assertFalse(memoryStore.needsRefresh(TestRealmModel.class, null));
+        now[0] = 249;
+        assertFalse(memoryStore.needsRefresh(TestRealmModel.class, null));
+        now[0] = 250;
+        assertTrue(memoryStore.needsRefresh(TestRealmModel.class, null));
+    }
+
+    @Test
+    public void getObjectMiss() throws Exception {
+        TestObserver<TestRealmModel> testObserver = new TestObserver<>();
+        memoryStore.<TestRealmModel>getItem(1, TestRealmModel.class).subscribe(testObserver);
+
+        testObserver.assertError(IllegalAccessException.class);
     }
 
     @Test
     public void deleteList() throws Exception {
-//        memoryStore.deleteList(Collections.singletonList(1L), TestRealmModel.class);
+        memoryStore.cacheObject("id", new JSONObject(new Gson().toJson(new TestRealmModel(1, "1"))),
+                TestRealmModel.class);
+
+        memoryStore.deleteList(Collections.singletonList(1L), TestRealmModel.class);
+
+        TestObserver<TestRealmModel> testObserver = new TestObserver<>();
+        memoryStore.<TestRealmModel>getItem(1, TestRealmModel.class).subscribe(testObserver);
+        testObserver.assertError(IllegalAccessException.class);
+    }
+
+    @Test
+    public void getAllItemsNeverSeesPartOfAList() throws Exception {
+        int ids = 1000;
+        JSONArray jsonArray = new JSONArray();
+        for (int i = 1; i <= ids; i++) {
+            jsonArray.put(new JSONObject(new Gson().toJson(new TestRealmModel(i, String.valueOf(i)))));
+        }
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(10_000, 64 * 1024 * 1024,
+                TimeUnit.MINUTES.toNanos(1)));
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            started.countDown();
+            int size;
+            do {
+                size = memoryStore.getAllItems(TestRealmModel.class)
+                        .onErrorReturnItem(Collections.emptyList())
+                        .blockingGet().size();
+                sizes.add(size);
+            } while (size < ids);
+        });
+        reader.start();
+        started.await();
+        memoryStore.cacheList("id", jsonArray, TestRealmModel.class);
+        reader.join(TimeUnit.MINUTES.toMillis(1));
+
+        for (int size : sizes) {
+            assertTrue(String.valueOf(size), size == 0 || size == ids);
+        }
+    }
+
+    @Test
+    public void concurrentCacheDeleteAndGetAll() throws Exception {
+        int threads = 8, iterations = 500, ids = 200;
+        memoryStore = new MemoryStore(new Gson(), new ObjectCache<>(10_000, 64 * 1024 * 1024,
+                TimeUnit.MINUTES.toNanos(1)));
+        List<JSONObject> jsonObjects = new ArrayList<>(ids);
+        for (int i = 1; i <= ids; i++) {
+            jsonObjects.add(new JSONObject(new Gson().toJson(new TestRealmModel(i, String.valueOf(i)))));
+        }
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(threads);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            executorService.execute(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        int from = random.nextInt(ids - 10);
+                        switch (random.nextInt(3)) {
+                            case 0:
+                                memoryStore.cacheList("id", new JSONArray(jsonObjects.subList(from, from + 10)),
+                                        TestRealmModel.class);
+                                break;
+                            case 1:
+                                List<Long> toDelete = new ArrayList<>(10);
+                                for (long id = from + 1; id <= from + 10; id++) {
+                                    toDelete.add(id);
+                                }
+                                memoryStore.deleteList(toDelete, TestRealmModel.class);
+                                break;
+                            default:
+                                memoryStore.getAllItems(TestRealmModel.class)
+                                        .onErrorReturnItem(Collections.emptyList())
+                                        .blockingGet();
+                                break;
+                        }
+                    }
+                } catch (Throwable throwable) {
+                    errors.add(throwable);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        executorService.shutdown();
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        int cached = 0;
+        for (int i = 1; i <= ids; i++) {
+            if (memoryStore.getItem(i, TestRealmModel.class)
+                    .onErrorReturnItem(new Object()).blockingGet() instanceof TestRealmModel) {
+                cached++;
+            }
+        }
+        List<TestRealmModel> all = memoryStore.getAllItems(TestRealmModel.class)
+                .onErrorReturnItem(Collections.emptyList())
+                .blockingGet();
+        assertEquals(cached, all.size());
     }
 }
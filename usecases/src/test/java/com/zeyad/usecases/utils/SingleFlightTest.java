@@ -0,0 +1,94 @@
+package com.zeyad.usecases.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Flowable;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.subscribers.TestSubscriber;
+
+import static junit.framework.Assert.assertEquals;
+
+public class SingleFlightTest {
+    private SingleFlight singleFlight;
+    private AtomicInteger subscriptions;
+    private PublishProcessor<Object> upstream;
+
+    @Before
+    public void setUp() throws Exception {
+        singleFlight = new SingleFlight();
+        subscriptions = new AtomicInteger();
+        upstream = PublishProcessor.create();
+    }
+
+    @Test
+    public void concurrentCallsShareOneUpstream() throws Exception {
+        Flowable<Object> source = upstream.doOnSubscribe(s -> subscriptions.incrementAndGet());
+        TestSubscriber<Object> first = singleFlight.share("url", Object.class, Object.class, true, true, source)
+                .test();
+        upstream.onNext("stale");
+        TestSubscriber<Object> second = singleFlight.share("url", Object.class, Object.class, true, true, source)
+                .test();
+        upstream.onNext("fresh");
+        upstream.onComplete();
+
+        assertEquals(1, subscriptions.get());
+        assertEquals(1, singleFlight.getSavedCallCount());
+        first.assertValues("stale", "fresh").assertComplete();
+        second.assertValues("stale", "fresh").assertComplete();
+    }
+
+    @Test
+    public void differentKeysDoNotShare() throws Exception {
+        Flowable<Object> source = upstream.doOnSubscribe(s -> subscriptions.incrementAndGet());
+        singleFlight.share("url", Object.class, Object.class, true, true, source).test();
+        singleFlight.share("url", String.class, Object.class, true, true, source).test();
+        singleFlight.share("otherUrl", Object.class, Object.class, true, true, source).test();
+        singleFlight.share("url", Object.class, List.class, true, true, source).test();
+        singleFlight.share("url", Object.class, Object.class, false, true, source).test();
+        singleFlight.share("url", Object.class, Object.class, true, false, source).test();
+
+        assertEquals(6, subscriptions.get());
+        assertEquals(0, singleFlight.getSavedCallCount());
+    }
+
+    @Test
+    public void finishedCallIsNotReused() throws Exception {
+        Flowable<Object> source = Flowable.just((Object) "value")
+                .doOnSubscribe(s -> subscriptions.incrementAndGet());
+        singleFlight.share("url", Object.class, Object.class, true, true, source).test().assertValue("value");
+        singleFlight.share("url", Object.class, Object.class, true, true, source).test().assertValue("value");
+
+        assertEquals(2, subscriptions.get());
+        assertEquals(0, singleFlight.getSavedCallCount());
+    }
+
+    @Test
+    public void callsArrivingAsTheFlightLandsStartANewOne() throws Exception {
+        Flowable<Object> source = upstream.doOnSubscribe(s -> subscriptions.incrementAndGet());
+        List<TestSubscriber<Object>> late = new ArrayList<>();
+        singleFlight.share("url", Object.class, Object.class, true, true, source)
+                .doOnComplete(() -> late.add(singleFlight.share("url", Object.class, Object.class, true, true,
+                        source).test()))
+                .test();
+        upstream.onNext("old");
+        upstream.onComplete();
+
+        assertEquals(2, subscriptions.get());
+        assertEquals(0, singleFlight.getSavedCallCount());
+        late.get(0).assertNoValues();
+    }
+
+    @Test
+    public void cancelledCallIsTornDown() throws Exception {
+        Flowable<Object> source = upstream.doOnSubscribe(s -> subscriptions.incrementAndGet());
+        singleFlight.share("url", Object.class, Object.class, true, true, source).test().cancel();
+        singleFlight.share("url", Object.class, Object.class, true, true, source).test();
+
+        assertEquals(2, subscriptions.get());
+    }
+}
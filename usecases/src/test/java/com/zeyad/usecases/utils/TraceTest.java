@@ -0,0 +1,84 @@
+package com.zeyad.usecases.utils;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class TraceTest {
+    private List<String> traces;
+    private Throwable traced;
+
+    @Before
+    public void setUp() throws Exception {
+        traces = new ArrayList<>();
+        Trace.setTracer((level, tag, template, args, throwable) -> {
+            traces.add(level + " " + tag + " " + Trace.format(template, args));
+            traced = throwable;
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Trace.setTracer(Tracer.LOGCAT);
+        Trace.setLevel(Log.WARN);
+    }
+
+    @Test
+    public void tracesBelowTheLevelAreDropped() throws Exception {
+        Trace.setLevel(Log.WARN);
+
+        Trace.d("tag", "debug {}", "dropped");
+        Trace.i("tag", "info");
+        Trace.w("tag", "warn {}", 1);
+
+        assertEquals(1, traces.size());
+        assertEquals(Log.WARN + " tag warn 1", traces.get(0));
+        assertFalse(Trace.isLoggable(Log.DEBUG));
+    }
+
+    @Test
+    public void argumentsAreNotFormattedWhenDropped() throws Exception {
+        Trace.setLevel(Trace.OFF);
+        Object arg = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("Formatted a dropped trace");
+            }
+        };
+
+        Trace.d("tag", "{}", arg);
+        Trace.e("tag", "{}", arg, new IllegalStateException());
+
+        assertTrue(traces.isEmpty());
+    }
+
+    @Test
+    public void errorsCarryTheirThrowable() throws Exception {
+        Trace.setLevel(Log.DEBUG);
+        IllegalStateException exception = new IllegalStateException();
+
+        Trace.e("tag", "failed {}", "url", exception);
+
+        assertEquals(Log.ERROR + " tag failed url", traces.get(0));
+        assertSame(exception, traced);
+    }
+
+    @Test
+    public void format() throws Exception {
+        assertEquals("plain", Trace.format("plain", new Object[0]));
+        assertEquals("String cached!, id = 1", Trace.format("{} cached!, id = {}",
+                new Object[]{String.class, 1}));
+        assertEquals("a and {}", Trace.format("{} and {}", new Object[]{"a"}));
+        assertEquals("a null", Trace.format("{} {}", new Object[]{"a", null, "extra"}));
+    }
+}